@@ -0,0 +1,52 @@
+package com.tayarai.benchmarks;
+
+import com.tayarai.service.AnswerClassifier;
+import com.tayarai.service.InterviewService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-answer checks on {@link InterviewService} for short, typical and long
+ * spoken answers (a voice answer of a couple of minutes is around 250 words).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnswerChecksBenchmark {
+    
+    private static final List<String> KEYWORDS = List.of(
+        "lifecycle", "componentdidmount", "useeffect", "hook", "mount", "unmount", "update");
+    
+    @Param({"5", "40", "250"})
+    private int answerWords;
+    
+    private InterviewService interviewService;
+    private String answer;
+    
+    @Setup
+    public void setUp() {
+        interviewService = new InterviewService();
+        Fixtures.inject(interviewService, "answerClassifier", new AnswerClassifier());
+        answer = Fixtures.answer(answerWords, 42L);
+    }
+    
+    @Benchmark
+    public boolean checkProfanity() {
+        return interviewService.checkProfanity(answer);
+    }
+    
+    @Benchmark
+    public boolean checkLowKnowledge() {
+        return interviewService.checkLowKnowledge(answer);
+    }
+    
+    @Benchmark
+    public boolean checkOffTopic() {
+        return interviewService.checkOffTopic(answer, KEYWORDS);
+    }
+}
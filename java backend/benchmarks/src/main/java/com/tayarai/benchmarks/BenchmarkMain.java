@@ -0,0 +1,27 @@
+package com.tayarai.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Runs JMH with the given arguments and, unless a
+ * result format is given, writes JSON results to {@code jmh-result.json} so runs can
+ * be archived and compared with {@link CompareResults}.
+ */
+public final class BenchmarkMain {
+    
+    private BenchmarkMain() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf") && !jmhArgs.contains("-h") && !jmhArgs.contains("-l")) {
+            jmhArgs.addAll(List.of("-rf", "json"));
+            if (!jmhArgs.contains("-rff")) {
+                jmhArgs.addAll(List.of("-rff", "jmh-result.json"));
+            }
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
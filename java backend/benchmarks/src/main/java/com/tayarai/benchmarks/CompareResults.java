@@ -0,0 +1,78 @@
+package com.tayarai.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Compares two JMH JSON result files and exits with status 1 if any benchmark
+ * present in both got slower by more than the allowed percentage (default 10).
+ * Only average-time and sample-time modes are compared, where lower is better.
+ * <pre>
+ * java -cp target/benchmarks.jar com.tayarai.benchmarks.CompareResults baseline.json jmh-result.json 10
+ * </pre>
+ */
+public final class CompareResults {
+    
+    private CompareResults() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [max-regression-percent]");
+            System.exit(2);
+        }
+        double allowed = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW   %s%n", entry.getKey());
+                continue;
+            }
+            String mode = entry.getValue().path("mode").asText();
+            if (!"avgt".equals(mode) && !"sample".equals(mode)) {
+                continue;
+            }
+            double old = before.path("primaryMetric").path("score").asDouble();
+            double now = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double change = old == 0 ? 0 : (now - old) / old * 100;
+            boolean regressed = change > allowed;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%s %s: %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "SLOWER" : "ok    ",
+                entry.getKey(), old, now, entry.getValue().path("primaryMetric").path("scoreUnit").asText(), change);
+        }
+        
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, allowed);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Results keyed by benchmark name plus its parameters, e.g. "...checkProfanity{answerWords=40}".
+     */
+    private static Map<String, JsonNode> load(File file) throws Exception {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            if (params.size() > 0) {
+                List<String> pairs = new ArrayList<>();
+                params.fields().forEachRemaining(p -> pairs.add(p.getKey() + "=" + p.getValue().asText()));
+                Collections.sort(pairs);
+                key.append(pairs.toString().replace('[', '{').replace(']', '}'));
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
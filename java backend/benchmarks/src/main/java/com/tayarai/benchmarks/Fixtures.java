@@ -0,0 +1,58 @@
+package com.tayarai.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.SplittableRandom;
+
+/**
+ * Shared setup for the benchmarks: wiring beans without a Spring context, and
+ * deterministic interview-like text.
+ */
+final class Fixtures {
+    
+    private static final String[] WORDS = {
+        "the", "component", "renders", "when", "state", "changes", "and", "I", "would", "use",
+        "a", "hook", "to", "memoize", "expensive", "calculations", "so", "that", "React", "does",
+        "not", "recompute", "them", "on", "every", "render", "because", "performance", "matters",
+        "in", "large", "lists", "we", "used", "virtualization", "with", "keys", "which", "helps",
+        "reconciliation", "also", "useEffect", "cleanup", "prevents", "memory", "leaks", "API",
+        "calls", "should", "be", "cancelled", "if", "unmount", "happens", "first"
+    };
+    
+    private Fixtures() {
+    }
+    
+    /**
+     * An answer of about {@code words} words, built from a fixed vocabulary.
+     */
+    static String answer(int words, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder answer = new StringBuilder(words * 7);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                answer.append(i % 12 == 0 ? ". " : " ");
+            }
+            answer.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return answer.append('.').toString();
+    }
+    
+    /**
+     * Sets a private field, the way Spring would inject {@code @Autowired} or {@code @Value}.
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass());
+    }
+}
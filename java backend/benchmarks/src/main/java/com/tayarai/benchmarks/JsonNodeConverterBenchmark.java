@@ -0,0 +1,69 @@
+package com.tayarai.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tayarai.model.JsonNodeConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips through {@link JsonNodeConverter}: a small activity-log metadata object
+ * and a full CV section, the two shapes stored in JSON columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonNodeConverterBenchmark {
+    
+    @Param({"activity", "cv"})
+    private String document;
+    
+    private JsonNodeConverter converter;
+    private String column;
+    private JsonNode node;
+    
+    @Setup
+    public void setUp() {
+        converter = new JsonNodeConverter();
+        column = "cv".equals(document) ? cvJson() : activityJson();
+        node = converter.convertToEntityAttribute(column);
+    }
+    
+    @Benchmark
+    public String toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(node);
+    }
+    
+    @Benchmark
+    public JsonNode toEntityAttribute() {
+        return converter.convertToEntityAttribute(column);
+    }
+    
+    @Benchmark
+    public JsonNode roundTrip() {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(node));
+    }
+    
+    private static String activityJson() {
+        return "{\"interviewId\":18342,\"role\":\"Frontend Developer\",\"difficulty\":\"intermediate\","
+            + "\"score\":7.5,\"durationMinutes\":14,\"source\":\"web\"}";
+    }
+    
+    private static String cvJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"company\":\"Company ").append(i).append("\",")
+                .append("\"position\":\"Software Engineer\",\"startDate\":\"2019-0").append(i + 1).append("\",")
+                .append("\"endDate\":\"2021-0").append(i + 1).append("\",\"current\":false,")
+                .append("\"description\":\"").append(Fixtures.answer(60, i)).append("\",")
+                .append("\"technologies\":[\"React\",\"TypeScript\",\"Node.js\",\"MySQL\",\"Docker\"]}");
+        }
+        return json.append(']').toString();
+    }
+}
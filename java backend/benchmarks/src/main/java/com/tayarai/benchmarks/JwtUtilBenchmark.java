@@ -0,0 +1,55 @@
+package com.tayarai.benchmarks;
+
+import com.tayarai.config.JwtPrincipal;
+import com.tayarai.config.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and the checks made on every authenticated request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtUtilBenchmark {
+    
+    private static final String EMAIL = "candidate@example.com";
+    
+    private JwtUtil jwtUtil;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        Fixtures.inject(jwtUtil, "secret", "benchmark-secret-key-that-is-at-least-256-bits-long!!");
+        Fixtures.inject(jwtUtil, "expiration", 86_400_000L);
+        Fixtures.inject(jwtUtil, "cacheMaxEntries", 10_000);
+        Fixtures.inject(jwtUtil, "cacheMaxTtlMs", 900_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken(1042, EMAIL, "user");
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(1042, EMAIL, "user");
+    }
+    
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, EMAIL);
+    }
+    
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return jwtUtil.verify(token);
+    }
+    
+    @Benchmark
+    public Integer extractUserId() {
+        return jwtUtil.extractUserId(token);
+    }
+}
@@ -0,0 +1,74 @@
+package com.tayarai.benchmarks;
+
+import com.tayarai.service.QuestionSampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original in-place {@code Collections.shuffle} + {@code subList} selection
+ * against {@link QuestionSampler} for a typical interview of 10 questions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuestionSamplerBenchmark {
+    
+    private static final int QUESTIONS_PER_INTERVIEW = 10;
+    
+    @Param({"100", "10000", "100000"})
+    private int bankSize;
+    
+    private List<Map<String, Object>> bank;
+    private int[] ids;
+    private BitSet halfSeen;
+    private QuestionSampler sampler;
+    
+    @Setup
+    public void setUp() {
+        bank = new ArrayList<>(bankSize);
+        ids = new int[bankSize];
+        halfSeen = new BitSet(bankSize);
+        for (int i = 0; i < bankSize; i++) {
+            bank.add(Map.of("id", i, "question", "Question " + i));
+            ids[i] = i;
+            if (i % 2 == 0) {
+                halfSeen.set(i);
+            }
+        }
+        sampler = new QuestionSampler();
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> legacyShuffle() {
+        Collections.shuffle(bank);
+        return bank.subList(0, Math.min(QUESTIONS_PER_INTERVIEW, bank.size()));
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> partialFisherYates() {
+        return collect(sampler.sample(bankSize, QUESTIONS_PER_INTERVIEW, null));
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> partialFisherYatesSeeded() {
+        return collect(sampler.sample(bankSize, QUESTIONS_PER_INTERVIEW, 42L));
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> partialFisherYatesWithHistory() {
+        return collect(sampler.sample(bankSize, QUESTIONS_PER_INTERVIEW, null, ids, halfSeen));
+    }
+    
+    private List<Map<String, Object>> collect(int[] picked) {
+        List<Map<String, Object>> result = new ArrayList<>(picked.length);
+        for (int index : picked) {
+            result.add(bank.get(index));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tayarai.benchmarks;
+
+import com.tayarai.dto.Question;
+import com.tayarai.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InterviewService#getShuffledQuestions} end to end, against a bank loaded
+ * from a generated interview-questions.json of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShuffledQuestionsBenchmark {
+    
+    @Param({"45", "1000", "20000"})
+    private int bankSize;
+    
+    private InterviewService interviewService;
+    private Path bankFile;
+    
+    @Setup
+    public void setUp() throws IOException {
+        bankFile = Files.createTempFile("interview-questions", ".json");
+        writeBank(bankFile, bankSize);
+        
+        QuestionBankService bankService = new QuestionBankService();
+        Fixtures.inject(bankService, "questionsPath", bankFile.toString());
+        if (!bankService.reload()) {
+            throw new IllegalStateException("Could not load generated question bank");
+        }
+        
+        interviewService = new InterviewService();
+        Fixtures.inject(interviewService, "questionBankService", bankService);
+        Fixtures.inject(interviewService, "questionSampler", new QuestionSampler());
+        Fixtures.inject(interviewService, "historyService", new QuestionHistoryService(50000));
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(bankFile);
+    }
+    
+    @Benchmark
+    public List<Question> getShuffledQuestions() {
+        return interviewService.getShuffledQuestions("frontend", "beginner", 10);
+    }
+    
+    private static void writeBank(Path file, int size) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\"frontend\":{\"beginner\":[");
+            for (int i = 1; i <= size; i++) {
+                if (i > 1) {
+                    out.write(',');
+                }
+                out.write("{\"id\":" + i
+                    + ",\"question\":\"" + Fixtures.answer(14, i) + "?\""
+                    + ",\"expectedSummary\":\"" + Fixtures.answer(30, -i) + "\""
+                    + ",\"keywords\":[\"hook\",\"state\",\"render\",\"memoize\"]"
+                    + ",\"routing\":{\"performance\":" + (i % size + 1) + "}"
+                    + ",\"defaultNext\":" + (i % size + 1)
+                    + ",\"lowKnowledgePhrases\":[\"i don't know\",\"not sure\",\"no idea\"]"
+                    + ",\"systemReplyOnLowKnowledge\":\"That's okay. Let's continue.\"}");
+            }
+            out.write("]}}");
+        }
+    }
+}
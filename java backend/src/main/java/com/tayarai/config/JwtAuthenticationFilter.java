@@ -26,24 +26,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        Integer userId = null;
-        String role = null;
-        String jwt = null;
-        
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                userId = jwtUtil.extractUserId(jwt);
-                role = jwtUtil.extractRole(jwt);
-            } catch (Exception e) {
-                logger.error("JWT parsing error: " + e.getMessage());
-            }
-        }
-        
-        if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, jwtUtil.extractUsername(jwt))) {
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(userId, null, new ArrayList<>());
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // One signature check per token; repeat requests are served from JwtUtil's cache
+            JwtPrincipal principal = jwtUtil.verify(authorizationHeader.substring(7));
+            if (principal != null && principal.userId() != null) {
+                UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(principal.userId(), null, new ArrayList<>());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
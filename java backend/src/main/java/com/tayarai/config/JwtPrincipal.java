@@ -0,0 +1,13 @@
+package com.tayarai.config;
+
+/**
+ * The claims of a verified token.
+ *
+ * @param expiresAt expiry in epoch millis, or {@link Long#MAX_VALUE} if the token has none
+ */
+public record JwtPrincipal(Integer userId, String role, String email, long expiresAt) {
+    
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAt;
+    }
+}
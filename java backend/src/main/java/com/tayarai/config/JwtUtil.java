@@ -1,17 +1,30 @@
 package com.tayarai.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs. The signing key and parser are built once, and a token is
+ * verified at most once per cache lifetime: {@link #verify} keeps the resulting
+ * {@link JwtPrincipal} in a bounded cache keyed by the token's SHA-256, so repeat
+ * requests with the same token skip the base64, JSON and HMAC work. Entries leave
+ * the cache when the token expires, or after {@code jwt.cache.max-ttl-ms} at most.
+ */
 @Component
 public class JwtUtil {
     @Value("${jwt.secret}")
@@ -20,8 +33,68 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+    
+    @Value("${jwt.cache.max-ttl-ms:900000}")
+    private long cacheMaxTtlMs;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    private final Map<TokenDigest, CachedPrincipal> verified = new ConcurrentHashMap<>();
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+    
+    /**
+     * Verifies the token's signature and expiry once and returns its claims, or null if
+     * the token is invalid or expired.
+     */
+    public JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        TokenDigest key = cacheMaxEntries > 0 ? digest(token) : null;
+        
+        if (key != null) {
+            CachedPrincipal cached = verified.get(key);
+            if (cached != null) {
+                if (now < cached.evictAt) {
+                    return cached.principal;
+                }
+                verified.remove(key, cached);
+            }
+        }
+        
+        JwtPrincipal principal;
+        try {
+            principal = toPrincipal(extractAllClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (principal.isExpired(now)) {
+            return null;
+        }
+        
+        if (key != null) {
+            if (verified.size() >= cacheMaxEntries) {
+                evict(now);
+            }
+            verified.put(key, new CachedPrincipal(principal, Math.min(principal.expiresAt(), now + cacheMaxTtlMs)));
+        }
+        return principal;
     }
     
     public String extractUsername(String token) {
@@ -48,15 +121,7 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public String generateToken(Integer userId, String email, String role) {
@@ -72,13 +137,68 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, String email) {
-        final String username = extractUsername(token);
-        return (username.equals(email) && !isTokenExpired(token));
+        JwtPrincipal principal = verify(token);
+        return principal != null && Objects.equals(principal.email(), email);
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(cached -> now >= cached.evictAt);
+    }
+    
+    /**
+     * Makes room when the cache is full: expired entries go first, then the ones
+     * closest to expiring, down to 90% of capacity.
+     */
+    private synchronized void evict(long now) {
+        evictExpired();
+        int excess = verified.size() - cacheMaxEntries * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<TokenDigest, CachedPrincipal>> entries = new ArrayList<>(verified.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().evictAt));
+        for (int i = 0; i < excess && i < entries.size(); i++) {
+            verified.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+    
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        // Tokens from the Node.js backend carry the email as a claim instead of the subject
+        String email = claims.getSubject() != null ? claims.getSubject() : claims.get("email", String.class);
+        Date expiresAt = claims.getExpiration();
+        return new JwtPrincipal(
+            userId != null ? userId.intValue() : null,
+            claims.get("role", String.class),
+            email,
+            expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE
+        );
+    }
+    
+    private TokenDigest digest(String token) {
+        MessageDigest md = sha256.get();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenDigest(toLong(hash, 0), toLong(hash, 8), toLong(hash, 16), toLong(hash, 24));
+    }
+    
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+    
+    private record TokenDigest(long a, long b, long c, long d) {
+    }
+    
+    private record CachedPrincipal(JwtPrincipal principal, long evictAt) {
     }
 }
-
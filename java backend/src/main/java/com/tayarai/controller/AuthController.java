@@ -3,17 +3,25 @@ package com.tayarai.controller;
 import com.tayarai.dto.AuthRequest;
 import com.tayarai.dto.AuthResponse;
 import com.tayarai.dto.LoginRequest;
+import com.tayarai.dto.UserCredentials;
 import com.tayarai.model.User;
 import com.tayarai.repository.UserRepository;
 import com.tayarai.config.JwtUtil;
+import com.tayarai.service.ActivityLogWriter;
 import com.tayarai.service.AuthService;
+import com.tayarai.service.EmailExistenceFilter;
+import com.tayarai.service.PasswordHashingService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.sql.SQLException;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
@@ -23,7 +31,7 @@ public class AuthController {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private JwtUtil jwtUtil;
@@ -31,52 +39,109 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private EmailExistenceFilter emailExistenceFilter;
+    
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
+    
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody AuthRequest request) {
         try {
-            if (userRepository.existsByEmail(request.getEmail())) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(new AuthResponse(null, null, null, null, null, "User already exists"));
+            // Most new emails are ruled out in memory; only possible matches are checked in MySQL
+            if (emailExistenceFilter.mightContain(request.getEmail())
+                    && userRepository.existsByEmail(request.getEmail())) {
+                return userExists();
             }
             
             User user = new User();
             user.setName(request.getName());
             user.setEmail(request.getEmail());
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.setPassword(passwordHashingService.encode(request.getPassword()));
             user.setRole(User.UserRole.USER);
             
             user = userRepository.save(user);
+            emailExistenceFilter.add(user.getEmail());
+            activityLogWriter.record(user.getId(), "user_registered", "New user registered: " + user.getEmail());
             
             String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
             
             return ResponseEntity.status(HttpStatus.CREATED)
-                .body(new AuthResponse(token, user.getId(), user.getEmail(), user.getName(), 
+                .body(new AuthResponse(token, user.getId(), user.getEmail(), user.getName(),
                     user.getRole().name(), "User created successfully"));
+        } catch (DataIntegrityViolationException e) {
+            // Any other constraint is a real failure, and must not mark the email as taken
+            if (!isDuplicateEmail(e)) {
+                return creationFailed(e);
+            }
+            // Registered concurrently, or missed by the filter; the unique constraint decides
+            emailExistenceFilter.add(request.getEmail());
+            return userExists();
+        } catch (PasswordHashingService.BusyException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new AuthResponse(null, null, null, null, null, "Error creating user: " + e.getMessage()));
+            return creationFailed(e);
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
-            User user = userRepository.findByEmail(request.getEmail())
+            UserCredentials user = userRepository.findCredentialsByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
             
-            if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            String storedHash = user.password();
+            if (!passwordHashingService.matches(request.getPassword(), storedHash)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthResponse(null, null, null, null, null, "Invalid credentials"));
             }
             
-            String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
+            // Hashes from before a cost increase are upgraded while we have the plain password
+            if (passwordHashingService.needsRehash(storedHash)) {
+                Integer userId = user.id();
+                passwordHashingService.rehashAsync(request.getPassword(),
+                    newHash -> userRepository.updatePasswordHash(userId, storedHash, newHash));
+            }
             
-            return ResponseEntity.ok(new AuthResponse(token, user.getId(), user.getEmail(), 
-                user.getName(), user.getRole().name(), "Login successful"));
+            String token = jwtUtil.generateToken(user.id(), user.email(), user.role().name());
+            activityLogWriter.record(user.id(), "user_login", "User logged in: " + user.email(), null,
+                httpRequest.getRemoteAddr(), httpRequest.getHeader(HttpHeaders.USER_AGENT));
+            
+            return ResponseEntity.ok(new AuthResponse(token, user.id(), user.email(),
+                user.name(), user.role().name(), "Login successful"));
+        } catch (PasswordHashingService.BusyException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new AuthResponse(null, null, null, null, null, "Invalid credentials"));
         }
     }
+    
+    // MySQL's ER_DUP_ENTRY on the users.email unique key: "Duplicate entry '...' for key 'users.email'"
+    // (MySQL 8), or "for key 'email'" before that
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getErrorCode() == 1062) {
+                String message = sql.getMessage();
+                return message != null && (message.endsWith("for key 'users.email'") || message.endsWith("for key 'email'"));
+            }
+        }
+        return false;
+    }
+    
+    private ResponseEntity<?> creationFailed(Exception e) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new AuthResponse(null, null, null, null, null, "Error creating user: " + e.getMessage()));
+    }
+    
+    private ResponseEntity<?> userExists() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(new AuthResponse(null, null, null, null, null, "User already exists"));
+    }
+    
+    private ResponseEntity<?> tooManyRequests(PasswordHashingService.BusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(new AuthResponse(null, null, null, null, null, e.getMessage()));
+    }
 }
-
@@ -0,0 +1,285 @@
+package com.tayarai.controller;
+
+import com.tayarai.dto.ChallengeSummary;
+import com.tayarai.dto.ExecuteCodeRequest;
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.CodingChallenge;
+import com.tayarai.repository.CodeSubmissionRepository;
+import com.tayarai.repository.UserRepository;
+import com.tayarai.service.ChallengeCatalog;
+import com.tayarai.service.ChallengeCatalogService;
+import com.tayarai.service.CodeExecutionService;
+import com.tayarai.service.LeaderboardService;
+import com.tayarai.service.SandboxLanguage;
+import com.tayarai.service.SandboxPool;
+import com.tayarai.service.SubmissionEvents;
+import com.tayarai.service.SubmissionQueue;
+import com.tayarai.service.UserViewCache;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/code")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class CodeController {
+    
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CodeSubmissionRepository codeSubmissionRepository;
+    
+    @Autowired
+    private SubmissionQueue submissionQueue;
+    
+    @Autowired
+    private SubmissionEvents submissionEvents;
+    
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private ChallengeCatalogService challengeCatalogService;
+    
+    @PostMapping("/execute")
+    public ResponseEntity<?> execute(@Valid @RequestBody ExecuteCodeRequest request, Authentication authentication) {
+        if (SandboxLanguage.of(request.getLanguage()) == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Unsupported language: " + request.getLanguage() + ". Supported: javascript, python, java");
+            error.put("status", "error");
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            CodeSubmission submission = new CodeSubmission();
+            submission.setUser(userRepository.getReferenceById(userId));
+            submission.setChallengeId(request.getChallengeId());
+            submission.setLanguage(request.getLanguage().trim().toLowerCase(Locale.ROOT));
+            submission.setCode(request.getCode());
+            // Not queued, but admitted per user so direct runs cannot crowd out queued judging
+            CodeSubmission run = submission;
+            submission = submissionQueue.runDirect(userId, userViewCache.get(userId).subscriptionType(),
+                () -> codeExecutionService.runSubmission(run, request.getInput()));
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("submissionId", submission.getId());
+            result.put("status", submission.getStatus().name().toLowerCase(Locale.ROOT));
+            result.put("output", submission.getOutput());
+            result.put("error", submission.getErrorMessage());
+            result.put("executionTime", submission.getExecutionTime());
+            result.put("cpuTime", submission.getCpuTime());
+            result.put("memoryUsed", submission.getMemoryUsed());
+            return ResponseEntity.ok(result);
+        } catch (SubmissionQueue.RejectedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+        } catch (SandboxPool.BusyException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Failed to execute code: " + e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
+    /**
+     * Queues the code to be judged against the challenge's test cases and answers 202 at
+     * once; progress comes from {@code GET /api/code/submissions/{id}/events}.
+     */
+    @PostMapping("/judge")
+    public ResponseEntity<?> judge(@Valid @RequestBody ExecuteCodeRequest request, Authentication authentication) {
+        Map<String, String> invalid = new HashMap<>();
+        if (SandboxLanguage.of(request.getLanguage()) == null) {
+            invalid.put("message", "Unsupported language: " + request.getLanguage() + ". Supported: javascript, python, java");
+        } else if (request.getChallengeId() == null) {
+            invalid.put("message", "Challenge is required");
+        }
+        if (!invalid.isEmpty()) {
+            invalid.put("status", "error");
+            return ResponseEntity.badRequest().body(invalid);
+        }
+        
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            CodeSubmission submission = new CodeSubmission();
+            submission.setUser(userRepository.getReferenceById(userId));
+            submission.setChallengeId(request.getChallengeId());
+            submission.setLanguage(request.getLanguage().trim().toLowerCase(Locale.ROOT));
+            submission.setCode(request.getCode());
+            submission.setJudgeMode("run".equalsIgnoreCase(request.getMode())
+                ? CodeSubmission.JudgeMode.RUN_ALL : CodeSubmission.JudgeMode.SUBMIT);
+            int ahead = submissionQueue.submit(submission, userViewCache.get(userId).subscriptionType());
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("submissionId", submission.getId());
+            result.put("status", "pending");
+            result.put("ahead", ahead);
+            result.put("events", "/api/code/submissions/" + submission.getId() + "/events");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (SubmissionQueue.RejectedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Failed to queue code: " + e.getMessage());
+            error.put("status", "error");
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
+    /**
+     * Server-Sent Events for a queued submission: "queued", "running", one "case" per test
+     * case, then "summary" (or "error"). A submission that has already finished gets a
+     * single "result" event with what was saved.
+     */
+    @GetMapping(value = "/submissions/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable Integer id, Authentication authentication) {
+        Integer userId = (Integer) authentication.getPrincipal();
+        Optional<CodeSubmission> found = codeSubmissionRepository.findByIdAndUserId(id, userId);
+        if (found.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        
+        SseEmitter emitter = submissionEvents.subscribe(id);
+        if (emitter == null) {
+            CodeSubmission submission = found.get();
+            Map<String, Object> result = new HashMap<>();
+            result.put("submissionId", submission.getId());
+            result.put("status", submission.getStatus().name().toLowerCase(Locale.ROOT));
+            result.put("output", submission.getOutput());
+            result.put("error", submission.getErrorMessage());
+            result.put("executionTime", submission.getExecutionTime());
+            result.put("cpuTime", submission.getCpuTime());
+            result.put("memoryUsed", submission.getMemoryUsed());
+            emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> leaderboard(@RequestParam(defaultValue = "0") int offset,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("leaderboard", leaderboardService.top(Math.max(0, offset), Math.max(1, Math.min(limit, 100))));
+        result.put("total", leaderboardService.size());
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * The caller's rank and the users just above and below them.
+     */
+    @GetMapping("/leaderboard/me")
+    public ResponseEntity<?> myRank(@RequestParam(defaultValue = "5") int around, Authentication authentication) {
+        Integer userId = (Integer) authentication.getPrincipal();
+        Map<String, Object> result = new HashMap<>();
+        result.put("rank", leaderboardService.rank(userId));
+        result.put("leaderboard", leaderboardService.around(userId, Math.max(0, Math.min(around, 50))));
+        result.put("total", leaderboardService.size());
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Active challenges from the in-memory catalog, optionally filtered by difficulty,
+     * category and tag. The ETag is the catalog version, so a client that sends it back
+     * gets a 304 until a challenge changes.
+     */
+    @GetMapping("/challenges")
+    public ResponseEntity<?> challenges(@RequestParam(required = false) String difficulty,
+                                        @RequestParam(required = false) String category,
+                                        @RequestParam(required = false) String tag,
+                                        @RequestParam(defaultValue = "0") int offset,
+                                        @RequestParam(defaultValue = "50") int limit,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CodingChallenge.ChallengeDifficulty level = null;
+        if (difficulty != null && !difficulty.isBlank()) {
+            try {
+                level = CodingChallenge.ChallengeDifficulty.valueOf(difficulty.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Unknown difficulty: " + difficulty + ". Supported: easy, medium, hard");
+                error.put("status", "error");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        
+        ChallengeCatalog catalog = challengeCatalogService.getCatalog();
+        if (catalog.getEtag().equals(ifNoneMatch)) {
+            return notModified(catalog);
+        }
+        List<ChallengeSummary> matches = catalog.find(level, blankToNull(category), blankToNull(tag));
+        int from = Math.min(Math.max(0, offset), matches.size());
+        int to = Math.min(matches.size(), from + Math.max(1, Math.min(limit, 100)));
+        Map<String, Object> result = new HashMap<>();
+        result.put("challenges", matches.subList(from, to));
+        result.put("total", matches.size());
+        result.put("version", catalog.getVersion());
+        return ResponseEntity.ok().eTag(catalog.getEtag()).cacheControl(CacheControl.noCache()).body(result);
+    }
+    
+    @GetMapping("/challenges/{slug}")
+    public ResponseEntity<?> challenge(@PathVariable String slug,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ChallengeCatalog catalog = challengeCatalogService.getCatalog();
+        Optional<ChallengeSummary> found = catalog.findBySlug(slug);
+        if (found.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Challenge not found");
+            error.put("status", "error");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        if (catalog.getEtag().equals(ifNoneMatch)) {
+            return notModified(catalog);
+        }
+        return ResponseEntity.ok().eTag(catalog.getEtag()).cacheControl(CacheControl.noCache()).body(found.get());
+    }
+    
+    private static ResponseEntity<?> notModified(ChallengeCatalog catalog) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(catalog.getEtag()).cacheControl(CacheControl.noCache()).build();
+    }
+    
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
+}
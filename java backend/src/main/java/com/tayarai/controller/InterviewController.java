@@ -1,17 +1,33 @@
 package com.tayarai.controller;
 
+import com.tayarai.dto.EvaluateAnswersRequest;
+import com.tayarai.dto.HistoryCursor;
+import com.tayarai.dto.InterviewSummary;
+import com.tayarai.dto.QuestionTransition;
+import com.tayarai.dto.UserView;
 import com.tayarai.model.Interview;
 import com.tayarai.model.User;
 import com.tayarai.repository.InterviewRepository;
 import com.tayarai.repository.UserRepository;
+import com.tayarai.service.ActivityLogWriter;
+import com.tayarai.service.InterviewHistoryService;
+import com.tayarai.service.InterviewQuotaService;
 import com.tayarai.service.InterviewService;
+import com.tayarai.service.InterviewSession;
+import com.tayarai.service.InterviewSessionService;
+import com.tayarai.service.TranscriptStore;
+import com.tayarai.service.UserViewCache;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,38 +44,61 @@ public class InterviewController {
     @Autowired
     private InterviewService interviewService;
     
+    @Autowired
+    private InterviewSessionService interviewSessionService;
+    
+    @Autowired
+    private TranscriptStore transcriptStore;
+    
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @Autowired
+    private InterviewQuotaService interviewQuotaService;
+    
+    @Autowired
+    private InterviewHistoryService interviewHistoryService;
+    
+    @Autowired
+    private ActivityLogWriter activityLogWriter;
+    
+    @Value("${interview.evaluation.max-answers:10000}")
+    private int maxBatchAnswers;
+    
+    @Value("${interview.evaluation.max-interviews:500}")
+    private int maxRescoreInterviews;
+    
+    @Value("${interview.history.max-page-size:100}")
+    private int maxHistoryPage;
+    
     @PostMapping
     public ResponseEntity<?> createInterview(
             @RequestBody Map<String, String> request,
             Authentication authentication) {
         try {
             Integer userId = (Integer) authentication.getPrincipal();
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            // Check daily limit for free users
-            if (user.getSubscriptionType() == User.SubscriptionType.FREE) {
-                LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-                LocalDateTime tomorrow = today.plusDays(1);
-                Long todayInterviews = interviewRepository.countInterviewsByUserIdAndDateRange(
-                    userId, today, tomorrow);
-                
-                if (todayInterviews >= 1) {
-                    Map<String, String> error = new HashMap<>();
-                    error.put("message", "Daily interview limit reached. Upgrade to Pro for unlimited interviews.");
-                    return ResponseEntity.status(403).body(error);
-                }
-            }
+            UserView user = userViewCache.get(userId);
             
             Interview interview = new Interview();
-            interview.setUser(user);
+            // Only the foreign key is needed, so no SELECT for the user row
+            interview.setUser(userRepository.getReferenceById(userId));
             interview.setRole(request.get("role"));
             interview.setDifficulty(Interview.InterviewDifficulty.valueOf(
                 request.get("difficulty").toUpperCase()));
             interview.setLanguage(request.get("language"));
             interview.setStatus(Interview.InterviewStatus.IN_PROGRESS);
             
-            interview = interviewRepository.save(interview);
+            // Check daily limit (free users); the insert shares the quota's transaction, so concurrent starts cannot both pass
+            Interview pending = interview;
+            interview = interviewQuotaService.startWithinQuota(userId, user.subscriptionType(),
+                user.subscriptionStatus(), () -> interviewRepository.save(pending));
+            if (interview == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Daily interview limit reached. Upgrade to Pro for unlimited interviews.");
+                return ResponseEntity.status(403).body(error);
+            }
+            
+            activityLogWriter.record(userId, "interview_started", "Started interview for role: " + interview.getRole());
             
             Map<String, Object> response = new HashMap<>();
             response.put("id", interview.getId());
@@ -73,6 +112,48 @@ public class InterviewController {
         }
     }
     
+    @GetMapping("/history")
+    public ResponseEntity<?> getHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            HistoryCursor after;
+            try {
+                after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Invalid cursor"));
+            }
+            
+            int size = Math.max(1, Math.min(limit, maxHistoryPage));
+            List<InterviewSummary> interviews = interviewHistoryService.page(userId, after, size);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("interviews", interviews);
+            // Null once the last page has been returned
+            response.put("nextCursor", interviews.size() < size ? null
+                : HistoryCursor.after(interviews.get(interviews.size() - 1)).encode());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching interview history: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+    
+    /**
+     * The full history as NDJSON for exports, streamed page by page.
+     */
+    @GetMapping(value = "/history", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> exportHistory(Authentication authentication) {
+        Integer userId = (Integer) authentication.getPrincipal();
+        StreamingResponseBody body = out -> interviewHistoryService.export(userId, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<?> getInterview(@PathVariable Integer id, Authentication authentication) {
         try {
@@ -95,5 +176,143 @@ public class InterviewController {
             return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
         }
     }
+    
+    @PostMapping("/{id}/session")
+    public ResponseEntity<?> startSession(@PathVariable Integer id, Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            Interview interview = interviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Interview not found"));
+            
+            if (!interview.getUser().getId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("message", "Access denied"));
+            }
+            
+            QuestionTransition first = interviewSessionService.start(
+                id, userId, interview.getRole(), interview.getDifficulty().name());
+            return ResponseEntity.ok(first);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{id}/answer")
+    public ResponseEntity<?> answerQuestion(
+            @PathVariable Integer id,
+            @RequestBody Map<String, String> request,
+            Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            InterviewSession session = interviewSessionService.getSession(id);
+            
+            if (session == null) {
+                return ResponseEntity.status(404).body(Map.of("message", "Interview session not found"));
+            }
+            if (!session.getUserId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("message", "Access denied"));
+            }
+            
+            return ResponseEntity.ok(interviewSessionService.answer(session, request.get("answer")));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}/transcript")
+    public ResponseEntity<?> getTranscript(@PathVariable Integer id, Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            Interview interview = interviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Interview not found"));
+            
+            if (!interview.getUser().getId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("message", "Access denied"));
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.put("transcript", transcriptStore.load(id));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Appends turns to the stored transcript as the conversation goes on, instead of
+     * saving the whole text at the end.
+     */
+    @PostMapping("/{id}/transcript")
+    public ResponseEntity<?> appendTranscript(
+            @PathVariable Integer id,
+            @RequestBody Map<String, String> request,
+            Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            Interview interview = interviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Interview not found"));
+            
+            if (!interview.getUser().getId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("message", "Access denied"));
+            }
+            
+            String text = request.get("text");
+            if (text == null || text.isBlank()) {
+                return ResponseEntity.status(400).body(Map.of("message", "text is required"));
+            }
+            
+            transcriptStore.append(id, text);
+            return ResponseEntity.ok(Map.of("message", "Transcript updated"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/evaluate")
+    public ResponseEntity<?> evaluateAnswers(@Valid @RequestBody EvaluateAnswersRequest request) {
+        try {
+            if (request.getAnswers().size() > maxBatchAnswers) {
+                return ResponseEntity.status(400).body(Map.of(
+                    "message", "At most " + maxBatchAnswers + " answers can be evaluated per request"));
+            }
+            return ResponseEntity.ok(interviewService.evaluateAnswers(
+                request.getAnswers(), request.getDomain(), request.getLevel(), request.getQuestionIds()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Re-scores the stored transcripts of several interviews at once. Admins can re-score
+     * any interview; other users only their own (other ids are skipped).
+     */
+    @PostMapping("/rescore")
+    public ResponseEntity<?> rescoreInterviews(
+            @RequestBody Map<String, List<Integer>> request,
+            Authentication authentication) {
+        try {
+            List<Integer> interviewIds = request.get("interviewIds");
+            if (interviewIds == null || interviewIds.isEmpty()) {
+                return ResponseEntity.status(400).body(Map.of("message", "interviewIds is required"));
+            }
+            if (interviewIds.size() > maxRescoreInterviews) {
+                return ResponseEntity.status(400).body(Map.of(
+                    "message", "At most " + maxRescoreInterviews + " interviews can be re-scored per request"));
+            }
+            
+            Integer userId = (Integer) authentication.getPrincipal();
+            boolean admin = userViewCache.get(userId).role() == User.UserRole.ADMIN;
+            
+            List<Interview> interviews = interviewRepository.findAllById(interviewIds).stream()
+                .filter(interview -> admin || interview.getUser().getId().equals(userId))
+                .toList();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("interviews", interviewService.rescoreInterviews(interviews));
+            response.put("count", interviews.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", e.getMessage()));
+        }
+    }
 }
-
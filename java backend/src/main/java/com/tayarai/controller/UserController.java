@@ -1,15 +1,22 @@
 package com.tayarai.controller;
 
-import com.tayarai.model.User;
+import com.tayarai.dto.ActivityCount;
+import com.tayarai.dto.UserView;
 import com.tayarai.repository.UserRepository;
 import com.tayarai.repository.InterviewRepository;
+import com.tayarai.service.ActivityRollupService;
 import com.tayarai.service.UserService;
+import com.tayarai.service.UserViewCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,6 +33,12 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @Autowired
+    private ActivityRollupService activityRollupService;
+    
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboard(Authentication authentication) {
         try {
@@ -42,17 +55,16 @@ public class UserController {
     public ResponseEntity<?> getProfile(Authentication authentication) {
         try {
             Integer userId = (Integer) authentication.getPrincipal();
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            UserView user = userViewCache.get(userId);
             
             Map<String, Object> profile = new HashMap<>();
-            profile.put("id", user.getId());
-            profile.put("name", user.getName());
-            profile.put("email", user.getEmail());
-            profile.put("role", user.getRole());
-            profile.put("avatarUrl", user.getAvatarUrl());
-            profile.put("subscriptionType", user.getSubscriptionType());
-            profile.put("subscriptionStatus", user.getSubscriptionStatus());
+            profile.put("id", user.id());
+            profile.put("name", user.name());
+            profile.put("email", user.email());
+            profile.put("role", user.role());
+            profile.put("avatarUrl", user.avatarUrl());
+            profile.put("subscriptionType", user.subscriptionType());
+            profile.put("subscriptionStatus", user.subscriptionStatus());
             
             return ResponseEntity.ok(profile);
         } catch (Exception e) {
@@ -61,5 +73,37 @@ public class UserController {
             return ResponseEntity.status(500).body(error);
         }
     }
+    
+    /**
+     * Activity counts by type, per day (default) or per hour, from the rollups.
+     */
+    @GetMapping("/activity")
+    public ResponseEntity<?> getActivity(
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "daily") String granularity,
+            Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            int span = Math.max(1, Math.min(days, 366));
+            
+            List<ActivityCount> activity;
+            if ("hourly".equalsIgnoreCase(granularity)) {
+                activity = activityRollupService.hourly(userId,
+                    LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(span));
+            } else if ("daily".equalsIgnoreCase(granularity)) {
+                activity = activityRollupService.daily(userId, LocalDate.now().minusDays(span - 1));
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("message", "granularity must be daily or hourly"));
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("granularity", granularity.toLowerCase());
+            response.put("activity", activity);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching activity: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
 }
-
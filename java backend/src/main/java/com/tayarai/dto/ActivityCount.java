@@ -0,0 +1,13 @@
+package com.tayarai.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of events of one type in a rollup bucket (an hour, or a day starting at midnight).
+ */
+public record ActivityCount(
+    LocalDateTime bucket,
+    String activityType,
+    long count
+) {
+}
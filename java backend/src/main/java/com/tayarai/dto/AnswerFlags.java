@@ -0,0 +1,20 @@
+package com.tayarai.dto;
+
+/**
+ * Result of classifying a single interview answer.
+ */
+public record AnswerFlags(
+    boolean profanity,
+    boolean abusive,
+    boolean lowKnowledge,
+    boolean keywordMatched,
+    boolean offTopic,
+    int wordCount
+) {
+    /**
+     * Mirrors the old {@code checkProfanity}, which treated abusive phrases as profanity too.
+     */
+    public boolean inappropriate() {
+        return profanity || abusive;
+    }
+}
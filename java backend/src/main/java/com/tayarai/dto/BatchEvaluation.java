@@ -0,0 +1,32 @@
+package com.tayarai.dto;
+
+import java.util.List;
+
+/**
+ * Per-answer flags for a batch of interview answers, with aggregate counts.
+ */
+public record BatchEvaluation(
+    List<AnswerFlags> answers,
+    int total,
+    int profanity,
+    int abusive,
+    int inappropriate,
+    int lowKnowledge,
+    int offTopic
+) {
+    public static BatchEvaluation of(List<AnswerFlags> answers) {
+        int profanity = 0;
+        int abusive = 0;
+        int inappropriate = 0;
+        int lowKnowledge = 0;
+        int offTopic = 0;
+        for (AnswerFlags flags : answers) {
+            profanity += flags.profanity() ? 1 : 0;
+            abusive += flags.abusive() ? 1 : 0;
+            inappropriate += flags.inappropriate() ? 1 : 0;
+            lowKnowledge += flags.lowKnowledge() ? 1 : 0;
+            offTopic += flags.offTopic() ? 1 : 0;
+        }
+        return new BatchEvaluation(answers, answers.size(), profanity, abusive, inappropriate, lowKnowledge, offTopic);
+    }
+}
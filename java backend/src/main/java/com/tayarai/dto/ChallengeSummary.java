@@ -0,0 +1,25 @@
+package com.tayarai.dto;
+
+import com.tayarai.model.CodingChallenge;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A challenge as the challenge list shows it: no description, starter code or test cases.
+ */
+public record ChallengeSummary(
+    Integer id,
+    String title,
+    String slug,
+    CodingChallenge.ChallengeDifficulty difficulty,
+    String category,
+    List<String> tags,
+    Integer difficultyScore,
+    BigDecimal acceptanceRate,
+    Integer totalAttempts,
+    Integer totalAccepted,
+    LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,19 @@
+package com.tayarai.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class EvaluateAnswersRequest {
+    @NotNull(message = "Answers are required")
+    private List<String> answers;
+    
+    private String domain;
+    
+    private String level;
+    
+    // Optional, one per answer, to check each answer against its question's keywords
+    private List<Integer> questionIds;
+}
@@ -0,0 +1,24 @@
+package com.tayarai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ExecuteCodeRequest {
+    @NotBlank(message = "Language is required")
+    private String language;
+    
+    @NotBlank(message = "Code is required")
+    @Size(max = 10000, message = "Code too long. Maximum 10,000 characters allowed.")
+    private String code;
+    
+    // Fed to the program on stdin
+    private String input;
+    
+    // Runs under this challenge's time and memory limits when set
+    private Integer challengeId;
+    
+    // Judging only: "submit" stops at the first failing test case, "run" runs them all
+    private String mode;
+}
@@ -0,0 +1,20 @@
+package com.tayarai.dto;
+
+import com.tayarai.model.CodeSubmission;
+
+/**
+ * Outcome of one sandboxed run. Times are in milliseconds and memory in kilobytes;
+ * measurements are null when the program never started (e.g. it did not compile).
+ */
+public record ExecutionResult(
+    CodeSubmission.SubmissionStatus status,
+    String output,
+    String error,
+    Long wallMillis,
+    Long cpuMillis,
+    Long peakRssKb
+) {
+    public static ExecutionResult error(String error) {
+        return new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null, error, null, null, null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.tayarai.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's interview history: the last (completedAt, id) returned.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record HistoryCursor(LocalDateTime completedAt, Integer id) {
+    
+    public static HistoryCursor after(InterviewSummary last) {
+        return new HistoryCursor(last.completedAt(), last.id());
+    }
+    
+    public String encode() {
+        String raw = completedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                Integer.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tayarai.dto;
+
+/**
+ * A user's interview counters as shown on the dashboard; "today" is the server's local date.
+ */
+public record InterviewCounts(
+    long startedTotal,
+    long completedTotal,
+    long startedToday,
+    long completedToday
+) {
+}
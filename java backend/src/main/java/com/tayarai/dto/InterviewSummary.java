@@ -0,0 +1,23 @@
+package com.tayarai.dto;
+
+import com.tayarai.model.Interview;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a user's interview history, read as a projection so neither the
+ * user nor the transcript is loaded.
+ */
+public record InterviewSummary(
+    Integer id,
+    String role,
+    Interview.InterviewDifficulty difficulty,
+    String language,
+    BigDecimal overallScore,
+    Interview.InterviewStatus status,
+    LocalDateTime startedAt,
+    LocalDateTime completedAt,
+    Integer durationMinutes
+) {
+}
@@ -0,0 +1,21 @@
+package com.tayarai.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of judging a submission against its challenge's test cases. Times are the
+ * slowest case's (seconds) and memory the largest peak (MB); {@code firstFailure} is
+ * the lowest-numbered case that did not pass.
+ */
+public record JudgeSummary(
+    Integer submissionId,
+    String status,
+    int passed,
+    int total,
+    BigDecimal executionTime,
+    BigDecimal cpuTime,
+    BigDecimal memoryUsed,
+    String error,
+    TestCaseResult firstFailure
+) {
+}
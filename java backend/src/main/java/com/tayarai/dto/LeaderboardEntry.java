@@ -0,0 +1,23 @@
+package com.tayarai.dto;
+
+/**
+ * One row of the leaderboard as the client sees it.
+ */
+public record LeaderboardEntry(
+    int rank,
+    Integer userId,
+    String name,
+    String avatarUrl,
+    int totalScore,
+    int easySolved,
+    int mediumSolved,
+    int hardSolved,
+    int acceptedSubmissions,
+    int totalSubmissions
+) {
+    public static LeaderboardEntry of(int rank, LeaderboardStanding standing, UserView user) {
+        return new LeaderboardEntry(rank, standing.userId(), user.name(), user.avatarUrl(), standing.score(),
+            standing.easySolved(), standing.mediumSolved(), standing.hardSolved(),
+            standing.acceptedSubmissions(), standing.totalSubmissions());
+    }
+}
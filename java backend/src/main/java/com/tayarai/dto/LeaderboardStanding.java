@@ -0,0 +1,23 @@
+package com.tayarai.dto;
+
+/**
+ * A user's coding stats as far as the leaderboard is concerned. The score weighs
+ * solved challenges by difficulty the same way the Node {@code /leaderboard} route does.
+ */
+public record LeaderboardStanding(
+    int userId,
+    int easySolved,
+    int mediumSolved,
+    int hardSolved,
+    int acceptedSubmissions,
+    int totalSubmissions
+) {
+    public int score() {
+        return easySolved + mediumSolved * 2 + hardSolved * 3;
+    }
+    
+    public LeaderboardStanding plus(int easy, int medium, int hard, int accepted, int total) {
+        return new LeaderboardStanding(userId, easySolved + easy, mediumSolved + medium, hardSolved + hard,
+            acceptedSubmissions + accepted, totalSubmissions + total);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tayarai.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One interview question from the question bank.
+ *
+ * @param routing     keyword to next question id, in file order
+ * @param defaultNext next question id when no keyword routes; null when the file does not
+ *                    set one (continue in file order) and {@link #END} when it is explicitly null
+ */
+public record Question(
+    int id,
+    String question,
+    String expectedSummary,
+    List<String> keywords,
+    Map<String, Integer> routing,
+    Integer defaultNext,
+    List<String> lowKnowledgePhrases,
+    String systemReplyOnLowKnowledge
+) {
+    public static final int END = -1;
+}
@@ -0,0 +1,16 @@
+package com.tayarai.dto;
+
+/**
+ * Outcome of answering a question in an adaptive interview session.
+ */
+public record QuestionTransition(
+    Integer questionId,
+    Question question,
+    boolean lowKnowledge,
+    String lowKnowledgeReply,
+    boolean finished
+) {
+    public static QuestionTransition finished(boolean lowKnowledge, String lowKnowledgeReply) {
+        return new QuestionTransition(null, null, lowKnowledge, lowKnowledgeReply, true);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tayarai.dto;
+
+/**
+ * Verdict for one test case of a judged submission. Input, expected and actual output
+ * and the diff are left out for hidden cases.
+ */
+public record TestCaseResult(
+    int index,
+    Verdict verdict,
+    boolean hidden,
+    String input,
+    String expected,
+    String actual,
+    String diff,
+    String error,
+    Long wallMillis,
+    Long cpuMillis,
+    Long peakRssKb
+) {
+    public boolean passed() {
+        return verdict == Verdict.PASSED;
+    }
+    
+    public enum Verdict {
+        PASSED, WRONG_ANSWER, RUNTIME_ERROR, TIME_LIMIT_EXCEEDED, MEMORY_LIMIT_EXCEEDED
+    }
+}
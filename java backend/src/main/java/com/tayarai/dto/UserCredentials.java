@@ -0,0 +1,15 @@
+package com.tayarai.dto;
+
+import com.tayarai.model.User;
+
+/**
+ * The columns login needs, read without the rest of the {@code users} row.
+ */
+public record UserCredentials(
+    Integer id,
+    String email,
+    String name,
+    String password,
+    User.UserRole role
+) {
+}
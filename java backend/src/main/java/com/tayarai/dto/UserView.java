@@ -0,0 +1,22 @@
+package com.tayarai.dto;
+
+import com.tayarai.model.User;
+
+/**
+ * The user fields most requests need (profile, dashboard, subscription checks),
+ * small enough to cache per user.
+ */
+public record UserView(
+    Integer id,
+    String name,
+    String email,
+    User.UserRole role,
+    String avatarUrl,
+    User.SubscriptionType subscriptionType,
+    User.SubscriptionStatus subscriptionStatus
+) {
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+            user.getAvatarUrl(), user.getSubscriptionType(), user.getSubscriptionStatus());
+    }
+}
@@ -30,9 +30,24 @@ public class CodeSubmission {
     @Column(nullable = false)
     private SubmissionStatus status = SubmissionStatus.PENDING;
     
+    // Set on submissions judged through the submission queue; null for plain runs
+    @Enumerated(EnumType.STRING)
+    @Column(name = "judge_mode", length = 10)
+    private JudgeMode judgeMode;
+    
+    // Instance whose queue holds a pending or running queued submission, and its last heartbeat
+    @Column(name = "queued_by", length = 64)
+    private String queuedBy;
+    
+    @Column(name = "queued_heartbeat_at")
+    private LocalDateTime queuedHeartbeatAt;
+    
     @Column(name = "execution_time", precision = 10, scale = 3)
     private BigDecimal executionTime;
     
+    @Column(name = "cpu_time", precision = 10, scale = 3)
+    private BigDecimal cpuTime;
+    
     @Column(name = "memory_used", precision = 10, scale = 2)
     private BigDecimal memoryUsed;
     
@@ -53,5 +68,9 @@ public class CodeSubmission {
     public enum SubmissionStatus {
         PENDING, RUNNING, SUCCESS, ERROR, TIMEOUT
     }
+    
+    public enum JudgeMode {
+        SUBMIT, RUN_ALL
+    }
 }
 
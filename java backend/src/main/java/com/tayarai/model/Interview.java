@@ -52,9 +52,6 @@ public class Interview {
     @Column(name = "vapi_recording_url", columnDefinition = "TEXT")
     private String vapiRecordingUrl;
     
-    @Column(name = "conversation_transcript", columnDefinition = "TEXT")
-    private String conversationTranscript;
-    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,46 @@
+package com.tayarai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * One appended piece of an interview transcript. Chunks live apart from the
+ * {@code interviews} row so loading an interview never reads its conversation.
+ */
+@Entity
+@Table(name = "interview_transcript_chunks")
+@Data
+public class InterviewTranscriptChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "interview_id", nullable = false)
+    private Integer interviewId;
+    
+    @Column(nullable = false)
+    private Integer seq;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Encoding encoding;
+    
+    @Column(name = "raw_length", nullable = false)
+    private Integer rawLength;
+    
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] data;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public enum Encoding {
+        PLAIN, DEFLATE
+    }
+}
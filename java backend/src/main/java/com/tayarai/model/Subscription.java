@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "subscriptions")
 @Data
+@EntityListeners(UserChangeListener.class)
 public class Subscription {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
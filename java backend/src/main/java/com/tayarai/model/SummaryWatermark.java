@@ -0,0 +1,25 @@
+package com.tayarai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * How far a summary table has been brought up to date from its source table.
+ * Rows are locked while a summary is advanced, so only one backend instance
+ * applies a given time window.
+ */
+@Entity
+@Table(name = "summary_watermarks")
+@Data
+public class SummaryWatermark {
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(name = "scanned_until", nullable = false)
+    private LocalDateTime scannedUntil;
+    
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
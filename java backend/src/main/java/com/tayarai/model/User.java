@@ -8,6 +8,7 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "users")
 @Data
+@EntityListeners(UserChangeListener.class)
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
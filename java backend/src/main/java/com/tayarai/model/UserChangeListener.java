@@ -0,0 +1,50 @@
+package com.tayarai.model;
+
+import com.tayarai.service.UserViewCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops a user's cached {@link com.tayarai.dto.UserView} whenever the user or one of their
+ * subscriptions is written through JPA. Created by Hibernate through Spring, so it can be
+ * autowired. Bulk JPQL updates bypass entity listeners and must invalidate explicitly.
+ * <p>
+ * These callbacks run at flush, before the transaction commits, when another request can
+ * still load the old row and cache it again. So the entry is dropped once more after the
+ * transaction ends (after a rollback too, in case this transaction cached its own write).
+ */
+public class UserChangeListener {
+    
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Integer userId = null;
+        if (entity instanceof User user) {
+            userId = user.getId();
+        } else if (entity instanceof Subscription subscription && subscription.getUser() != null) {
+            userId = subscription.getUser().getId();
+        }
+        if (userId == null) {
+            return;
+        }
+        
+        userViewCache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Integer changed = userId;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userViewCache.invalidate(changed);
+                }
+            });
+        }
+    }
+}
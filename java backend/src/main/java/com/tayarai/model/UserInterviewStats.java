@@ -0,0 +1,28 @@
+package com.tayarai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime interview totals for one user, kept up to date by
+ * {@link com.tayarai.service.InterviewCounterService} so the dashboard never
+ * counts rows in {@code interviews}. Per-day numbers are in {@code user_interview_daily}.
+ */
+@Entity
+@Table(name = "user_interview_stats")
+@Data
+public class UserInterviewStats {
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    
+    @Column(name = "started_total", nullable = false)
+    private Integer startedTotal;
+    
+    @Column(name = "completed_total", nullable = false)
+    private Integer completedTotal;
+    
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,12 +1,67 @@
 package com.tayarai.repository;
 
 import com.tayarai.model.ActivityLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ActivityLogRepository extends JpaRepository<ActivityLog, Integer> {
-    List<ActivityLog> findByUserIdOrderByCreatedAtDesc(Integer userId);
+    // Raw rows are only kept for activity.retention.raw-days; counts come from the rollups
+    List<ActivityLog> findByUserIdOrderByCreatedAtDesc(Integer userId, Pageable page);
+    
+    @Query("SELECT MIN(a.createdAt) FROM ActivityLog a")
+    LocalDateTime findOldestCreatedAt();
+    
+    // Rollups: events in (:from, :to] are added to their hour and day; anonymous events count under user 0
+    @Modifying
+    @Query(value = "INSERT INTO activity_rollup_hourly (user_id, bucket_start, activity_type, event_count) "
+        + "SELECT * FROM (SELECT COALESCE(user_id, 0) AS uid, DATE_FORMAT(created_at, '%Y-%m-%d %H:00:00') AS bucket, "
+        + "activity_type AS type, COUNT(*) AS n FROM activity_logs "
+        + "WHERE created_at > :from AND created_at <= :to GROUP BY uid, bucket, type) AS d "
+        + "ON DUPLICATE KEY UPDATE event_count = event_count + d.n", nativeQuery = true)
+    int addHourly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query(value = "INSERT INTO activity_rollup_daily (user_id, bucket_date, activity_type, event_count) "
+        + "SELECT * FROM (SELECT COALESCE(user_id, 0) AS uid, DATE(created_at) AS bucket, "
+        + "activity_type AS type, COUNT(*) AS n FROM activity_logs "
+        + "WHERE created_at > :from AND created_at <= :to GROUP BY uid, bucket, type) AS d "
+        + "ON DUPLICATE KEY UPDATE event_count = event_count + d.n", nativeQuery = true)
+    int addDaily(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query(value = "SELECT bucket_date, activity_type, event_count FROM activity_rollup_daily "
+        + "WHERE user_id = :userId AND bucket_date >= :since ORDER BY bucket_date, activity_type", nativeQuery = true)
+    List<Object[]> findDailyActivity(@Param("userId") Integer userId, @Param("since") LocalDate since);
+    
+    @Query(value = "SELECT bucket_start, activity_type, event_count FROM activity_rollup_hourly "
+        + "WHERE user_id = :userId AND bucket_start >= :since ORDER BY bucket_start, activity_type", nativeQuery = true)
+    List<Object[]> findHourlyActivity(@Param("userId") Integer userId, @Param("since") LocalDateTime since);
+    
+    // Retention, a bounded batch at a time
+    @Query(value = "SELECT id FROM activity_logs WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit",
+        nativeQuery = true)
+    List<Integer> findIdsBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO activity_logs_archive "
+        + "(id, user_id, activity_type, description, metadata, ip_address, user_agent, created_at) "
+        + "SELECT id, user_id, activity_type, description, metadata, ip_address, user_agent, created_at "
+        + "FROM activity_logs WHERE id IN (:ids)", nativeQuery = true)
+    int archive(@Param("ids") Collection<Integer> ids);
+    
+    @Modifying
+    @Query(value = "DELETE FROM activity_logs WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+    
+    @Modifying
+    @Query(value = "DELETE FROM activity_rollup_hourly WHERE bucket_start < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteHourlyBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
-
@@ -2,11 +2,59 @@ package com.tayarai.repository;
 
 import com.tayarai.model.CodeSubmission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CodeSubmissionRepository extends JpaRepository<CodeSubmission, Integer> {
     List<CodeSubmission> findByUserIdOrderByCreatedAtDesc(Integer userId);
+    
+    Optional<CodeSubmission> findByIdAndUserId(Integer id, Integer userId);
+    
+    // Whether an earlier submission got there first; of two judged at once, only the older counts
+    boolean existsByUserIdAndChallengeIdAndStatusAndIdLessThan(Integer userId, Integer challengeId,
+                                                               CodeSubmission.SubmissionStatus status, Integer id);
+    
+    // (id, user id) of queued submissions whose instance stopped heartbeating them, oldest first
+    @Query("SELECT s.id, s.user.id FROM CodeSubmission s WHERE s.status IN :statuses AND s.judgeMode IS NOT NULL "
+        + "AND (s.queuedHeartbeatAt IS NULL OR s.queuedHeartbeatAt < :staleBefore) ORDER BY s.id")
+    List<Object[]> findOrphaned(@Param("statuses") Collection<CodeSubmission.SubmissionStatus> statuses,
+                                @Param("staleBefore") LocalDateTime staleBefore);
+    
+    // Takes an orphaned submission over as pending; only one instance can
+    @Modifying
+    @Transactional
+    @Query("UPDATE CodeSubmission s SET s.status = :pending, s.queuedBy = :owner, s.queuedHeartbeatAt = :now "
+        + "WHERE s.id = :id AND s.status IN :statuses "
+        + "AND (s.queuedHeartbeatAt IS NULL OR s.queuedHeartbeatAt < :staleBefore)")
+    int adopt(@Param("id") Integer id, @Param("statuses") Collection<CodeSubmission.SubmissionStatus> statuses,
+              @Param("pending") CodeSubmission.SubmissionStatus pending, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE CodeSubmission s SET s.queuedHeartbeatAt = :now WHERE s.queuedBy = :owner AND s.status IN :statuses")
+    int heartbeat(@Param("owner") String owner, @Param("statuses") Collection<CodeSubmission.SubmissionStatus> statuses,
+                  @Param("now") LocalDateTime now);
+    
+    // A dispatcher takes a pending submission only while its own instance still owns it
+    @Modifying
+    @Transactional
+    @Query("UPDATE CodeSubmission s SET s.status = :to WHERE s.id = :id AND s.status = :from AND s.queuedBy = :owner")
+    int claim(@Param("id") Integer id, @Param("owner") String owner, @Param("from") CodeSubmission.SubmissionStatus from,
+              @Param("to") CodeSubmission.SubmissionStatus to);
+    
+    // Only one dispatcher can take a pending submission
+    @Modifying
+    @Transactional
+    @Query("UPDATE CodeSubmission s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int updateStatus(@Param("id") Integer id, @Param("from") CodeSubmission.SubmissionStatus from,
+                     @Param("to") CodeSubmission.SubmissionStatus to);
 }
-
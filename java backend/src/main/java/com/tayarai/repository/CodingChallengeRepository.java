@@ -2,14 +2,26 @@ package com.tayarai.repository;
 
 import com.tayarai.model.CodingChallenge;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CodingChallengeRepository extends JpaRepository<CodingChallenge, Integer> {
+    // Catalog rows: (id, title, slug, difficulty, category, tags, difficulty score, acceptance rate,
+    // attempts, accepted, active, updated at); never the description, starter code or test cases
+    String CATALOG = "SELECT c.id, c.title, c.slug, c.difficulty, c.category, c.tags, c.difficultyScore, "
+        + "c.acceptanceRate, c.totalAttempts, c.totalAccepted, c.isActive, c.updatedAt FROM CodingChallenge c ";
+    
     Optional<CodingChallenge> findBySlug(String slug);
-    List<CodingChallenge> findByIsActiveTrue();
-    List<CodingChallenge> findByDifficultyAndIsActiveTrue(CodingChallenge.ChallengeDifficulty difficulty);
+    
+    @Query(CATALOG)
+    List<Object[]> findCatalog();
+    
+    @Query(CATALOG + "WHERE c.updatedAt >= :since ORDER BY c.updatedAt, c.id")
+    List<Object[]> findCatalogChangedSince(@Param("since") LocalDateTime since);
 }
 
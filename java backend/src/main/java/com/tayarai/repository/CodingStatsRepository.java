@@ -1,12 +1,27 @@
 package com.tayarai.repository;
 
 import com.tayarai.model.CodingStats;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CodingStatsRepository extends JpaRepository<CodingStats, Integer> {
     Optional<CodingStats> findByUserId(Integer userId);
+    
+    // (user id, easy, medium, hard, accepted, total, updated_at) for the leaderboard
+    String LEADERBOARD = "SELECT s.userId, s.easySolved, s.mediumSolved, s.hardSolved, s.acceptedSubmissions, "
+        + "s.totalSubmissions, s.updatedAt FROM CodingStats s WHERE s.totalSubmissions > 0 ";
+    
+    // Keyset pages for building the leaderboard
+    @Query(LEADERBOARD + "AND s.userId > :afterId ORDER BY s.userId")
+    List<Object[]> findLeaderboardAfter(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    @Query(LEADERBOARD + "AND s.updatedAt >= :since")
+    List<Object[]> findLeaderboardChangedSince(@Param("since") LocalDateTime since);
 }
-
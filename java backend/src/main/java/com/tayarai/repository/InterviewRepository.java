@@ -1,19 +1,34 @@
 package com.tayarai.repository;
 
+import com.tayarai.dto.InterviewSummary;
 import com.tayarai.model.Interview;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface InterviewRepository extends JpaRepository<Interview, Integer> {
-    List<Interview> findByUserIdOrderByCompletedAtDesc(Integer userId);
+    String SUMMARY = "SELECT new com.tayarai.dto.InterviewSummary(i.id, i.role, i.difficulty, i.language, "
+        + "i.overallScore, i.status, i.startedAt, i.completedAt, i.durationMinutes) FROM Interview i "
+        + "WHERE i.user.id = :userId AND i.status = 'COMPLETED' AND i.completedAt IS NOT NULL ";
     
-    @Query("SELECT i FROM Interview i WHERE i.user.id = :userId AND i.status = 'COMPLETED'")
-    List<Interview> findCompletedInterviewsByUserId(@Param("userId") Integer userId);
+    // History pages, newest first; the next page continues strictly after the last (completedAt, id) seen
+    @Query(SUMMARY + "ORDER BY i.completedAt DESC, i.id DESC")
+    List<InterviewSummary> findHistory(@Param("userId") Integer userId, Pageable page);
+    
+    @Query(SUMMARY + "AND (i.completedAt < :completedAt OR (i.completedAt = :completedAt AND i.id < :id)) "
+        + "ORDER BY i.completedAt DESC, i.id DESC")
+    List<InterviewSummary> findHistoryAfter(
+        @Param("userId") Integer userId,
+        @Param("completedAt") LocalDateTime completedAt,
+        @Param("id") Integer id,
+        Pageable page
+    );
     
     @Query("SELECT COUNT(i) FROM Interview i WHERE i.user.id = :userId AND i.status = 'COMPLETED'")
     Long countCompletedInterviewsByUserId(@Param("userId") Integer userId);
@@ -24,5 +39,16 @@ public interface InterviewRepository extends JpaRepository<Interview, Integer> {
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate
     );
+    
+    @Query("SELECT i.user.id, COUNT(i) FROM Interview i WHERE i.startedAt >= :since GROUP BY i.user.id")
+    List<Object[]> countStartedSinceByUser(@Param("since") LocalDateTime since);
+    
+    // Transcripts saved by the Node.js backend before chunked storage; not mapped on Interview
+    @Query(value = "SELECT conversation_transcript FROM interviews WHERE id = :id", nativeQuery = true)
+    String findLegacyTranscript(@Param("id") Integer id);
+    
+    @Query(value = "SELECT id, conversation_transcript FROM interviews WHERE id IN (:ids) AND conversation_transcript IS NOT NULL",
+        nativeQuery = true)
+    List<Object[]> findLegacyTranscripts(@Param("ids") Collection<Integer> ids);
 }
 
@@ -0,0 +1,28 @@
+package com.tayarai.repository;
+
+import com.tayarai.model.InterviewTranscriptChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InterviewTranscriptChunkRepository extends JpaRepository<InterviewTranscriptChunk, Long> {
+    List<InterviewTranscriptChunk> findByInterviewIdOrderBySeqAsc(Integer interviewId);
+    
+    List<InterviewTranscriptChunk> findByInterviewIdInOrderByInterviewIdAscSeqAsc(Collection<Integer> interviewIds);
+    
+    // Last chunk that is compressed or too long to be batched with later turns; -1 if none
+    @Query("SELECT COALESCE(MAX(c.seq), -1) FROM InterviewTranscriptChunk c WHERE c.interviewId = :interviewId "
+        + "AND (c.encoding <> com.tayarai.model.InterviewTranscriptChunk.Encoding.PLAIN OR c.rawLength >= :minBytes)")
+    Integer findLastSealedSeq(@Param("interviewId") Integer interviewId, @Param("minBytes") int minBytes);
+    
+    List<InterviewTranscriptChunk> findByInterviewIdAndSeqGreaterThanOrderBySeqAsc(Integer interviewId, Integer seq);
+    
+    @Modifying
+    @Query("DELETE FROM InterviewTranscriptChunk c WHERE c.interviewId = :interviewId")
+    int deleteByInterviewId(@Param("interviewId") Integer interviewId);
+}
@@ -0,0 +1,24 @@
+package com.tayarai.repository;
+
+import com.tayarai.model.SummaryWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SummaryWatermarkRepository extends JpaRepository<SummaryWatermark, String> {
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO summary_watermarks (name, scanned_until) VALUES (:name, :scannedUntil)",
+        nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("scannedUntil") LocalDateTime scannedUntil);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM SummaryWatermark w WHERE w.name = :name")
+    Optional<SummaryWatermark> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,68 @@
+package com.tayarai.repository;
+
+import com.tayarai.model.UserInterviewStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserInterviewStatsRepository extends JpaRepository<UserInterviewStats, Integer> {
+    // One row per interview started, and one per interview completed, in (:from, :to]
+    String EVENTS = "SELECT user_id, DATE(started_at) AS event_date, 1 AS started, 0 AS completed FROM interviews "
+        + "WHERE started_at > :from AND started_at <= :to "
+        + "UNION ALL SELECT user_id, DATE(completed_at), 0, 1 FROM interviews "
+        + "WHERE status = 'completed' AND completed_at > :from AND completed_at <= :to";
+    
+    @Query(value = "SELECT user_id, event_date, SUM(started), SUM(completed) FROM (" + EVENTS + ") e "
+        + "GROUP BY user_id, event_date", nativeQuery = true)
+    List<Object[]> findDeltas(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_interview_stats (user_id, started_total, completed_total) "
+        + "SELECT * FROM (SELECT user_id, SUM(started) AS s, SUM(completed) AS c FROM (" + EVENTS + ") e "
+        + "GROUP BY user_id) AS d "
+        + "ON DUPLICATE KEY UPDATE started_total = started_total + d.s, completed_total = completed_total + d.c",
+        nativeQuery = true)
+    int addTotals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_interview_daily (user_id, interview_date, started, completed) "
+        + "SELECT * FROM (SELECT user_id, event_date, SUM(started) AS s, SUM(completed) AS c FROM (" + EVENTS + ") e "
+        + "GROUP BY user_id, event_date) AS d "
+        + "ON DUPLICATE KEY UPDATE started = started + d.s, completed = completed + d.c",
+        nativeQuery = true)
+    int addDaily(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    // Plain reads, so a recount takes no locks on interviews
+    @Query(value = "SELECT user_id, SUM(started), SUM(completed) FROM (" + EVENTS + ") e GROUP BY user_id",
+        nativeQuery = true)
+    List<Object[]> countEvents(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query(value = "SELECT user_id, started, completed FROM user_interview_daily "
+        + "WHERE interview_date = :date AND user_id IN (:userIds)", nativeQuery = true)
+    List<Object[]> findDays(@Param("date") LocalDate date, @Param("userIds") List<Integer> userIds);
+    
+    // A recount sets a day to what it counted and moves the totals by the difference
+    @Modifying
+    @Query(value = "INSERT INTO user_interview_daily (user_id, interview_date, started, completed) "
+        + "VALUES (:userId, :date, :started, :completed) "
+        + "ON DUPLICATE KEY UPDATE started = VALUES(started), completed = VALUES(completed)", nativeQuery = true)
+    int setDay(@Param("userId") Integer userId, @Param("date") LocalDate date,
+               @Param("started") long started, @Param("completed") long completed);
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_interview_stats (user_id, started_total, completed_total) "
+        + "VALUES (:userId, :started, :completed) "
+        + "ON DUPLICATE KEY UPDATE started_total = started_total + VALUES(started_total), "
+        + "completed_total = completed_total + VALUES(completed_total)", nativeQuery = true)
+    int addToTotals(@Param("userId") Integer userId, @Param("started") long started, @Param("completed") long completed);
+    
+    @Query(value = "SELECT started, completed FROM user_interview_daily WHERE user_id = :userId AND interview_date = :date",
+        nativeQuery = true)
+    List<Object[]> findDay(@Param("userId") Integer userId, @Param("date") LocalDate date);
+}
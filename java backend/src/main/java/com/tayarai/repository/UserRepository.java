@@ -1,13 +1,33 @@
 package com.tayarai.repository;
 
+import com.tayarai.dto.UserCredentials;
 import com.tayarai.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    @Query("SELECT new com.tayarai.dto.UserCredentials(u.id, u.email, u.name, u.password, u.role) FROM User u WHERE u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+    
+    // Keyset pages of (id, email), for building the registration email filter
+    @Query("SELECT u.id, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findEmailsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Only replaces the hash that was checked, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Integer id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
 
@@ -0,0 +1,261 @@
+package com.tayarai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind for {@code activity_logs}. Request threads drop events into a bounded
+ * lock-free ring and return at once; one writer thread inserts them with multi-row
+ * INSERTs when a batch fills or {@code activity.log.flush-ms} passes. When the ring is
+ * full the event is dropped and counted rather than making the request wait.
+ * <p>
+ * At shutdown the writer only stops once no {@link #record} call is between its check of
+ * {@code stopping} and its offer, so an event accepted before shutdown is never left
+ * behind in the ring.
+ * <p>
+ * {@link com.tayarai.model.ActivityLog} is only used for reading: with IDENTITY keys
+ * Hibernate would insert rows one at a time.
+ */
+@Service
+public class ActivityLogWriter {
+    
+    private static final Logger log = LoggerFactory.getLogger(ActivityLogWriter.class);
+    private static final String INSERT = "INSERT INTO activity_logs "
+        + "(user_id, activity_type, description, metadata, ip_address, user_agent, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${activity.log.buffer-size:8192}")
+    private int bufferSize;
+    
+    @Value("${activity.log.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${activity.log.flush-ms:1000}")
+    private long flushMillis;
+    
+    @Value("${activity.log.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+    
+    private Ring ring;
+    private Thread writer;
+    private volatile boolean stopping;
+    // record() calls that may still offer to the ring
+    private final AtomicInteger recording = new AtomicInteger();
+    private Counter written;
+    private Counter droppedFull;
+    private Counter droppedFailed;
+    private Counter droppedShutdown;
+    
+    @PostConstruct
+    public void init() {
+        ring = new Ring(bufferSize);
+        written = Counter.builder("activity.log.events").tag("result", "written").register(meterRegistry);
+        droppedFull = Counter.builder("activity.log.events").tag("result", "dropped_full").register(meterRegistry);
+        droppedFailed = Counter.builder("activity.log.events").tag("result", "dropped_error").register(meterRegistry);
+        droppedShutdown = Counter.builder("activity.log.events").tag("result", "dropped_shutdown").register(meterRegistry);
+        Gauge.builder("activity.log.buffer.size", ring, Ring::size).register(meterRegistry);
+        
+        writer = new Thread(this::run, "activity-log-writer");
+        writer.start();
+    }
+    
+    /**
+     * Drains what is buffered before the data source goes away.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            int lost = ring.size();
+            droppedShutdown.increment(lost);
+            log.warn("Activity log writer did not drain within {} ms; {} events lost", shutdownTimeoutMillis, lost);
+        }
+    }
+    
+    public boolean record(Integer userId, String activityType, String description) {
+        return record(userId, activityType, description, null, null, null);
+    }
+    
+    /**
+     * Queues one event; false if it was dropped because the buffer is full. Never blocks.
+     */
+    public boolean record(Integer userId, String activityType, String description,
+                          JsonNode metadata, String ipAddress, String userAgent) {
+        Event event = new Event(userId, activityType, description,
+            metadata != null ? metadata.toString() : null,
+            truncate(ipAddress, 45), truncate(userAgent, 500), LocalDateTime.now());
+        // Counted before stopping is read, so the writer waits for this offer once it sees it
+        recording.incrementAndGet();
+        try {
+            if (stopping) {
+                droppedShutdown.increment();
+                return false;
+            }
+            if (!ring.offer(event)) {
+                droppedFull.increment();
+                return false;
+            }
+        } finally {
+            recording.decrementAndGet();
+        }
+        if (ring.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+    
+    private void run() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        long deadline = 0;
+        while (true) {
+            boolean draining = stopping;
+            Event event;
+            while (batch.size() < batchSize && (event = ring.poll()) != null) {
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + flushNanos;
+                }
+                batch.add(event);
+            }
+            
+            if (!batch.isEmpty() && (batch.size() >= batchSize || draining || System.nanoTime() >= deadline)) {
+                flush(batch);
+                batch.clear();
+                continue;
+            }
+            if (draining) {
+                // A producer may have read stopping before it was set, or claimed a slot
+                // without filling it yet
+                if (recording.get() == 0 && ring.size() == 0) {
+                    return;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            LockSupport.parkNanos(this, batch.isEmpty() ? flushNanos : Math.max(0, deadline - System.nanoTime()));
+        }
+    }
+    
+    private void flush(List<Event> batch) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + batch.size() * (ROW.length() + 2)).append(INSERT);
+        Object[] args = new Object[batch.size() * 7];
+        int i = 0;
+        for (Event event : batch) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+            args[i++] = event.userId();
+            args[i++] = event.activityType();
+            args[i++] = event.description();
+            args[i++] = event.metadata();
+            args[i++] = event.ipAddress();
+            args[i++] = event.userAgent();
+            args[i++] = event.createdAt();
+        }
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            droppedFailed.increment(batch.size());
+            log.error("Failed to write {} activity log events: {}", batch.size(), e.getMessage());
+        }
+    }
+    
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+    
+    private record Event(Integer userId, String activityType, String description, String metadata,
+                         String ipAddress, String userAgent, LocalDateTime createdAt) {
+    }
+    
+    /**
+     * Bounded multi-producer, single-consumer ring. Each slot carries a sequence number
+     * that says whether it is free for the producer at that position or filled for the
+     * consumer, so producers only contend on claiming a position.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<Event> slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+        
+        Ring(int requested) {
+            int capacity = Integer.highestOneBit(Math.max(2, requested - 1)) << 1;
+            slots = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+        
+        boolean offer(Event event) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long available = sequences.get(index) - position;
+                if (available == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.set(index, event);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (available < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+        
+        // Consumer thread only
+        Event poll() {
+            long position = head;
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            Event event = slots.get(index);
+            slots.set(index, null);
+            sequences.set(index, position + mask + 1);
+            head = position + 1;
+            return event;
+        }
+        
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+    }
+}
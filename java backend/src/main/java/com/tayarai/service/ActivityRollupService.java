@@ -0,0 +1,184 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.ActivityCount;
+import com.tayarai.model.SummaryWatermark;
+import com.tayarai.repository.ActivityLogRepository;
+import com.tayarai.repository.SummaryWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compacts {@code activity_logs} into per-user, per-type counts by hour
+ * ({@code activity_rollup_hourly}) and by day ({@code activity_rollup_daily}), and
+ * removes raw rows once they are old enough. Activity views read the rollups, whose
+ * size depends on how many users were active rather than how many events they produced.
+ * <p>
+ * Rollups advance from a watermark in {@code summary_watermarks}, one bounded window per
+ * transaction, so the first run over a large table is a series of small passes. Raw rows
+ * are only removed once they are behind the watermark, a batch at a time, and are
+ * optionally copied to {@code activity_logs_archive} first.
+ */
+@Service
+public class ActivityRollupService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ActivityRollupService.class);
+    private static final String WATERMARK = "activity_rollups";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+    
+    @Autowired
+    private SummaryWatermarkRepository watermarkRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // Events are written behind (activity.log.flush-ms), so recent rows may still be arriving
+    @Value("${activity.rollup.settle-seconds:30}")
+    private long settleSeconds;
+    
+    @Value("${activity.rollup.max-window-hours:6}")
+    private long maxWindowHours;
+    
+    @Value("${activity.retention.raw-days:30}")
+    private long rawDays;
+    
+    @Value("${activity.retention.hourly-days:90}")
+    private long hourlyDays;
+    
+    @Value("${activity.retention.archive:false}")
+    private boolean archive;
+    
+    @Value("${activity.retention.batch-size:5000}")
+    private int batchSize;
+    
+    /**
+     * Daily counts for a user since {@code since}, oldest first.
+     */
+    public List<ActivityCount> daily(Integer userId, LocalDate since) {
+        List<ActivityCount> counts = new ArrayList<>();
+        for (Object[] row : activityLogRepository.findDailyActivity(userId, since)) {
+            counts.add(new ActivityCount(((java.sql.Date) row[0]).toLocalDate().atStartOfDay(),
+                (String) row[1], ((Number) row[2]).longValue()));
+        }
+        return counts;
+    }
+    
+    /**
+     * Hourly counts for a user since {@code since}, oldest first; kept for activity.retention.hourly-days.
+     */
+    public List<ActivityCount> hourly(Integer userId, LocalDateTime since) {
+        List<ActivityCount> counts = new ArrayList<>();
+        for (Object[] row : activityLogRepository.findHourlyActivity(userId, since)) {
+            counts.add(new ActivityCount(((Timestamp) row[0]).toLocalDateTime(),
+                (String) row[1], ((Number) row[2]).longValue()));
+        }
+        return counts;
+    }
+    
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${activity.rollup.interval-ms:60000}")
+    public void rollup() {
+        try {
+            LocalDateTime to = LocalDateTime.now().minusSeconds(settleSeconds).truncatedTo(ChronoUnit.SECONDS);
+            boolean more;
+            do {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> advance(to)));
+            } while (more);
+        } catch (Exception e) {
+            log.error("Failed to roll up activity logs: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(initialDelay = 300000, fixedDelayString = "${activity.retention.interval-ms:3600000}")
+    public void purge() {
+        try {
+            SummaryWatermark watermark = watermarkRepository.findById(WATERMARK).orElse(null);
+            if (watermark == null) {
+                return;
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(rawDays);
+            if (cutoff.isAfter(watermark.getScannedUntil())) {
+                // Never remove rows that are not in the rollups yet
+                cutoff = watermark.getScannedUntil();
+            }
+            
+            int removed = 0;
+            int batch;
+            do {
+                LocalDateTime rawCutoff = cutoff;
+                batch = transactionTemplate.execute(status -> purgeBatch(rawCutoff));
+                removed += batch;
+            } while (batch == batchSize);
+            
+            LocalDateTime hourlyCutoff = LocalDateTime.now().minusDays(hourlyDays);
+            int hourly = 0;
+            do {
+                batch = transactionTemplate.execute(status ->
+                    activityLogRepository.deleteHourlyBefore(hourlyCutoff, batchSize));
+                hourly += batch;
+            } while (batch == batchSize);
+            
+            if (removed > 0 || hourly > 0) {
+                log.info("Activity retention removed {} raw events ({}) and {} hourly rollups",
+                    removed, archive ? "archived" : "deleted", hourly);
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply activity log retention: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Rolls up the next window; true if there is more to do before {@code to}.
+     */
+    private boolean advance(LocalDateTime to) {
+        watermarkRepository.insertIfAbsent(WATERMARK, EPOCH);
+        SummaryWatermark watermark = watermarkRepository.lockByName(WATERMARK)
+            .orElseThrow(() -> new RuntimeException("Watermark " + WATERMARK + " not found"));
+        LocalDateTime from = watermark.getScannedUntil();
+        if (from.equals(EPOCH)) {
+            LocalDateTime oldest = activityLogRepository.findOldestCreatedAt();
+            if (oldest == null) {
+                watermark.setScannedUntil(to);
+                return false;
+            }
+            from = oldest.minusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        }
+        if (!to.isAfter(from)) {
+            return false;
+        }
+        
+        LocalDateTime until = from.plusHours(maxWindowHours);
+        if (until.isAfter(to)) {
+            until = to;
+        }
+        activityLogRepository.addHourly(from, until);
+        activityLogRepository.addDaily(from, until);
+        watermark.setScannedUntil(until);
+        return until.isBefore(to);
+    }
+    
+    private int purgeBatch(LocalDateTime cutoff) {
+        List<Integer> ids = activityLogRepository.findIdsBefore(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (archive) {
+            activityLogRepository.archive(ids);
+        }
+        activityLogRepository.deleteByIds(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,336 @@
+package com.tayarai.service;
+
+import java.util.*;
+
+/**
+ * Compiled Aho-Corasick automaton over a fixed set of phrases. Matching is
+ * case-insensitive and linear in the input length; scanning allocates nothing.
+ * <p>
+ * Each phrase belongs to a group (0-31) and matches are reported as a bitmask
+ * of groups. Phrases can optionally be restricted to whole-word matches.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class AhoCorasickMatcher {
+    
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final AhoCorasickMatcher EMPTY = new Builder().build();
+    
+    // Root transitions for ASCII are dense; all other states use sorted edge ranges
+    private final int[] rootAscii;
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[] fail;
+    // First phrase ending exactly at a state, and the next state down the fail chain that has one
+    private final int[] output;
+    private final int[] dictLink;
+    
+    private final int[] phraseLength;
+    private final int[] phraseGroup;
+    private final boolean[] phraseWholeWord;
+    private final int[] phraseNextSameState;
+    private final int groupMask;
+    
+    private AhoCorasickMatcher(int[] rootAscii, int[] edgeStart, char[] edgeChar, int[] edgeTarget,
+                               int[] fail, int[] output, int[] dictLink, int[] phraseLength,
+                               int[] phraseGroup, boolean[] phraseWholeWord, int[] phraseNextSameState) {
+        this.rootAscii = rootAscii;
+        this.edgeStart = edgeStart;
+        this.edgeChar = edgeChar;
+        this.edgeTarget = edgeTarget;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+        this.phraseLength = phraseLength;
+        this.phraseGroup = phraseGroup;
+        this.phraseWholeWord = phraseWholeWord;
+        this.phraseNextSameState = phraseNextSameState;
+        int mask = 0;
+        for (int group : phraseGroup) {
+            mask |= 1 << group;
+        }
+        this.groupMask = mask;
+    }
+    
+    public static AhoCorasickMatcher empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Compiles a single-group matcher for plain substring phrases.
+     */
+    public static AhoCorasickMatcher of(Collection<String> phrases) {
+        Builder builder = new Builder();
+        if (phrases != null) {
+            for (String phrase : phrases) {
+                builder.add(phrase, 0, false);
+            }
+        }
+        return builder.build();
+    }
+    
+    public boolean isEmpty() {
+        return phraseLength.length == 0;
+    }
+    
+    /**
+     * Bitmask of every group that has at least one phrase.
+     */
+    public int groupMask() {
+        return groupMask;
+    }
+    
+    public int initialState() {
+        return ROOT;
+    }
+    
+    /**
+     * Advances the automaton by one input character.
+     */
+    public int step(int state, char c) {
+        char folded = fold(c);
+        int s = state;
+        while (true) {
+            int next = child(s, folded);
+            if (next != NONE) {
+                return next;
+            }
+            if (s == ROOT) {
+                return ROOT;
+            }
+            s = fail[s];
+        }
+    }
+    
+    /**
+     * Returns the groups of all phrases that end at {@code end} given the automaton is in
+     * {@code state} after consuming {@code text.charAt(end)}.
+     */
+    public int matchesAt(int state, CharSequence text, int end) {
+        int s = output[state] != NONE ? state : dictLink[state];
+        int mask = 0;
+        while (s != NONE) {
+            for (int p = output[s]; p != NONE; p = phraseNextSameState[p]) {
+                if (!phraseWholeWord[p] || isWholeWord(text, end - phraseLength[p] + 1, end)) {
+                    mask |= 1 << phraseGroup[p];
+                }
+            }
+            s = dictLink[s];
+        }
+        return mask;
+    }
+    
+    /**
+     * Scans the whole text and returns the groups that matched. Stops early once every
+     * group has been seen.
+     */
+    public int match(CharSequence text) {
+        if (text == null || isEmpty()) {
+            return 0;
+        }
+        int state = ROOT;
+        int mask = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            if (output[state] != NONE || dictLink[state] != NONE) {
+                mask |= matchesAt(state, text, i);
+                if (mask == groupMask) {
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+    
+    public boolean matchesAny(CharSequence text) {
+        return match(text) != 0;
+    }
+    
+    /**
+     * Returns the index (in insertion order, blank phrases skipped) of the earliest-added
+     * phrase that occurs anywhere in the text, or -1 if none does.
+     */
+    public int firstMatch(CharSequence text) {
+        if (text == null || isEmpty()) {
+            return NONE;
+        }
+        int state = ROOT;
+        int best = NONE;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            int s = output[state] != NONE ? state : dictLink[state];
+            while (s != NONE) {
+                for (int p = output[s]; p != NONE; p = phraseNextSameState[p]) {
+                    if ((best == NONE || p < best)
+                            && (!phraseWholeWord[p] || isWholeWord(text, i - phraseLength[p] + 1, i))) {
+                        best = p;
+                    }
+                }
+                s = dictLink[s];
+            }
+            if (best == 0) {
+                break;
+            }
+        }
+        return best;
+    }
+    
+    public int size() {
+        return phraseLength.length;
+    }
+    
+    private int child(int state, char c) {
+        if (state == ROOT && c < 128) {
+            return rootAscii[c];
+        }
+        int lo = edgeStart[state];
+        int hi = edgeStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char midChar = edgeChar[mid];
+            if (midChar < c) {
+                lo = mid + 1;
+            } else if (midChar > c) {
+                hi = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return NONE;
+    }
+    
+    private static boolean isWholeWord(CharSequence text, int start, int end) {
+        boolean startOk = start <= 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+        boolean endOk = end + 1 >= text.length() || !Character.isLetterOrDigit(text.charAt(end + 1));
+        return startOk && endOk;
+    }
+    
+    static char fold(char c) {
+        if (c == '\u2019' || c == '\u2018') {
+            // Typographic apostrophes from mobile keyboards and speech-to-text
+            return '\'';
+        }
+        return Character.toLowerCase(c);
+    }
+    
+    public static final class Builder {
+        private final List<Map<Character, Integer>> trie = new ArrayList<>();
+        private final List<Integer> phraseStates = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private final List<Integer> groups = new ArrayList<>();
+        private final List<Boolean> wholeWords = new ArrayList<>();
+        
+        public Builder() {
+            trie.add(new TreeMap<>());
+        }
+        
+        /**
+         * Adds a phrase. Blank phrases are ignored.
+         *
+         * @param group     group bit (0-31) reported when this phrase matches
+         * @param wholeWord only match when not surrounded by letters or digits
+         */
+        public Builder add(String phrase, int group, boolean wholeWord) {
+            if (group < 0 || group > 31) {
+                throw new IllegalArgumentException("Group must be between 0 and 31");
+            }
+            if (phrase == null || phrase.isBlank()) {
+                return this;
+            }
+            String trimmed = phrase.trim();
+            int state = ROOT;
+            for (int i = 0; i < trimmed.length(); i++) {
+                char c = fold(trimmed.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            phraseStates.add(state);
+            lengths.add(trimmed.length());
+            groups.add(group);
+            wholeWords.add(wholeWord);
+            return this;
+        }
+        
+        public AhoCorasickMatcher build() {
+            int states = trie.size();
+            int edges = 0;
+            for (Map<Character, Integer> children : trie) {
+                edges += children.size();
+            }
+            
+            int[] edgeStart = new int[states + 1];
+            char[] edgeChar = new char[edges];
+            int[] edgeTarget = new int[edges];
+            int offset = 0;
+            for (int s = 0; s < states; s++) {
+                edgeStart[s] = offset;
+                for (Map.Entry<Character, Integer> edge : trie.get(s).entrySet()) {
+                    edgeChar[offset] = edge.getKey();
+                    edgeTarget[offset] = edge.getValue();
+                    offset++;
+                }
+            }
+            edgeStart[states] = offset;
+            
+            int[] rootAscii = new int[128];
+            Arrays.fill(rootAscii, NONE);
+            trie.get(ROOT).forEach((c, target) -> {
+                if (c < 128) {
+                    rootAscii[c] = target;
+                }
+            });
+            
+            int phrases = phraseStates.size();
+            int[] output = new int[states];
+            Arrays.fill(output, NONE);
+            int[] nextSame = new int[phrases];
+            int[] phraseLength = new int[phrases];
+            int[] phraseGroup = new int[phrases];
+            boolean[] phraseWholeWord = new boolean[phrases];
+            // Insert in reverse so each state's chain lists phrases in the order they were added
+            for (int p = phrases - 1; p >= 0; p--) {
+                int state = phraseStates.get(p);
+                nextSame[p] = output[state];
+                output[state] = p;
+                phraseLength[p] = lengths.get(p);
+                phraseGroup[p] = groups.get(p);
+                phraseWholeWord[p] = wholeWords.get(p);
+            }
+            
+            // Breadth-first pass for failure and dictionary-suffix links
+            int[] fail = new int[states];
+            int[] dictLink = new int[states];
+            Arrays.fill(dictLink, NONE);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : trie.get(ROOT).values()) {
+                fail[child] = ROOT;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> edge : trie.get(state).entrySet()) {
+                    char c = edge.getKey();
+                    int child = edge.getValue();
+                    int f = fail[state];
+                    while (f != ROOT && !trie.get(f).containsKey(c)) {
+                        f = fail[f];
+                    }
+                    Integer target = trie.get(f).get(c);
+                    fail[child] = target != null && target != child ? target : ROOT;
+                    int suffix = fail[child];
+                    dictLink[child] = output[suffix] != NONE ? suffix : dictLink[suffix];
+                    queue.add(child);
+                }
+            }
+            
+            return new AhoCorasickMatcher(rootAscii, edgeStart, edgeChar, edgeTarget, fail, output,
+                dictLink, phraseLength, phraseGroup, phraseWholeWord, nextSame);
+        }
+    }
+}
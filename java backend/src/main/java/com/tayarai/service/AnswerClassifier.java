@@ -0,0 +1,113 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.AnswerFlags;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Classifies interview answers in a single case-insensitive pass. The shared
+ * profanity, abusive and low-knowledge phrases live in one compiled automaton;
+ * a question's keywords come precompiled from the {@link QuestionBank}, and both
+ * automata are stepped together while words are counted.
+ */
+@Component
+public class AnswerClassifier {
+    
+    private static final int PROFANITY = 0;
+    private static final int ABUSIVE = 1;
+    private static final int LOW_KNOWLEDGE = 2;
+    
+    // Profanity words
+    private static final List<String> PROFANITY_WORDS = Arrays.asList(
+        "fuck", "shit", "damn", "hell", "bitch", "ass", "bastard", "crap",
+        "stupid", "idiot", "dumb", "moron", "retard", "piss"
+    );
+    
+    // Abusive phrases
+    private static final List<String> ABUSIVE_PHRASES = Arrays.asList(
+        "i am angry", "you are bad", "you are stupid", "you are dumb",
+        "you are wrong", "this is bad", "this is stupid", "this is dumb",
+        "i hate", "i am frustrated", "this is terrible"
+    );
+    
+    // Low knowledge phrases
+    private static final List<String> LOW_KNOWLEDGE_PHRASES = Arrays.asList(
+        "i don't know", "i don't know that", "i have no idea",
+        "i'm not sure", "i'm not familiar", "i haven't learned",
+        "i don't understand", "i can't answer"
+    );
+    
+    private static final AhoCorasickMatcher COMMON_PHRASES = compileCommonPhrases();
+    private static final Set<String> ABUSIVE_ANSWERS = Set.copyOf(ABUSIVE_PHRASES);
+    
+    public AnswerFlags classify(CharSequence answer) {
+        return classify(answer, AhoCorasickMatcher.empty());
+    }
+    
+    public AnswerFlags classify(CharSequence answer, AhoCorasickMatcher keywords) {
+        if (answer == null) {
+            return new AnswerFlags(false, false, false, false, false, 0);
+        }
+        
+        AhoCorasickMatcher common = COMMON_PHRASES;
+        boolean checkKeywords = keywords != null && !keywords.isEmpty();
+        int commonState = common.initialState();
+        int keywordState = checkKeywords ? keywords.initialState() : 0;
+        int commonMask = 0;
+        boolean keywordMatched = false;
+        int wordCount = 0;
+        boolean inWord = false;
+        
+        for (int i = 0, n = answer.length(); i < n; i++) {
+            char c = answer.charAt(i);
+            
+            if (Character.isWhitespace(c)) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                wordCount++;
+            }
+            
+            commonState = common.step(commonState, c);
+            commonMask |= common.matchesAt(commonState, answer, i);
+            
+            if (checkKeywords && !keywordMatched) {
+                keywordState = keywords.step(keywordState, c);
+                keywordMatched = keywords.matchesAt(keywordState, answer, i) != 0;
+            }
+        }
+        
+        boolean abusive = (commonMask & (1 << ABUSIVE)) != 0;
+        // An answer that is nothing but an abusive phrase is off-topic even if it mentions a
+        // keyword; otherwise an answer of two or more words that hits none of them is off-topic
+        boolean offTopic = checkKeywords && ((abusive && isAbusiveAnswer(answer))
+            || (!keywordMatched && wordCount >= 2));
+        
+        return new AnswerFlags(
+            (commonMask & (1 << PROFANITY)) != 0,
+            abusive,
+            (commonMask & (1 << LOW_KNOWLEDGE)) != 0,
+            keywordMatched,
+            offTopic,
+            wordCount
+        );
+    }
+    
+    // Only reached when an abusive phrase occurs in the answer, so the copy is rare
+    private static boolean isAbusiveAnswer(CharSequence answer) {
+        return ABUSIVE_ANSWERS.contains(answer.toString().toLowerCase(Locale.ROOT));
+    }
+    
+    private static AhoCorasickMatcher compileCommonPhrases() {
+        AhoCorasickMatcher.Builder builder = new AhoCorasickMatcher.Builder();
+        // Matched anywhere, as the old String.contains checks did
+        PROFANITY_WORDS.forEach(word -> builder.add(word, PROFANITY, false));
+        ABUSIVE_PHRASES.forEach(phrase -> builder.add(phrase, ABUSIVE, false));
+        LOW_KNOWLEDGE_PHRASES.forEach(phrase -> builder.add(phrase, LOW_KNOWLEDGE, false));
+        return builder.build();
+    }
+}
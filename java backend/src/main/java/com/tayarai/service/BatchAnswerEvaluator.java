@@ -0,0 +1,95 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.AnswerFlags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies large batches of answers on a dedicated, size-bounded fork-join pool,
+ * so a re-scoring job cannot take over the common pool or the request threads.
+ * Work is split in halves until a slice is small enough to classify sequentially.
+ */
+@Component
+public class BatchAnswerEvaluator {
+    
+    // Classifying one answer is a few microseconds; smaller slices cost more to fork than to run
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+    
+    @Autowired
+    private AnswerClassifier answerClassifier;
+    
+    @Value("${interview.evaluation.parallelism:0}")
+    private int parallelism;
+    
+    private ForkJoinPool pool;
+    
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            worker.setName("answer-evaluator-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Classifies every answer; {@code keywords} is either null or aligned with
+     * {@code answers} (null entries mean no keyword check for that answer).
+     */
+    public List<AnswerFlags> classifyAll(List<String> answers, AhoCorasickMatcher[] keywords) {
+        AnswerFlags[] results = new AnswerFlags[answers.size()];
+        if (results.length <= SEQUENTIAL_THRESHOLD) {
+            new ClassifyTask(answers, keywords, results, 0, results.length).compute();
+        } else {
+            pool.invoke(new ClassifyTask(answers, keywords, results, 0, results.length));
+        }
+        return Arrays.asList(results);
+    }
+    
+    private final class ClassifyTask extends RecursiveAction {
+        private final List<String> answers;
+        private final AhoCorasickMatcher[] keywords;
+        private final AnswerFlags[] results;
+        private final int from;
+        private final int to;
+        
+        ClassifyTask(List<String> answers, AhoCorasickMatcher[] keywords, AnswerFlags[] results, int from, int to) {
+            this.answers = answers;
+            this.keywords = keywords;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    AhoCorasickMatcher matcher = keywords != null ? keywords[i] : null;
+                    results[i] = answerClassifier.classify(answers.get(i), matcher);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ClassifyTask(answers, keywords, results, from, mid),
+                new ClassifyTask(answers, keywords, results, mid, to));
+        }
+    }
+}
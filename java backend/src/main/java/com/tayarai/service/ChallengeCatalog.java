@@ -0,0 +1,131 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.ChallengeSummary;
+import com.tayarai.model.CodingChallenge;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the active challenges, indexed by slug, difficulty, category
+ * and tag. Like {@link QuestionBank} it is never modified after construction; a refresh
+ * that changes anything builds a new one with the next version.
+ * <p>
+ * Category and tag lookups ignore case. Every list is in id order.
+ */
+public final class ChallengeCatalog {
+    
+    private static final ChallengeCatalog EMPTY = new ChallengeCatalog(List.of(), 0L, "\"0\"");
+    
+    private final List<ChallengeSummary> challenges;
+    private final Map<String, ChallengeSummary> bySlug;
+    private final Map<CodingChallenge.ChallengeDifficulty, List<ChallengeSummary>> byDifficulty;
+    private final Map<String, List<ChallengeSummary>> byCategory;
+    private final Map<String, List<ChallengeSummary>> byTag;
+    private final long version;
+    private final String etag;
+    
+    ChallengeCatalog(Collection<ChallengeSummary> active, long version, String etag) {
+        List<ChallengeSummary> sorted = new ArrayList<>(active);
+        sorted.sort(Comparator.comparing(ChallengeSummary::id));
+        Map<String, ChallengeSummary> slugs = new HashMap<>();
+        Map<CodingChallenge.ChallengeDifficulty, List<ChallengeSummary>> difficulties =
+            new EnumMap<>(CodingChallenge.ChallengeDifficulty.class);
+        Map<String, List<ChallengeSummary>> categories = new HashMap<>();
+        Map<String, List<ChallengeSummary>> tags = new HashMap<>();
+        for (ChallengeSummary challenge : sorted) {
+            slugs.put(challenge.slug(), challenge);
+            if (challenge.difficulty() != null) {
+                difficulties.computeIfAbsent(challenge.difficulty(), d -> new ArrayList<>()).add(challenge);
+            }
+            if (challenge.category() != null) {
+                categories.computeIfAbsent(key(challenge.category()), c -> new ArrayList<>()).add(challenge);
+            }
+            // A tag listed twice on one challenge still indexes it once
+            for (String tag : new LinkedHashSet<>(challenge.tags().stream().map(ChallengeCatalog::key).toList())) {
+                tags.computeIfAbsent(tag, t -> new ArrayList<>()).add(challenge);
+            }
+        }
+        this.challenges = List.copyOf(sorted);
+        this.bySlug = Map.copyOf(slugs);
+        this.byDifficulty = freeze(difficulties);
+        this.byCategory = freeze(categories);
+        this.byTag = freeze(tags);
+        this.version = version;
+        this.etag = etag;
+    }
+    
+    public static ChallengeCatalog empty() {
+        return EMPTY;
+    }
+    
+    public Optional<ChallengeSummary> findBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+    
+    /**
+     * Challenges matching every filter given; a null filter matches everything. Starts
+     * from the smallest index that applies and checks the other filters on its entries.
+     */
+    public List<ChallengeSummary> find(CodingChallenge.ChallengeDifficulty difficulty, String category, String tag) {
+        String categoryKey = category != null ? key(category) : null;
+        String tagKey = tag != null ? key(tag) : null;
+        List<ChallengeSummary> candidates = challenges;
+        if (difficulty != null) {
+            candidates = smaller(candidates, byDifficulty.getOrDefault(difficulty, List.of()));
+        }
+        if (categoryKey != null) {
+            candidates = smaller(candidates, byCategory.getOrDefault(categoryKey, List.of()));
+        }
+        if (tagKey != null) {
+            candidates = smaller(candidates, byTag.getOrDefault(tagKey, List.of()));
+        }
+        
+        List<ChallengeSummary> matches = new ArrayList<>(candidates.size());
+        for (ChallengeSummary challenge : candidates) {
+            if ((difficulty == null || challenge.difficulty() == difficulty)
+                && (categoryKey == null || (challenge.category() != null && key(challenge.category()).equals(categoryKey)))
+                && (tagKey == null || hasTag(challenge, tagKey))) {
+                matches.add(challenge);
+            }
+        }
+        return matches;
+    }
+    
+    public int size() {
+        return challenges.size();
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Quoted entity tag for anything served from this snapshot.
+     */
+    public String getEtag() {
+        return etag;
+    }
+    
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static boolean hasTag(ChallengeSummary challenge, String tagKey) {
+        for (String tag : challenge.tags()) {
+            if (key(tag).equals(tagKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static List<ChallengeSummary> smaller(List<ChallengeSummary> a, List<ChallengeSummary> b) {
+        return b.size() < a.size() ? b : a;
+    }
+    
+    private static <K> Map<K, List<ChallengeSummary>> freeze(Map<K, List<ChallengeSummary>> index) {
+        Map<K, List<ChallengeSummary>> frozen = new HashMap<>();
+        index.forEach((k, list) -> frozen.put(k, List.copyOf(list)));
+        return Map.copyOf(frozen);
+    }
+}
@@ -0,0 +1,159 @@
+package com.tayarai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tayarai.dto.ChallengeSummary;
+import com.tayarai.model.CodingChallenge;
+import com.tayarai.repository.CodingChallengeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the current {@link ChallengeCatalog}, so listing and filtering challenges never
+ * reads MySQL or the challenges' description, starter code and test cases.
+ * <p>
+ * Startup reads the summary columns of every challenge. After that, every
+ * {@code code.catalog.refresh-ms} only rows whose {@code updated_at} is at or after the
+ * newest one seen are read again, less {@code code.catalog.settle-seconds} for
+ * transactions that commit after later ones (the column has one-second precision).
+ * Edits from either backend and the counters written by {@link CodingStatsService} all
+ * move {@code updated_at}. Deleted rows do not, so when the table's row count stops
+ * matching, the whole catalog is read again instead.
+ * <p>
+ * A refresh that changes nothing keeps the current snapshot and its ETag.
+ */
+@Service
+public class ChallengeCatalogService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ChallengeCatalogService.class);
+    // Tells this process's versions apart from a previous run's, which start at 1 too
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    
+    @Autowired
+    private CodingChallengeRepository codingChallengeRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // How far before the newest updated_at seen each refresh reads again
+    @Value("${code.catalog.settle-seconds:5}")
+    private int settleSeconds;
+    
+    private final AtomicLong versions = new AtomicLong();
+    // Every row read so far, inactive ones included; only touched under the monitor
+    private final Map<Integer, Row> rows = new HashMap<>();
+    private LocalDateTime newest;
+    private boolean loaded;
+    
+    private volatile ChallengeCatalog current = ChallengeCatalog.empty();
+    
+    @PostConstruct
+    public void init() {
+        refresh();
+        Gauge.builder("code.catalog.size", this, service -> service.getCatalog().size()).register(meterRegistry);
+    }
+    
+    public ChallengeCatalog getCatalog() {
+        return current;
+    }
+    
+    /**
+     * Reads what changed and publishes a new snapshot if anything did. On failure the
+     * current one stays.
+     */
+    @Scheduled(fixedDelayString = "${code.catalog.refresh-ms:10000}",
+        initialDelayString = "${code.catalog.refresh-ms:10000}")
+    public synchronized void refresh() {
+        try {
+            boolean changed;
+            // Until a full read has succeeded and seen a timestamp, every refresh is one
+            if (!loaded || newest == null || codingChallengeRepository.count() != rows.size()) {
+                changed = reload();
+            } else {
+                changed = false;
+                for (Object[] row : codingChallengeRepository.findCatalogChangedSince(newest.minusSeconds(settleSeconds))) {
+                    changed |= apply(row);
+                }
+            }
+            if (changed) {
+                publish();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Challenge catalog refresh failed, keeping v{}: {}", current.getVersion(), e.getMessage());
+        }
+    }
+    
+    private boolean reload() {
+        Map<Integer, Row> previous = new HashMap<>(rows);
+        loaded = false;
+        rows.clear();
+        newest = null;
+        for (Object[] row : codingChallengeRepository.findCatalog()) {
+            apply(row);
+        }
+        loaded = true;
+        return !rows.equals(previous);
+    }
+    
+    private boolean apply(Object[] values) {
+        LocalDateTime updatedAt = (LocalDateTime) values[11];
+        ChallengeSummary summary = new ChallengeSummary(
+            (Integer) values[0],
+            (String) values[1],
+            (String) values[2],
+            (CodingChallenge.ChallengeDifficulty) values[3],
+            (String) values[4],
+            tags((JsonNode) values[5]),
+            (Integer) values[6],
+            (BigDecimal) values[7],
+            (Integer) values[8],
+            (Integer) values[9],
+            updatedAt
+        );
+        if (updatedAt != null && (newest == null || updatedAt.isAfter(newest))) {
+            newest = updatedAt;
+        }
+        Row row = new Row(summary, !Boolean.FALSE.equals(values[10]));
+        return !row.equals(rows.put(summary.id(), row));
+    }
+    
+    private void publish() {
+        List<ChallengeSummary> active = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) {
+            if (row.active()) {
+                active.add(row.summary());
+            }
+        }
+        long version = versions.incrementAndGet();
+        current = new ChallengeCatalog(active, version, "\"" + EPOCH + "-" + version + "\"");
+        log.info("Published challenge catalog v{} with {} active challenges", version, active.size());
+    }
+    
+    // ["arrays", "two-pointers"]; anything else in the column is ignored
+    private static List<String> tags(JsonNode tags) {
+        if (tags == null || !tags.isArray()) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(tags.size());
+        for (JsonNode tag : tags) {
+            if (tag.isTextual() && !tag.asText().isBlank()) {
+                values.add(tag.asText());
+            }
+        }
+        return List.copyOf(values);
+    }
+    
+    private record Row(ChallengeSummary summary, boolean active) {
+    }
+}
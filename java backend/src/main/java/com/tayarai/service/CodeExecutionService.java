@@ -0,0 +1,161 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.ExecutionResult;
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.CodingChallenge;
+import com.tayarai.repository.CodeSubmissionRepository;
+import com.tayarai.repository.CodingChallengeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Runs submitted code in a {@link SandboxPool} worker under the challenge's time and
+ * memory limits (or the defaults for free-form runs), capped by
+ * {@code code.sandbox.max-time-seconds} and {@code code.sandbox.max-memory-mb}.
+ */
+@Service
+public class CodeExecutionService {
+    
+    @Autowired
+    private SandboxPool sandboxPool;
+    
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+    
+    @Autowired
+    private CodeSubmissionRepository codeSubmissionRepository;
+    
+    @Autowired
+    private CodingChallengeRepository codingChallengeRepository;
+    
+    @Value("${code.sandbox.default-time-seconds:5}")
+    private int defaultTimeSeconds;
+    
+    @Value("${code.sandbox.default-memory-mb:128}")
+    private int defaultMemoryMb;
+    
+    @Value("${code.sandbox.max-time-seconds:10}")
+    private int maxTimeSeconds;
+    
+    @Value("${code.sandbox.max-memory-mb:512}")
+    private int maxMemoryMb;
+    
+    @Value("${code.sandbox.sample-ms:10}")
+    private long sampleMillis;
+    
+    /**
+     * Runs the code once; limits that are null fall back to the defaults.
+     *
+     * @throws SandboxPool.BusyException if no sandbox frees up in time
+     */
+    public ExecutionResult execute(String language, String code, String input,
+                                   Integer timeLimitSeconds, Integer memoryLimitMb) {
+        SandboxLanguage sandboxLanguage = SandboxLanguage.of(language);
+        if (sandboxLanguage == null) {
+            return ExecutionResult.error("Unsupported language: " + language);
+        }
+        int seconds = timeLimit(timeLimitSeconds);
+        int memoryMb = memoryLimit(memoryLimitMb);
+        
+        // Compiled before taking a sandbox slot: a compile error never needs one
+        InMemoryJavaCompiler.CompiledProgram program = compile(sandboxLanguage, code);
+        if (program != null && !program.succeeded()) {
+            return ExecutionResult.error("Compilation Error:\n" + program.errors());
+        }
+        
+        SandboxWorker worker = sandboxPool.acquire(sandboxLanguage, memoryMb);
+        try {
+            String entry = install(worker, program, code);
+            return worker.run(entry, input, seconds, sampleMillis, sandboxPool.io());
+        } finally {
+            sandboxPool.release(worker);
+        }
+    }
+    
+    /**
+     * Runs a stored submission against its challenge's limits and records the outcome on it.
+     */
+    public CodeSubmission runSubmission(CodeSubmission submission, String input) {
+        Integer timeLimit = null;
+        Integer memoryLimit = null;
+        if (submission.getChallengeId() != null) {
+            CodingChallenge challenge = codingChallengeRepository.findById(submission.getChallengeId())
+                .orElseThrow(() -> new RuntimeException("Challenge not found"));
+            timeLimit = challenge.getTimeLimit();
+            memoryLimit = challenge.getMemoryLimit();
+        }
+        
+        ExecutionResult result = execute(submission.getLanguage(), submission.getCode(), input, timeLimit, memoryLimit);
+        submission.setStatus(result.status());
+        submission.setOutput(result.output());
+        submission.setErrorMessage(result.error());
+        submission.setExecutionTime(seconds(result.wallMillis()));
+        submission.setCpuTime(seconds(result.cpuMillis()));
+        submission.setMemoryUsed(megabytes(result.peakRssKb()));
+        return codeSubmissionRepository.save(submission);
+    }
+    
+    int timeLimit(Integer requestedSeconds) {
+        return clamp(requestedSeconds, defaultTimeSeconds, maxTimeSeconds);
+    }
+    
+    int memoryLimit(Integer requestedMb) {
+        return clamp(requestedMb, defaultMemoryMb, maxMemoryMb);
+    }
+    
+    long getSampleMillis() {
+        return sampleMillis;
+    }
+    
+    /**
+     * The compiled program for Java (which may hold compile errors), null for the other languages.
+     */
+    InMemoryJavaCompiler.CompiledProgram compile(SandboxLanguage language, String code) {
+        return language == SandboxLanguage.JAVA ? javaCompiler.compile(code) : null;
+    }
+    
+    /**
+     * Puts the program into the worker's directory and returns the entry to start it with.
+     */
+    String install(SandboxWorker worker, InMemoryJavaCompiler.CompiledProgram program, String code) {
+        try {
+            if (program == null) {
+                String entry = worker.getLanguage().getEntryFile();
+                Files.writeString(worker.getDir().resolve(entry), code, StandardCharsets.UTF_8);
+                return entry;
+            }
+            // Under classes/, where the launcher loads them from
+            Path classes = worker.getDir().resolve("classes");
+            for (Map.Entry<String, byte[]> entry : program.classes().entrySet()) {
+                Path file = classes.resolve(entry.getKey().replace('.', '/') + ".class");
+                Files.createDirectories(file.getParent());
+                Files.write(file, entry.getValue());
+            }
+            return program.mainClass();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not prepare code for execution: " + e.getMessage(), e);
+        }
+    }
+    
+    private static int clamp(Integer requested, int defaultValue, int max) {
+        int value = requested != null && requested > 0 ? requested : defaultValue;
+        return Math.min(value, max);
+    }
+    
+    static BigDecimal seconds(Long millis) {
+        return millis == null ? null : BigDecimal.valueOf(millis, 3);
+    }
+    
+    static BigDecimal megabytes(Long kilobytes) {
+        return kilobytes == null ? null : BigDecimal.valueOf(kilobytes).divide(BigDecimal.valueOf(1024), 2, RoundingMode.HALF_UP);
+    }
+}
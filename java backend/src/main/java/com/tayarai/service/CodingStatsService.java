@@ -0,0 +1,284 @@
+package com.tayarai.service;
+
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.CodingChallenge;
+import com.tayarai.repository.CodeSubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind counters for {@code coding_stats} and the challenges' attempt and accept
+ * counts. A judged submission only adds to in-memory {@link LongAdder}s (striped, so
+ * submissions to one popular challenge never wait on each other or on its row) and to
+ * the leaderboard; every {@code code.stats.flush-ms} the deltas are written with a few
+ * set-based statements that add them to the stored values ({@code x = x + d.x}), so
+ * nothing is read back and no increment is lost to a concurrent write, including ones
+ * from the Node.js backend.
+ * <p>
+ * Deltas are taken with {@link LongAdder#sumThenReset()}, which moves each increment
+ * either into this flush or the next one. A failed flush adds what it took back.
+ * {@code acceptance_rate} is not kept per submission: the flush derives it from the
+ * new totals of the challenges it touched.
+ */
+@Service
+public class CodingStatsService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CodingStatsService.class);
+    
+    @Autowired
+    private CodeSubmissionRepository codeSubmissionRepository;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Rows per statement
+    @Value("${code.stats.batch-size:500}")
+    private int batchSize;
+    
+    private final Map<Integer, UserDelta> users = new ConcurrentHashMap<>();
+    private final Map<Integer, ChallengeDelta> challenges = new ConcurrentHashMap<>();
+    private Counter flushed;
+    private Counter failed;
+    
+    @PostConstruct
+    public void init() {
+        flushed = Counter.builder("code.stats.flushes").tag("result", "ok").register(meterRegistry);
+        failed = Counter.builder("code.stats.flushes").tag("result", "error").register(meterRegistry);
+        Gauge.builder("code.stats.pending.users", users, Map::size).register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    /**
+     * Counts a saved, judged submission. Solved counts only go up on the user's first
+     * accepted submission for the challenge.
+     */
+    public void recordJudged(CodeSubmission submission, CodingChallenge challenge) {
+        Integer userId = submission.getUser().getId();
+        boolean accepted = submission.getStatus() == CodeSubmission.SubmissionStatus.SUCCESS;
+        boolean firstSolve = accepted && !codeSubmissionRepository.existsByUserIdAndChallengeIdAndStatusAndIdLessThan(
+            userId, challenge.getId(), CodeSubmission.SubmissionStatus.SUCCESS, submission.getId());
+        CodingChallenge.ChallengeDifficulty difficulty = firstSolve ? challenge.getDifficulty() : null;
+        int easy = difficulty == CodingChallenge.ChallengeDifficulty.EASY ? 1 : 0;
+        int medium = difficulty == CodingChallenge.ChallengeDifficulty.MEDIUM ? 1 : 0;
+        int hard = difficulty == CodingChallenge.ChallengeDifficulty.HARD ? 1 : 0;
+        LocalDate today = LocalDate.now();
+        
+        // A challenge keeps its entry for good, so the hot path is a plain lookup and an add
+        ChallengeDelta counts = challenges.computeIfAbsent(challenge.getId(), id -> new ChallengeDelta());
+        counts.attempts.increment();
+        if (accepted) {
+            counts.accepted.increment();
+        }
+        // Counted under the leaderboard's lock, so its reconcile sees the two agree
+        leaderboardService.record(userId, accepted, easy, medium, hard, () ->
+            // Inside compute, so a flush cannot drop the user's entry between lookup and increment
+            users.compute(userId, (id, delta) -> {
+                if (delta == null) {
+                    delta = new UserDelta();
+                }
+                delta.add(1, accepted ? 1 : 0, easy, medium, hard);
+                delta.day = today;
+                return delta;
+            }));
+    }
+    
+    @Scheduled(fixedDelayString = "${code.stats.flush-ms:2000}")
+    public synchronized void flush() {
+        write(take());
+    }
+    
+    // Holds the flush monitor throughout, so no flush writes counts the reconcile also kept aside
+    @Scheduled(fixedDelayString = "${code.leaderboard.reconcile-ms:300000}",
+        initialDelayString = "${code.leaderboard.reconcile-ms:300000}")
+    public synchronized void reconcileLeaderboard() {
+        Pending[] taken = new Pending[1];
+        leaderboardService.reconcile(() -> taken[0] = take(), () -> write(taken[0]));
+    }
+    
+    private Pending take() {
+        List<Object[]> userRows = new ArrayList<>();
+        for (Map.Entry<Integer, UserDelta> entry : users.entrySet()) {
+            UserDelta delta = entry.getValue();
+            LocalDate day = delta.day;
+            long[] counts = delta.take();
+            if (isZero(counts)) {
+                // Idle since the last flush; dropped unless a submission just came in
+                users.computeIfPresent(entry.getKey(), (id, current) -> current.isEmpty() ? null : current);
+                continue;
+            }
+            userRows.add(new Object[]{entry.getKey(), counts[0], counts[1], counts[2], counts[3], counts[4], day});
+        }
+        List<long[]> challengeRows = new ArrayList<>();
+        for (Map.Entry<Integer, ChallengeDelta> entry : challenges.entrySet()) {
+            long attempts = entry.getValue().attempts.sumThenReset();
+            long accepted = entry.getValue().accepted.sumThenReset();
+            if (attempts != 0 || accepted != 0) {
+                challengeRows.add(new long[]{entry.getKey(), attempts, accepted});
+            }
+        }
+        return new Pending(userRows, challengeRows);
+    }
+    
+    // False if the counts could not be written; they are then given back for the next flush
+    private boolean write(Pending pending) {
+        List<Object[]> userRows = pending.userRows();
+        List<long[]> challengeRows = pending.challengeRows();
+        if (userRows.isEmpty() && challengeRows.isEmpty()) {
+            return true;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < userRows.size(); from += batchSize) {
+                    writeUsers(userRows.subList(from, Math.min(userRows.size(), from + batchSize)));
+                }
+                for (int from = 0; from < challengeRows.size(); from += batchSize) {
+                    writeChallenges(challengeRows.subList(from, Math.min(challengeRows.size(), from + batchSize)));
+                }
+            });
+            flushed.increment();
+            return true;
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Failed to write coding stats for {} users and {} challenges, retrying next flush: {}",
+                userRows.size(), challengeRows.size(), e.getMessage());
+            giveBack(userRows, challengeRows);
+            return false;
+        }
+    }
+    
+    // The streak is set before last_submission_date because MySQL applies these in order
+    private void writeUsers(List<Object[]> rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO coding_stats (user_id, total_submissions, "
+            + "accepted_submissions, easy_solved, medium_solved, hard_solved, streak_days, last_submission_date) "
+            + "SELECT * FROM (");
+        List<Object> args = new ArrayList<>(rows.size() * 7);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0
+                ? "SELECT ? AS uid, ? AS t, ? AS a, ? AS e, ? AS m, ? AS h, 1 AS s, ? AS d"
+                : " UNION ALL SELECT ?, ?, ?, ?, ?, ?, 1, ?");
+            args.addAll(List.of(rows.get(i)));
+        }
+        sql.append(") AS x ON DUPLICATE KEY UPDATE total_submissions = total_submissions + x.t, "
+            + "accepted_submissions = accepted_submissions + x.a, easy_solved = easy_solved + x.e, "
+            + "medium_solved = medium_solved + x.m, hard_solved = hard_solved + x.h, "
+            + "streak_days = CASE WHEN last_submission_date >= x.d THEN streak_days "
+            + "WHEN last_submission_date = x.d - INTERVAL 1 DAY THEN streak_days + 1 ELSE 1 END, "
+            + "last_submission_date = GREATEST(COALESCE(last_submission_date, x.d), x.d)");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+    
+    private void writeChallenges(List<long[]> rows) {
+        StringBuilder deltas = new StringBuilder();
+        StringBuilder ids = new StringBuilder();
+        Object[] args = new Object[rows.size() * 3];
+        Object[] idArgs = new Object[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            long[] row = rows.get(i);
+            deltas.append(i == 0 ? "SELECT ? AS id, ? AS attempts, ? AS accepted" : " UNION ALL SELECT ?, ?, ?");
+            ids.append(i == 0 ? "?" : ", ?");
+            args[i * 3] = row[0];
+            args[i * 3 + 1] = row[1];
+            args[i * 3 + 2] = row[2];
+            idArgs[i] = row[0];
+        }
+        jdbcTemplate.update("UPDATE coding_challenges c JOIN (" + deltas + ") AS d ON c.id = d.id "
+            + "SET c.total_attempts = c.total_attempts + d.attempts, c.total_accepted = c.total_accepted + d.accepted",
+            args);
+        jdbcTemplate.update("UPDATE coding_challenges SET acceptance_rate = ROUND(100 * total_accepted / total_attempts, 2) "
+            + "WHERE total_attempts > 0 AND id IN (" + ids + ")", idArgs);
+    }
+    
+    private void giveBack(List<Object[]> userRows, List<long[]> challengeRows) {
+        for (Object[] row : userRows) {
+            users.compute((Integer) row[0], (id, delta) -> {
+                if (delta == null) {
+                    delta = new UserDelta();
+                    delta.day = (LocalDate) row[6];
+                }
+                delta.add((Long) row[1], (Long) row[2], (Long) row[3], (Long) row[4], (Long) row[5]);
+                return delta;
+            });
+        }
+        for (long[] row : challengeRows) {
+            ChallengeDelta counts = challenges.computeIfAbsent((int) row[0], id -> new ChallengeDelta());
+            counts.attempts.add(row[1]);
+            counts.accepted.add(row[2]);
+        }
+    }
+    
+    private static boolean isZero(long[] counts) {
+        for (long count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private record Pending(List<Object[]> userRows, List<long[]> challengeRows) {
+    }
+    
+    private static final class UserDelta {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder easy = new LongAdder();
+        private final LongAdder medium = new LongAdder();
+        private final LongAdder hard = new LongAdder();
+        // Day of the latest submission, for the streak
+        private volatile LocalDate day;
+        
+        void add(long total, long accepted, long easy, long medium, long hard) {
+            this.total.add(total);
+            this.accepted.add(accepted);
+            this.easy.add(easy);
+            this.medium.add(medium);
+            this.hard.add(hard);
+        }
+        
+        long[] take() {
+            return new long[]{total.sumThenReset(), accepted.sumThenReset(), easy.sumThenReset(),
+                medium.sumThenReset(), hard.sumThenReset()};
+        }
+        
+        boolean isEmpty() {
+            return isZero(new long[]{total.sum(), accepted.sum(), easy.sum(), medium.sum(), hard.sum()});
+        }
+    }
+    
+    private static final class ChallengeDelta {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+    }
+}
@@ -0,0 +1,179 @@
+package com.tayarai.service;
+
+import com.tayarai.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over registered emails, so registration can skip the
+ * {@code existsByEmail} query for addresses that are certainly new. A "no" is
+ * definite for emails registered through this service since the last rebuild; a
+ * "maybe" still goes to MySQL. Users created elsewhere (the Node.js backend) are
+ * picked up at the next rebuild and until then are caught by the unique constraint
+ * on insert, which stays the final arbiter either way.
+ * <p>
+ * Until the first build finishes every email is a "maybe".
+ */
+@Service
+public class EmailExistenceFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(EmailExistenceFilter.class);
+    private static final int PAGE_SIZE = 5000;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${auth.email-filter.expected-users:1000000}")
+    private int expectedUsers;
+    
+    @Value("${auth.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    private volatile Bits current;
+    // While a rebuild runs, inserts go to both filters so the new one misses nothing
+    private volatile Bits building;
+    private Counter definitelyNew;
+    private Counter maybeExisting;
+    
+    @PostConstruct
+    public void init() {
+        definitelyNew = Counter.builder("auth.email_filter.checks").tag("result", "absent").register(meterRegistry);
+        maybeExisting = Counter.builder("auth.email_filter.checks").tag("result", "maybe").register(meterRegistry);
+    }
+    
+    /**
+     * False only if the email is certainly not registered.
+     */
+    public boolean mightContain(String email) {
+        Bits bits = current;
+        if (bits != null && !bits.mightContain(normalize(email))) {
+            definitelyNew.increment();
+            return false;
+        }
+        maybeExisting.increment();
+        return true;
+    }
+    
+    public void add(String email) {
+        String key = normalize(email);
+        Bits bits = current;
+        if (bits != null) {
+            bits.add(key);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.add(key);
+        }
+    }
+    
+    /**
+     * Builds a fresh filter from the users table and swaps it in; runs at startup and
+     * then periodically so deleted users stop counting and outside inserts are seen.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${auth.email-filter.rebuild-ms:21600000}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Bits next = new Bits(expectedUsers, falsePositiveRate);
+        building = next;
+        try {
+            int count = 0;
+            int afterId = 0;
+            while (true) {
+                List<Object[]> page = userRepository.findEmailsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (Object[] row : page) {
+                    next.add(normalize((String) row[1]));
+                    afterId = (Integer) row[0];
+                }
+                count += page.size();
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+            current = next;
+            log.info("Built email filter over {} users in {} ms", count, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Failed to build email filter, keeping the previous one: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+    
+    /**
+     * The users table compares emails case-insensitively, so the filter does too.
+     */
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashes;
+        
+        Bits(int expected, double falsePositiveRate) {
+            long n = Math.max(expected, 1);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+        
+        void add(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+            }
+        }
+        
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static long hash(String key) {
+            long h = 0xCBF29CE484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+            }
+            return mix(h);
+        }
+        
+        // SplitMix64 finaliser, spreads FNV's weak low bits across the word
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.tayarai.service;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles Java submissions inside this JVM through {@link JavaCompiler}, with sources
+ * and class files kept in memory, instead of forking {@code javac} for every run.
+ * Results (bytecode or the compiler's errors) are cached by the SHA-256 of the source,
+ * so a resubmitted or shared solution is not compiled again.
+ * <p>
+ * The standard file manager caches what it has read of the JDK, which is most of what
+ * makes a warm compile fast; it is not thread-safe, so a few are pooled and each
+ * compile borrows one. Nothing compiled here is ever loaded into this JVM.
+ * <p>
+ * A compile runs on its own thread under {@code code.java.compile-timeout-ms}. When the
+ * deadline passes the caller gets a compile error at once, and a task listener aborts
+ * javac at its next phase boundary; the file manager only goes back to the pool then.
+ * Class files are capped at {@code code.java.max-class-bytes} in total. The program's
+ * main class is the one javac reports declaring {@code public static void main(String[])},
+ * by binary name.
+ */
+@Service
+public class InMemoryJavaCompiler {
+    
+    private static final Logger log = LoggerFactory.getLogger(InMemoryJavaCompiler.class);
+    // Only names the source file, which javac wants to match the public class
+    private static final Pattern PUBLIC_CLASS = Pattern.compile("public\\s+(?:(?:final|abstract)\\s+)?class\\s+(\\w+)");
+    private static final List<String> OPTIONS = List.of("-proc:none", "-nowarn", "-g:source,lines", "-encoding", "UTF-8",
+        "-Xmaxerrs", "100");
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${code.java.cache-entries:2000}")
+    private int cacheEntries;
+    
+    // Compiles that may run at once (0 = one per core)
+    @Value("${code.java.compilers:0}")
+    private int compilers;
+    
+    @Value("${code.java.compile-timeout-ms:10000}")
+    private long compileTimeoutMs;
+    
+    // All class files of one compile together
+    @Value("${code.java.max-class-bytes:4194304}")
+    private long maxClassBytes;
+    
+    private JavaCompiler compiler;
+    private ExecutorService compileThreads;
+    private BlockingQueue<StandardJavaFileManager> fileManagers;
+    private Map<String, CompiledProgram> cache;
+    private Counter hits;
+    private Counter misses;
+    private Counter timeouts;
+    
+    @PostConstruct
+    public void init() {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.warn("No Java compiler in this runtime (a JRE?); Java submissions cannot run");
+            return;
+        }
+        int count = compilers > 0 ? compilers : Runtime.getRuntime().availableProcessors();
+        fileManagers = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            fileManagers.add(compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8));
+        }
+        // Unbounded: a compile first takes a file manager, so at most count run at once
+        compileThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "java-compiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+                return size() > cacheEntries;
+            }
+        };
+        hits = Counter.builder("code.java.compile.cache").tag("result", "hit").register(meterRegistry);
+        timeouts = Counter.builder("code.java.compile.timeouts").register(meterRegistry);
+        misses = Counter.builder("code.java.compile.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("code.java.compile.cache.size", this, InMemoryJavaCompiler::size).register(meterRegistry);
+        
+        // javac's first compile loads and JITs the compiler itself; pay for it before the first user does
+        long started = System.currentTimeMillis();
+        compile("public class Warmup { public static void main(String[] args) { System.out.println(args.length); } }");
+        log.info("Java compiler warmed up in {} ms", System.currentTimeMillis() - started);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (fileManagers == null) {
+            return;
+        }
+        compileThreads.shutdownNow();
+        for (StandardJavaFileManager fileManager : fileManagers) {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+    
+    /**
+     * Bytecode for the source, from the cache when it has been compiled before.
+     */
+    public CompiledProgram compile(String source) {
+        if (compiler == null) {
+            throw new RuntimeException("Java is not available on this server");
+        }
+        String key = sha256(source);
+        synchronized (cache) {
+            CompiledProgram cached = cache.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        
+        misses.increment();
+        CompiledProgram program = doCompile(source);
+        if (program.timedOut()) {
+            // Under load a program may make it next time
+            return program;
+        }
+        synchronized (cache) {
+            cache.put(key, program);
+        }
+        return program;
+    }
+    
+    private CompiledProgram doCompile(String source) {
+        String fileName = fileName(source);
+        StandardJavaFileManager standard;
+        try {
+            // An abandoned compile stuck inside a javac phase keeps its file manager, so
+            // waiting without a bound could block every later compile behind a few of them
+            standard = fileManagers.poll(compileTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the Java compiler");
+        }
+        if (standard == null) {
+            log.warn("No Java compiler free within {} ms", compileTimeoutMs);
+            return timedOut();
+        }
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Future<CompiledProgram> compile;
+        try {
+            compile = compileThreads.submit(() -> {
+                try {
+                    return run(standard, fileName, source, abandoned);
+                } finally {
+                    fileManagers.add(standard);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fileManagers.add(standard);
+            throw new RuntimeException("The Java compiler is shutting down");
+        }
+        try {
+            return compile.get(compileTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandoned.set(true);
+            log.warn("Java compile abandoned after {} ms", compileTimeoutMs);
+            return timedOut();
+        } catch (InterruptedException e) {
+            abandoned.set(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while compiling");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Java compiler failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    private CompiledProgram timedOut() {
+        timeouts.increment();
+        return new CompiledProgram(null, Map.of(),
+            "error: compilation timed out after " + compileTimeoutMs + " ms\n1 error", true);
+    }
+    
+    private CompiledProgram run(StandardJavaFileManager standard, String fileName, String source, AtomicBoolean abandoned) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        ClassOutputs outputs = new ClassOutputs(standard, maxClassBytes);
+        JavacTask task = (JavacTask) compiler.getTask(null, outputs, diagnostics, OPTIONS, null,
+            List.of(new Source(fileName, source)));
+        // Classes declaring main, by binary name: public ones first, each in source order
+        List<String> publicMains = new ArrayList<>();
+        List<String> otherMains = new ArrayList<>();
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void started(TaskEvent event) {
+                checkAbandoned();
+            }
+            
+            @Override
+            public void finished(TaskEvent event) {
+                checkAbandoned();
+                // Names are only available while javac runs
+                if (event.getKind() == TaskEvent.Kind.ANALYZE && event.getTypeElement() != null) {
+                    findMains(task, event.getTypeElement(), publicMains, otherMains);
+                }
+            }
+            
+            // javac passes the exception out of call(), ending the compile
+            private void checkAbandoned() {
+                if (abandoned.get()) {
+                    throw new CancellationException("Compile abandoned");
+                }
+            }
+        });
+        if (!task.call()) {
+            return new CompiledProgram(null, Map.of(), format(diagnostics.getDiagnostics()), false);
+        }
+        if (publicMains.isEmpty() && otherMains.isEmpty()) {
+            return new CompiledProgram(null, Map.of(),
+                "error: no class declares public static void main(String[] args)\n1 error", false);
+        }
+        String mainClass = !publicMains.isEmpty() ? publicMains.get(0) : otherMains.get(0);
+        return new CompiledProgram(mainClass, outputs.classes(), null, false);
+    }
+    
+    /**
+     * Adds the binary names of the type and its nested types that declare
+     * {@code public static void main(String[])}, so packages and nested classes load
+     * as they are.
+     */
+    private static void findMains(JavacTask task, TypeElement topLevel, List<String> publicMains, List<String> otherMains) {
+        Deque<TypeElement> pending = new ArrayDeque<>(List.of(topLevel));
+        while (!pending.isEmpty()) {
+            TypeElement type = pending.removeFirst();
+            if (declaresMain(type)) {
+                String name = task.getElements().getBinaryName(type).toString();
+                (type.getModifiers().contains(Modifier.PUBLIC) ? publicMains : otherMains).add(name);
+            }
+            pending.addAll(ElementFilter.typesIn(type.getEnclosedElements()));
+        }
+    }
+    
+    private static boolean declaresMain(TypeElement type) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals("main")
+                && method.getModifiers().containsAll(Set.of(Modifier.PUBLIC, Modifier.STATIC))
+                && method.getReturnType().getKind() == TypeKind.VOID
+                && method.getParameters().size() == 1
+                && method.getParameters().get(0).asType() instanceof ArrayType array
+                && array.getComponentType().toString().equals("java.lang.String")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // The public class's name, which javac requires of the file; anything else compiles under any name
+    private static String fileName(String source) {
+        Matcher matcher = PUBLIC_CLASS.matcher(source);
+        return matcher.find() ? matcher.group(1) : "Main";
+    }
+    
+    // Same layout as javac's command-line output
+    private static String format(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        int count = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            count++;
+            if (diagnostic.getSource() != null) {
+                errors.append(diagnostic.getSource().getName().replaceFirst("^/", ""))
+                    .append(':').append(diagnostic.getLineNumber()).append(": ");
+            }
+            errors.append("error: ").append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+        }
+        errors.append(count).append(count == 1 ? " error" : " errors");
+        String text = errors.toString();
+        return text.length() <= SandboxWorker.MAX_OUTPUT_LENGTH ? text : text.substring(0, SandboxWorker.MAX_OUTPUT_LENGTH);
+    }
+    
+    static String sha256(String source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    /**
+     * Bytecode by binary class name, or the compiler's errors (and no classes).
+     */
+    public record CompiledProgram(String mainClass, Map<String, byte[]> classes, String errors, boolean timedOut) {
+        public boolean succeeded() {
+            return errors == null;
+        }
+    }
+    
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+        
+        Source(String className, String code) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+        
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+    
+    /**
+     * Keeps class files in memory; everything else (the JDK) still comes from the standard manager.
+     */
+    private static final class ClassOutputs extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes = new LinkedHashMap<>();
+        private final long maxBytes;
+        private final AtomicLong remaining;
+        
+        ClassOutputs(StandardJavaFileManager standard, long maxBytes) {
+            super(standard);
+            this.maxBytes = maxBytes;
+            this.remaining = new AtomicLong(maxBytes);
+        }
+        
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    classes.put(className, bytes);
+                    // javac reports the IOException as an error writing the class
+                    return new OutputStream() {
+                        @Override
+                        public void write(int b) throws IOException {
+                            write(new byte[] {(byte) b}, 0, 1);
+                        }
+                        
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            if (remaining.addAndGet(-len) < 0) {
+                                throw new IOException("class files exceed " + maxBytes + " bytes");
+                            }
+                            bytes.write(b, off, len);
+                        }
+                    };
+                }
+            };
+        }
+        
+        // The shared standard manager must stay open for the next compile
+        @Override
+        public void close() {
+        }
+        
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            classes.forEach((name, bytes) -> result.put(name, bytes.toByteArray()));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.InterviewCounts;
+import com.tayarai.model.SummaryWatermark;
+import com.tayarai.model.UserInterviewStats;
+import com.tayarai.repository.SummaryWatermarkRepository;
+import com.tayarai.repository.UserInterviewStatsRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-user interview counters for the dashboard, served from memory.
+ * <p>
+ * Interviews are started by both backends and completed by the Node.js one, so the
+ * counters are not bumped at the call sites. Instead, every few seconds the interviews
+ * started or completed since the last pass (an index range on {@code started_at} /
+ * {@code completed_at}, never a user's whole history) are added to
+ * {@code user_interview_stats} and {@code user_interview_daily}, the watermark in
+ * {@code summary_watermarks} moves forward in the same transaction, and the same deltas
+ * are applied to the users held in memory. The first pass backfills from all interviews.
+ * <p>
+ * Counts trail the database by up to {@code refresh-ms + settle-seconds}. With several
+ * backend instances only the one that advanced the watermark updates its memory; the
+ * others pick the new numbers up when their entries expire.
+ * <p>
+ * An interview whose transaction commits more than {@code settle-seconds} after its
+ * timestamp falls behind the watermark and no pass sees it. Every {@code recount-ms} the
+ * last {@code recount-days} days up to the watermark are therefore counted again, one
+ * day per transaction under the watermark lock. The counts are plain reads of one day's
+ * interviews, so nothing in {@code interviews} is locked; only the users whose day
+ * differs are written, and their totals move by the difference.
+ */
+@Service
+public class InterviewCounterService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InterviewCounterService.class);
+    private static final String WATERMARK = "user_interview_stats";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    @Autowired
+    private UserInterviewStatsRepository statsRepository;
+    
+    @Autowired
+    private SummaryWatermarkRepository watermarkRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${dashboard.counters.max-entries:50000}")
+    private int maxEntries;
+    
+    @Value("${dashboard.counters.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    // Rows stamped within the last few seconds may not be committed yet
+    @Value("${dashboard.counters.settle-seconds:2}")
+    private long settleSeconds;
+    
+    // How many days back from the watermark a recount looks for late commits
+    @Value("${dashboard.counters.recount-days:2}")
+    private int recountDays;
+    
+    private Map<Integer, Counters> entries;
+    // Odd while a pass is between reading the database and updating memory
+    private long generation;
+    
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Counters> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    public InterviewCounts get(Integer userId) {
+        LocalDate today = LocalDate.now();
+        long now = System.nanoTime();
+        long seen;
+        synchronized (entries) {
+            Counters counters = entries.get(userId);
+            if (counters != null && now < counters.expiresAt) {
+                return counters.snapshot(today);
+            }
+            seen = generation;
+        }
+        
+        Counters loaded = load(userId, today, now + ttlSeconds * 1_000_000_000L);
+        synchronized (entries) {
+            // Only keep it if no pass could have added the same interviews to it a second time
+            if (seen == generation && seen % 2 == 0) {
+                entries.put(userId, loaded);
+            }
+        }
+        return loaded.snapshot(today);
+    }
+    
+    @Scheduled(fixedDelayString = "${dashboard.counters.refresh-ms:5000}")
+    public void refresh() {
+        LocalDateTime to = LocalDateTime.now().minusSeconds(settleSeconds).truncatedTo(ChronoUnit.SECONDS);
+        run(() -> advance(to), "update");
+    }
+    
+    @Scheduled(initialDelayString = "${dashboard.counters.recount-ms:3600000}",
+        fixedDelayString = "${dashboard.counters.recount-ms:3600000}")
+    public void recount() {
+        for (int back = recountDays - 1; back >= 0; back--) {
+            int daysBack = back;
+            run(() -> recountDay(daysBack), "recount");
+        }
+    }
+    
+    // One pass at a time, so generation is odd exactly while one is in progress
+    private synchronized void run(Supplier<Pass> work, String action) {
+        synchronized (entries) {
+            generation++;
+        }
+        Pass pass = null;
+        try {
+            pass = transactionTemplate.execute(status -> work.get());
+        } catch (Exception e) {
+            log.error("Failed to {} interview counters: {}", action, e.getMessage());
+        } finally {
+            synchronized (entries) {
+                if (pass != null) {
+                    apply(pass);
+                }
+                generation++;
+            }
+        }
+    }
+    
+    private Pass advance(LocalDateTime to) {
+        watermarkRepository.insertIfAbsent(WATERMARK, EPOCH);
+        SummaryWatermark watermark = watermarkRepository.lockByName(WATERMARK)
+            .orElseThrow(() -> new RuntimeException("Watermark " + WATERMARK + " not found"));
+        LocalDateTime from = watermark.getScannedUntil();
+        if (!to.isAfter(from)) {
+            return null;
+        }
+        
+        boolean backfill = from.equals(EPOCH);
+        List<Object[]> deltas = backfill ? List.of() : statsRepository.findDeltas(from, to);
+        if (!backfill && deltas.isEmpty()) {
+            watermark.setScannedUntil(to);
+            return null;
+        }
+        
+        statsRepository.addTotals(from, to);
+        statsRepository.addDaily(from, to);
+        watermark.setScannedUntil(to);
+        if (backfill) {
+            log.info("Backfilled interview counters up to {}", to);
+        }
+        return new Pass(backfill, deltas);
+    }
+    
+    // The day daysBack before the watermark's, counted up to the watermark
+    private Pass recountDay(int daysBack) {
+        watermarkRepository.insertIfAbsent(WATERMARK, EPOCH);
+        SummaryWatermark watermark = watermarkRepository.lockByName(WATERMARK)
+            .orElseThrow(() -> new RuntimeException("Watermark " + WATERMARK + " not found"));
+        LocalDateTime scannedUntil = watermark.getScannedUntil();
+        if (scannedUntil.equals(EPOCH)) {
+            // Nothing counted yet; the next pass backfills
+            return null;
+        }
+        
+        LocalDate day = scannedUntil.toLocalDate().minusDays(daysBack);
+        // Events are counted in (from, to] and timestamps have one-second precision
+        LocalDateTime from = day.atStartOfDay().minusSeconds(1);
+        LocalDateTime to = day.plusDays(1).atStartOfDay().minusSeconds(1);
+        if (to.isAfter(scannedUntil)) {
+            to = scannedUntil;
+        }
+        
+        Map<Integer, long[]> counted = new HashMap<>();
+        for (Object[] row : statsRepository.countEvents(from, to)) {
+            counted.put(((Number) row[0]).intValue(), new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        if (counted.isEmpty()) {
+            return null;
+        }
+        Map<Integer, long[]> stored = new HashMap<>();
+        for (Object[] row : statsRepository.findDays(day, new ArrayList<>(counted.keySet()))) {
+            stored.put(((Number) row[0]).intValue(), new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        
+        List<Object[]> deltas = new ArrayList<>();
+        counted.forEach((userId, counts) -> {
+            long[] current = stored.getOrDefault(userId, new long[2]);
+            long started = counts[0] - current[0];
+            long completed = counts[1] - current[1];
+            if (started != 0 || completed != 0) {
+                statsRepository.setDay(userId, day, counts[0], counts[1]);
+                statsRepository.addToTotals(userId, started, completed);
+                deltas.add(new Object[]{userId, Date.valueOf(day), started, completed});
+            }
+        });
+        if (!deltas.isEmpty()) {
+            log.info("Recount corrected interview counters for {} users on {}", deltas.size(), day);
+        }
+        return new Pass(false, deltas);
+    }
+    
+    private void apply(Pass pass) {
+        if (pass.backfill()) {
+            entries.clear();
+            return;
+        }
+        for (Object[] row : pass.deltas()) {
+            Counters counters = entries.get(((Number) row[0]).intValue());
+            if (counters != null) {
+                counters.add(((Date) row[1]).toLocalDate(), ((Number) row[2]).longValue(), ((Number) row[3]).longValue());
+            }
+        }
+    }
+    
+    private Counters load(Integer userId, LocalDate today, long expiresAt) {
+        Counters counters = new Counters(today, expiresAt);
+        UserInterviewStats stats = statsRepository.findById(userId).orElse(null);
+        if (stats != null) {
+            counters.startedTotal = stats.getStartedTotal();
+            counters.completedTotal = stats.getCompletedTotal();
+        }
+        List<Object[]> day = statsRepository.findDay(userId, today);
+        if (!day.isEmpty()) {
+            counters.startedOnDay = ((Number) day.get(0)[0]).longValue();
+            counters.completedOnDay = ((Number) day.get(0)[1]).longValue();
+        }
+        return counters;
+    }
+    
+    private record Pass(boolean backfill, List<Object[]> deltas) {
+    }
+    
+    // Guarded by the entries lock
+    private static final class Counters {
+        private final long expiresAt;
+        private long startedTotal;
+        private long completedTotal;
+        private LocalDate day;
+        private long startedOnDay;
+        private long completedOnDay;
+        
+        Counters(LocalDate day, long expiresAt) {
+            this.day = day;
+            this.expiresAt = expiresAt;
+        }
+        
+        void add(LocalDate date, long started, long completed) {
+            startedTotal += started;
+            completedTotal += completed;
+            if (date.equals(day)) {
+                startedOnDay += started;
+                completedOnDay += completed;
+            } else if (date.isAfter(day)) {
+                day = date;
+                startedOnDay = started;
+                completedOnDay = completed;
+            }
+        }
+        
+        InterviewCounts snapshot(LocalDate today) {
+            boolean current = today.equals(day);
+            return new InterviewCounts(startedTotal, completedTotal,
+                current ? startedOnDay : 0, current ? completedOnDay : 0);
+        }
+    }
+}
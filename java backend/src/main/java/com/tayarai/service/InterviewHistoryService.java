@@ -0,0 +1,60 @@
+package com.tayarai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tayarai.dto.HistoryCursor;
+import com.tayarai.dto.InterviewSummary;
+import com.tayarai.repository.InterviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A user's completed interviews, newest first, read a page at a time by keyset
+ * (completedAt, id) so every page costs the same however far back it is.
+ */
+@Service
+public class InterviewHistoryService {
+    
+    private static final int EXPORT_PAGE_SIZE = 500;
+    
+    @Autowired
+    private InterviewRepository interviewRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Up to {@code size} interviews after {@code after}, or from the newest if it is null.
+     */
+    public List<InterviewSummary> page(Integer userId, HistoryCursor after, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        if (after == null) {
+            return interviewRepository.findHistory(userId, page);
+        }
+        return interviewRepository.findHistoryAfter(userId, after.completedAt(), after.id(), page);
+    }
+    
+    /**
+     * Writes the whole history as newline-delimited JSON, one interview per line,
+     * holding only one page in memory at a time.
+     */
+    public void export(Integer userId, OutputStream out) throws IOException {
+        HistoryCursor after = null;
+        while (true) {
+            List<InterviewSummary> page = page(userId, after, EXPORT_PAGE_SIZE);
+            for (InterviewSummary interview : page) {
+                out.write(objectMapper.writeValueAsBytes(interview));
+                out.write('\n');
+            }
+            out.flush();
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return;
+            }
+            after = HistoryCursor.after(page.get(page.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.tayarai.service;
+
+import com.tayarai.model.User;
+import com.tayarai.repository.InterviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Daily interview quotas per plan. A user's plan is their subscription type while the
+ * subscription is active and free otherwise; the limits live in
+ * {@code interview_quota_limits}, which the Node.js backend reads too, and a plan with no
+ * row there is unlimited.
+ * <p>
+ * The database decides: a limited user's start counts itself up on that user's
+ * {@code interview_daily_quota} row for the day, with a conditional update that only
+ * matches below the limit, in the same transaction that inserts the interview. The row
+ * is created beforehand in its own statement, so the transaction locks nothing but that
+ * row and starts from every instance and from the Node.js backend queue on it instead of
+ * deadlocking; a start that fails rolls the count back with it. Nothing on this path
+ * reads {@code interviews}: new rows start at zero, and each reconcile raises rows to
+ * that day's interviews, for starts made before a row existed.
+ * <p>
+ * In front of that, each user has one atomic counter per day, taken by a
+ * compare-and-set below the limit, so users who are plainly over it are turned away
+ * without a query. Counters are loaded from the interviews in the database in the
+ * background (at startup and at each day rollover) and periodically raised to it; until
+ * then they are low, which only means the database check turns those users away.
+ */
+@Service
+public class InterviewQuotaService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InterviewQuotaService.class);
+    
+    @Autowired
+    private InterviewRepository interviewRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Interviews per day by plan, from interview_quota_limits; replaced at each reconcile
+    private volatile Map<User.SubscriptionType, Integer> limits = Map.of();
+    // Loads each day's counters off the request path
+    private final ExecutorService seeder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "interview-quota-seeder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Day day;
+    private Counter admitted;
+    private Counter rejected;
+    
+    @PostConstruct
+    public void init() {
+        limits = loadLimits();
+        admitted = Counter.builder("interview.quota.requests").tag("result", "admitted").register(meterRegistry);
+        rejected = Counter.builder("interview.quota.requests").tag("result", "rejected").register(meterRegistry);
+        day = startDay();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        seeder.shutdownNow();
+    }
+    
+    /**
+     * The daily limit for a user's subscription, or -1 if there is none. A cancelled or
+     * expired subscription counts as free, as it does in the Node.js backend.
+     */
+    public int limit(User.SubscriptionType type, User.SubscriptionStatus status) {
+        boolean active = status == null || status == User.SubscriptionStatus.ACTIVE;
+        User.SubscriptionType plan = type != null && active ? type : User.SubscriptionType.FREE;
+        Integer limit = limits.get(plan);
+        return limit == null || limit < 0 ? -1 : limit;
+    }
+    
+    /**
+     * Interviews the user has started today, as far as the quota is concerned.
+     */
+    public int used(Integer userId) {
+        AtomicInteger used = currentDay().counters.get(userId);
+        return used != null ? used.get() : 0;
+    }
+    
+    /**
+     * Creates the interview if the user has an interview left today, or returns null if
+     * not. {@code create} runs inside the transaction that counts the start, so the count
+     * only stays if it succeeds.
+     */
+    public <T> T startWithinQuota(Integer userId, User.SubscriptionType type, User.SubscriptionStatus status,
+                                  Supplier<T> create) {
+        int limit = limit(type, status);
+        Day today = currentDay();
+        AtomicInteger used = today.counters.computeIfAbsent(userId, id -> new AtomicInteger());
+        if (!reserve(used, limit)) {
+            rejected.increment();
+            return null;
+        }
+        // What the database holds when it turns the start away
+        AtomicInteger refused = new AtomicInteger(-1);
+        T created = null;
+        try {
+            if (limit >= 0) {
+                createRow(userId, today.date);
+            }
+            created = transactionTemplate.execute(transaction -> {
+                if (limit >= 0 && !take(userId, today.date, limit)) {
+                    refused.set(started(userId, today.date));
+                    transaction.setRollbackOnly();
+                    return null;
+                }
+                return create.get();
+            });
+        } finally {
+            if (created == null) {
+                used.decrementAndGet();
+            }
+        }
+        if (created == null) {
+            // Later requests from this user are turned away without a query
+            used.accumulateAndGet(refused.get(), Math::max);
+            rejected.increment();
+            return null;
+        }
+        admitted.increment();
+        return created;
+    }
+    
+    private static boolean reserve(AtomicInteger used, int limit) {
+        while (true) {
+            int current = used.get();
+            if (limit >= 0 && current >= limit) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    // Outside the start's transaction: an INSERT IGNORE there would share-lock an existing
+    // row, and two starts each holding that lock would deadlock on the update
+    private void createRow(Integer userId, LocalDate date) {
+        jdbcTemplate.update("INSERT IGNORE INTO interview_daily_quota (user_id, day, started) VALUES (?, ?, 0)",
+            userId, date);
+    }
+    
+    // Runs in the caller's transaction; the update locks the row until commit
+    private boolean take(Integer userId, LocalDate date, int limit) {
+        return jdbcTemplate.update("UPDATE interview_daily_quota SET started = started + 1 "
+            + "WHERE user_id = ? AND day = ? AND started < ?", userId, date, limit) == 1;
+    }
+    
+    private int started(Integer userId, LocalDate date) {
+        Integer started = jdbcTemplate.queryForObject(
+            "SELECT started FROM interview_daily_quota WHERE user_id = ? AND day = ?", Integer.class, userId, date);
+        return started != null ? started : 0;
+    }
+    
+    /**
+     * Reloads the limits, raises today's counters and quota rows to the interviews in the
+     * database, for starts made elsewhere or before a row existed, and drops quota rows
+     * for days that are over.
+     */
+    @Scheduled(fixedDelayString = "${interview.quota.reconcile-ms:60000}")
+    public void reconcile() {
+        Day current = currentDay();
+        try {
+            limits = loadLimits();
+            raiseRows(current.date, seed(current));
+            jdbcTemplate.update("DELETE FROM interview_daily_quota WHERE day < ?", current.date.minusDays(1));
+        } catch (Exception e) {
+            log.error("Failed to reconcile interview quotas: {}", e.getMessage());
+        }
+    }
+    
+    private Map<User.SubscriptionType, Integer> loadLimits() {
+        Map<User.SubscriptionType, Integer> loaded = new EnumMap<>(User.SubscriptionType.class);
+        jdbcTemplate.query("SELECT subscription_type, daily_limit FROM interview_quota_limits", row -> {
+            try {
+                loaded.put(User.SubscriptionType.valueOf(row.getString(1).toUpperCase(Locale.ROOT)), row.getInt(2));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring interview quota for unknown plan '{}'", row.getString(1));
+            }
+        });
+        return loaded;
+    }
+    
+    // Plain reads, then one statement per row that is behind, each committed on its own,
+    // so no lock on interviews or on more than one quota row is held
+    private void raiseRows(LocalDate date, Map<Integer, Integer> counts) {
+        Map<Integer, Integer> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, started FROM interview_daily_quota WHERE day = ?", row -> {
+            rows.put(row.getInt(1), row.getInt(2));
+        }, date);
+        List<Object[]> behind = new ArrayList<>();
+        counts.forEach((userId, count) -> {
+            if (count > rows.getOrDefault(userId, 0)) {
+                behind.add(new Object[]{userId, date, count});
+            }
+        });
+        if (!behind.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO interview_daily_quota (user_id, day, started) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE started = GREATEST(started, VALUES(started))", behind);
+        }
+    }
+    
+    private Day currentDay() {
+        Day current = day;
+        if (System.currentTimeMillis() < current.endsAt) {
+            return current;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() >= day.endsAt) {
+                day = startDay();
+            }
+            return day;
+        }
+    }
+    
+    private Day startDay() {
+        Day next = new Day(LocalDate.now());
+        seeder.execute(() -> {
+            try {
+                seed(next);
+            } catch (Exception e) {
+                // Counts from the database are added at the next reconcile
+                log.error("Failed to load today's interview counts: {}", e.getMessage());
+            }
+        });
+        return next;
+    }
+    
+    // Interviews started on the target day, by user
+    private Map<Integer, Integer> seed(Day target) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Object[] row : interviewRepository.countStartedSinceByUser(target.date.atStartOfDay())) {
+            int count = ((Number) row[1]).intValue();
+            counts.put((Integer) row[0], count);
+            target.counters.computeIfAbsent((Integer) row[0], id -> new AtomicInteger())
+                .accumulateAndGet(count, Math::max);
+        }
+        return counts;
+    }
+    
+    private static final class Day {
+        private final LocalDate date;
+        private final long endsAt;
+        // ConcurrentHashMap locks per bin, so users on different bins never contend
+        private final Map<Integer, AtomicInteger> counters = new ConcurrentHashMap<>();
+        
+        Day(LocalDate date) {
+            this.date = date;
+            this.endsAt = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -1,142 +1,141 @@
 package com.tayarai.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.core.io.ClassPathResource;
+import com.tayarai.dto.AnswerFlags;
+import com.tayarai.dto.BatchEvaluation;
+import com.tayarai.dto.Question;
+import com.tayarai.model.Interview;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.util.*;
 
 @Service
 public class InterviewService {
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private Map<String, Map<String, List<Map<String, Object>>>> questionsCache = new HashMap<>();
+    @Autowired
+    private QuestionBankService questionBankService;
     
-    // Profanity words
-    private static final List<String> PROFANITY_WORDS = Arrays.asList(
-        "fuck", "shit", "damn", "hell", "bitch", "ass", "bastard", "crap",
-        "stupid", "idiot", "dumb", "moron", "retard", "piss"
-    );
+    @Autowired
+    private QuestionSampler questionSampler;
     
-    // Abusive phrases
-    private static final List<String> ABUSIVE_PHRASES = Arrays.asList(
-        "i am angry", "you are bad", "you are stupid", "you are dumb",
-        "you are wrong", "this is bad", "this is stupid", "this is dumb",
-        "i hate", "i am frustrated", "this is terrible"
-    );
+    @Autowired
+    private QuestionHistoryService historyService;
     
-    // Low knowledge phrases
-    private static final List<String> LOW_KNOWLEDGE_PHRASES = Arrays.asList(
-        "i don't know", "i don't know that", "i have no idea",
-        "i'm not sure", "i'm not familiar", "i haven't learned",
-        "i don't understand", "i can't answer"
-    );
+    @Autowired
+    private AnswerClassifier answerClassifier;
+    
+    @Autowired
+    private BatchAnswerEvaluator batchEvaluator;
+    
+    @Autowired
+    private TranscriptStore transcriptStore;
     
     public Map<String, Object> getQuestions(String domain, String level) {
-        try {
-            if (questionsCache.isEmpty()) {
-                loadQuestions();
-            }
-            
-            String domainLower = domain.toLowerCase();
-            String levelLower = level.toLowerCase();
-            
-            if (questionsCache.containsKey(domainLower) && 
-                questionsCache.get(domainLower).containsKey(levelLower)) {
-                List<Map<String, Object>> questions = questionsCache.get(domainLower).get(levelLower);
-                return Map.of("questions", questions);
-            }
-            
-            return Map.of("questions", Collections.emptyList());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Map.of("questions", Collections.emptyList());
-        }
+        return Map.of("questions", questionBankService.getBank().getQuestions(domain, level));
     }
     
-    public List<Map<String, Object>> getShuffledQuestions(String domain, String level, int count) {
-        Map<String, Object> questionsData = getQuestions(domain, level);
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> allQuestions = (List<Map<String, Object>>) questionsData.get("questions");
+    public List<Question> getShuffledQuestions(String domain, String level, int count) {
+        return sampleQuestions(null, domain, level, count, null);
+    }
+    
+    /**
+     * Picks {@code count} questions without mutating the shared bank. When a user id is
+     * given, questions that user has already been asked are avoided until the slot runs out;
+     * a seed makes the selection reproducible.
+     */
+    public List<Question> sampleQuestions(Integer userId, String domain, String level, int count, Long seed) {
+        QuestionBank bank = questionBankService.getBank();
+        List<Question> allQuestions = bank.getQuestions(domain, level);
         
-        if (allQuestions == null || allQuestions.isEmpty()) {
+        if (allQuestions.isEmpty()) {
             return Collections.emptyList();
         }
         
-        Collections.shuffle(allQuestions);
-        return allQuestions.subList(0, Math.min(count, allQuestions.size()));
-    }
-    
-    public boolean checkProfanity(String answer) {
-        String lowerAnswer = answer.toLowerCase();
-        return PROFANITY_WORDS.stream().anyMatch(lowerAnswer::contains) ||
-               ABUSIVE_PHRASES.stream().anyMatch(lowerAnswer::contains);
+        int[] ids = bank.getQuestionIds(domain, level);
+        BitSet seen = historyService.getSeen(userId, domain, level);
+        int[] picked = questionSampler.sample(allQuestions.size(), count, seed, ids, seen);
+        
+        List<Question> result = new ArrayList<>(picked.length);
+        int[] pickedIds = new int[picked.length];
+        for (int i = 0; i < picked.length; i++) {
+            result.add(allQuestions.get(picked[i]));
+            pickedIds[i] = ids[picked[i]];
+        }
+        historyService.markSeen(userId, domain, level, pickedIds, allQuestions.size());
+        return result;
     }
     
-    public boolean checkLowKnowledge(String answer) {
-        String lowerAnswer = answer.toLowerCase();
-        return LOW_KNOWLEDGE_PHRASES.stream().anyMatch(lowerAnswer::contains);
+    /**
+     * Classifies an answer to a bank question in one pass, using the question's
+     * keywords compiled at load time.
+     */
+    public AnswerFlags classifyAnswer(String answer, String domain, String level, int questionId) {
+        AhoCorasickMatcher keywords = questionBankService.getBank().getKeywordMatcher(domain, level, questionId);
+        return answerClassifier.classify(answer, keywords);
     }
     
-    public boolean checkOffTopic(String answer, List<String> keywords) {
-        if (keywords == null || keywords.isEmpty()) {
-            return false;
+    /**
+     * Classifies a batch of answers in parallel. When {@code questionIds} is given it must be
+     * aligned with {@code answers}, and each answer is also checked against that question's keywords.
+     */
+    public BatchEvaluation evaluateAnswers(List<String> answers, String domain, String level, List<Integer> questionIds) {
+        if (questionIds != null && questionIds.size() != answers.size()) {
+            throw new RuntimeException("questionIds must have one entry per answer");
         }
         
-        String lowerAnswer = answer.toLowerCase();
-        
-        // Check for abusive phrases first
-        if (ABUSIVE_PHRASES.stream().anyMatch(lowerAnswer::matches)) {
-            return true;
-        }
-        
-        // Check if answer contains any keywords
-        for (String keyword : keywords) {
-            String lowerKeyword = keyword.toLowerCase();
-            if (lowerAnswer.contains(lowerKeyword)) {
-                return false; // On topic
+        AhoCorasickMatcher[] keywords = null;
+        if (questionIds != null && domain != null && level != null) {
+            QuestionBank bank = questionBankService.getBank();
+            keywords = new AhoCorasickMatcher[answers.size()];
+            for (int i = 0; i < keywords.length; i++) {
+                Integer questionId = questionIds.get(i);
+                keywords[i] = questionId != null ? bank.getKeywordMatcher(domain, level, questionId) : null;
             }
         }
         
-        // If answer has 2+ words and no keywords found, it's off-topic
-        String[] words = answer.trim().split("\\s+");
-        return words.length >= 2;
+        return BatchEvaluation.of(batchEvaluator.classifyAll(new ArrayList<>(answers), keywords));
     }
     
-    private void loadQuestions() throws IOException {
-        ClassPathResource resource = new ClassPathResource("data/interview-questions.json");
-        if (!resource.exists()) {
-            System.err.println("Warning: interview-questions.json not found. Please copy from Node.js backend.");
-            return;
+    /**
+     * Re-scores the candidate answers stored in each interview's transcript. All answers are
+     * classified in one parallel pass and then split back per interview, keyed by interview id.
+     * Transcripts do not record which question an answer belongs to, so no keyword check is made.
+     */
+    public Map<Integer, BatchEvaluation> rescoreInterviews(List<Interview> interviews) {
+        Map<Integer, String> transcripts = transcriptStore.loadAll(
+            interviews.stream().map(Interview::getId).toList());
+        
+        List<String> answers = new ArrayList<>();
+        int[] offsets = new int[interviews.size() + 1];
+        for (int i = 0; i < interviews.size(); i++) {
+            answers.addAll(InterviewTranscript.candidateAnswers(transcripts.get(interviews.get(i).getId())));
+            offsets[i + 1] = answers.size();
         }
-        String content = new String(Files.readAllBytes(resource.getFile().toPath()));
-        JsonNode root = objectMapper.readTree(content);
         
-        Iterator<Map.Entry<String, JsonNode>> domains = root.fields();
-        while (domains.hasNext()) {
-            Map.Entry<String, JsonNode> domainEntry = domains.next();
-            String domainName = domainEntry.getKey().toLowerCase();
-            Map<String, List<Map<String, Object>>> levels = new HashMap<>();
-            
-            Iterator<Map.Entry<String, JsonNode>> levelEntries = domainEntry.getValue().fields();
-            while (levelEntries.hasNext()) {
-                Map.Entry<String, JsonNode> levelEntry = levelEntries.next();
-                String levelName = levelEntry.getKey().toLowerCase();
-                List<Map<String, Object>> questions = new ArrayList<>();
-                
-                for (JsonNode questionNode : levelEntry.getValue()) {
-                    Map<String, Object> question = objectMapper.convertValue(questionNode, Map.class);
-                    questions.add(question);
-                }
-                
-                levels.put(levelName, questions);
-            }
-            
-            questionsCache.put(domainName, levels);
+        List<AnswerFlags> flags = batchEvaluator.classifyAll(answers, null);
+        
+        Map<Integer, BatchEvaluation> results = new LinkedHashMap<>();
+        for (int i = 0; i < interviews.size(); i++) {
+            results.put(interviews.get(i).getId(), BatchEvaluation.of(flags.subList(offsets[i], offsets[i + 1])));
         }
+        return results;
+    }
+    
+    public boolean checkProfanity(String answer) {
+        return answerClassifier.classify(answer).inappropriate();
+    }
+    
+    public boolean checkLowKnowledge(String answer) {
+        return answerClassifier.classify(answer).lowKnowledge();
+    }
+    
+    /**
+     * Prefer {@link #classifyAnswer} for bank questions; this compiles the keywords on every call.
+     */
+    public boolean checkOffTopic(String answer, List<String> keywords) {
+        if (keywords == null || keywords.isEmpty()) {
+            return false;
+        }
+        return answerClassifier.classify(answer, AhoCorasickMatcher.of(keywords)).offTopic();
     }
 }
-
@@ -0,0 +1,91 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.QuestionTransition;
+
+import java.util.BitSet;
+
+/**
+ * State of one adaptive interview. The session keeps the {@link QuestionGraph} it
+ * started with, so a bank reload never changes the questions under a running interview.
+ */
+public class InterviewSession {
+    
+    private final Integer interviewId;
+    private final Integer userId;
+    private final QuestionGraph graph;
+    private final int maxQuestions;
+    private final BitSet asked;
+    
+    private int current;
+    private int askedCount;
+    private volatile long lastActivity;
+    
+    InterviewSession(Integer interviewId, Integer userId, QuestionGraph graph, int firstIndex, int maxQuestions) {
+        this.interviewId = interviewId;
+        this.userId = userId;
+        this.graph = graph;
+        this.maxQuestions = maxQuestions;
+        this.asked = new BitSet(graph.size());
+        this.current = firstIndex;
+        this.lastActivity = System.currentTimeMillis();
+        if (firstIndex != QuestionGraph.END) {
+            asked.set(firstIndex);
+            askedCount = 1;
+        }
+    }
+    
+    public synchronized QuestionTransition currentQuestion() {
+        if (current == QuestionGraph.END) {
+            return QuestionTransition.finished(false, null);
+        }
+        return new QuestionTransition(graph.questionId(current), graph.question(current), false, null, false);
+    }
+    
+    /**
+     * Records an answer to the current question and moves to the next one. Questions
+     * are never asked twice; a route back to an asked question falls through to the
+     * question's default, and then ends the interview.
+     */
+    public synchronized QuestionTransition answer(String answer) {
+        lastActivity = System.currentTimeMillis();
+        if (current == QuestionGraph.END) {
+            return QuestionTransition.finished(false, null);
+        }
+        
+        String text = answer != null ? answer : "";
+        boolean lowKnowledge = graph.isLowKnowledge(current, text);
+        String reply = lowKnowledge ? graph.lowKnowledgeReply(current) : null;
+        
+        int next = graph.next(current, text, lowKnowledge);
+        if (next != QuestionGraph.END && asked.get(next)) {
+            next = graph.fallbackNext(current);
+        }
+        if ((next != QuestionGraph.END && asked.get(next)) || askedCount >= maxQuestions) {
+            next = QuestionGraph.END;
+        }
+        
+        current = next;
+        if (next == QuestionGraph.END) {
+            return QuestionTransition.finished(lowKnowledge, reply);
+        }
+        asked.set(next);
+        askedCount++;
+        return new QuestionTransition(graph.questionId(next), graph.question(next), lowKnowledge, reply, false);
+    }
+    
+    public synchronized boolean isFinished() {
+        return current == QuestionGraph.END;
+    }
+    
+    public Integer getInterviewId() {
+        return interviewId;
+    }
+    
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    public long getLastActivity() {
+        return lastActivity;
+    }
+}
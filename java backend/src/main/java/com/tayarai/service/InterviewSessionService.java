@@ -0,0 +1,110 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.Question;
+import com.tayarai.dto.QuestionTransition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs adaptive interviews in-process on top of the compiled {@link QuestionGraph}.
+ */
+@Service
+public class InterviewSessionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InterviewSessionService.class);
+    
+    @Autowired
+    private QuestionBankService questionBankService;
+    
+    @Autowired
+    private InterviewService interviewService;
+    
+    @Autowired
+    private TranscriptStore transcriptStore;
+    
+    @Value("${interview.session.max-questions:4}")
+    private int maxQuestions;
+    
+    @Value("${interview.session.idle-minutes:120}")
+    private long idleMinutes;
+    
+    private final Map<Integer, InterviewSession> sessions = new ConcurrentHashMap<>();
+    
+    /**
+     * Starts (or restarts) the session for an interview and returns its first question.
+     */
+    public QuestionTransition start(Integer interviewId, Integer userId, String domain, String level) {
+        QuestionGraph graph = questionBankService.getBank().getGraph(domain, level);
+        if (graph == null || graph.size() == 0) {
+            throw new RuntimeException("No questions available for " + domain + " at " + level + " level");
+        }
+        
+        List<Question> first = interviewService.sampleQuestions(userId, domain, level, 1, null);
+        int firstIndex = first.isEmpty() ? 0 : Math.max(0, graph.indexOf(first.get(0).id()));
+        
+        InterviewSession session = new InterviewSession(interviewId, userId, graph, firstIndex, maxQuestions);
+        sessions.put(interviewId, session);
+        QuestionTransition transition = session.currentQuestion();
+        recordTurns(interviewId, null, transition);
+        return transition;
+    }
+    
+    public InterviewSession getSession(Integer interviewId) {
+        return sessions.get(interviewId);
+    }
+    
+    public QuestionTransition answer(InterviewSession session, String answer) {
+        QuestionTransition transition = session.answer(answer);
+        if (transition.finished()) {
+            sessions.remove(session.getInterviewId(), session);
+        }
+        recordTurns(session.getInterviewId(), answer, transition);
+        return transition;
+    }
+    
+    public void end(Integer interviewId) {
+        sessions.remove(interviewId);
+    }
+    
+    public int activeSessions() {
+        return sessions.size();
+    }
+    
+    /**
+     * Appends the candidate's answer and the interviewer's reply to the stored transcript,
+     * in the same "Candidate: / Interviewer:" form the web client saves.
+     */
+    private void recordTurns(Integer interviewId, String answer, QuestionTransition transition) {
+        List<String> turns = new ArrayList<>(3);
+        if (answer != null && !answer.isBlank()) {
+            turns.add("Candidate: " + answer.trim());
+        }
+        if (transition.lowKnowledgeReply() != null) {
+            turns.add("Interviewer: " + transition.lowKnowledgeReply());
+        }
+        if (transition.question() != null) {
+            turns.add("Interviewer: " + transition.question().question());
+        }
+        try {
+            transcriptStore.append(interviewId, String.join(TranscriptStore.TURN_SEPARATOR, turns));
+        } catch (Exception e) {
+            // The interview itself goes on; only its saved transcript misses these turns
+            log.warn("Could not append transcript for interview {}: {}", interviewId, e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelay = 300000)
+    public void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000;
+        sessions.values().removeIf(session -> session.getLastActivity() < cutoff);
+    }
+}
@@ -0,0 +1,58 @@
+package com.tayarai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads candidate answers out of a stored {@code conversation_transcript}. The web
+ * client saves "Candidate: ..." / "Interviewer: ..." turns separated by blank lines;
+ * Vapi end-of-call reports use "User: ..." / "AI: ...". A line without a speaker
+ * label continues the previous turn.
+ */
+public final class InterviewTranscript {
+    
+    private static final String[] CANDIDATE_LABELS = {"candidate:", "user:"};
+    private static final String[] INTERVIEWER_LABELS = {"interviewer:", "ai:", "assistant:", "bot:"};
+    
+    private InterviewTranscript() {
+    }
+    
+    public static List<String> candidateAnswers(String transcript) {
+        List<String> answers = new ArrayList<>();
+        if (transcript == null || transcript.isBlank()) {
+            return answers;
+        }
+        
+        StringBuilder current = null;
+        for (String line : transcript.split("\\R")) {
+            String trimmed = line.trim();
+            int candidate = labelLength(trimmed, CANDIDATE_LABELS);
+            if (candidate > 0) {
+                addAnswer(answers, current);
+                current = new StringBuilder(trimmed.substring(candidate).trim());
+            } else if (labelLength(trimmed, INTERVIEWER_LABELS) > 0) {
+                addAnswer(answers, current);
+                current = null;
+            } else if (current != null && !trimmed.isEmpty()) {
+                current.append(' ').append(trimmed);
+            }
+        }
+        addAnswer(answers, current);
+        return answers;
+    }
+    
+    private static void addAnswer(List<String> answers, StringBuilder answer) {
+        if (answer != null && answer.length() > 0) {
+            answers.add(answer.toString());
+        }
+    }
+    
+    private static int labelLength(String line, String[] labels) {
+        for (String label : labels) {
+            if (line.regionMatches(true, 0, label, 0, label.length())) {
+                return label.length();
+            }
+        }
+        return 0;
+    }
+}
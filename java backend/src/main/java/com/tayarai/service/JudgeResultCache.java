@@ -0,0 +1,122 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.TestCaseResult;
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.CodingChallenge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verdicts of judged code, keyed by what decides them: the challenge, language and mode,
+ * the hash of the code (ignoring line endings and trailing whitespace) and the version
+ * of the challenge's test cases. Byte-identical submissions, such as a copied starter
+ * solution during a contest, are judged once.
+ * <p>
+ * The version is a hash of the test cases and the time and memory limits, so editing
+ * any of them gives new keys; the first lookup under a new version also drops the
+ * challenge's old entries rather than waiting for them to be evicted.
+ */
+@Service
+public class JudgeResultCache {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${code.judge.cache-entries:5000}")
+    private int maxEntries;
+    
+    private Map<Key, Result> cache;
+    private final Map<Integer, String> versions = new HashMap<>();
+    private Counter hits;
+    private Counter misses;
+    
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        hits = Counter.builder("code.judge.cache").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("code.judge.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("code.judge.cache.size", this, JudgeResultCache::size).register(meterRegistry);
+    }
+    
+    public Key key(CodingChallenge challenge, SandboxLanguage language, CodeSubmission.JudgeMode mode, String code,
+                   int timeLimitSeconds, int memoryLimitMb) {
+        String version = InMemoryJavaCompiler.sha256(String.valueOf(challenge.getTestCases())
+            + "\n" + timeLimitSeconds + "\n" + memoryLimitMb);
+        return new Key(challenge.getId(), language, mode, InMemoryJavaCompiler.sha256(normalize(code)), version);
+    }
+    
+    public Result get(Key key) {
+        synchronized (cache) {
+            String current = versions.put(key.challengeId(), key.version());
+            if (current != null && !current.equals(key.version())) {
+                cache.keySet().removeIf(cached -> cached.challengeId().equals(key.challengeId())
+                    && !cached.version().equals(key.version()));
+            }
+            Result result = cache.get(key);
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+    
+    public void put(Key key, Result result) {
+        synchronized (cache) {
+            // A lookup under a newer version may have happened while this one was judged
+            if (key.version().equals(versions.get(key.challengeId()))) {
+                cache.put(key, result);
+            }
+        }
+    }
+    
+    // Only differences that cannot change what the program does: all three languages read
+    // CRLF in source as LF, even inside string literals, and nothing follows the last line
+    static String normalize(String code) {
+        return code.replace("\r\n", "\n").stripTrailing();
+    }
+    
+    private int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    public record Key(Integer challengeId, SandboxLanguage language, CodeSubmission.JudgeMode mode,
+                      String codeHash, String version) {
+    }
+    
+    /**
+     * What judging saved on the submission, and every case verdict in order, so a hit can
+     * be reported exactly as the original run was.
+     */
+    public record Result(
+        CodeSubmission.SubmissionStatus status,
+        String output,
+        String errorMessage,
+        BigDecimal executionTime,
+        BigDecimal cpuTime,
+        BigDecimal memoryUsed,
+        int passed,
+        TestCaseResult firstFailure,
+        List<TestCaseResult> cases
+    ) {
+    }
+}
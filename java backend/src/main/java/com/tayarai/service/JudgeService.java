@@ -0,0 +1,463 @@
+package com.tayarai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tayarai.dto.ExecutionResult;
+import com.tayarai.dto.JudgeSummary;
+import com.tayarai.dto.TestCaseResult;
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.CodingChallenge;
+import com.tayarai.repository.CodeSubmissionRepository;
+import com.tayarai.repository.CodingChallengeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Judges a submission against every test case of its challenge. Cases are not given a
+ * process each: a worker runs a whole batch of them in one runtime (see
+ * {@link SandboxWorker#runBatch}) and each verdict is passed on as soon as it is known.
+ * <p>
+ * {@link CodeSubmission.JudgeMode#SUBMIT} runs the cases in order and stops at the first
+ * one that fails. {@link CodeSubmission.JudgeMode#RUN_ALL} runs every case, splitting them
+ * over as many workers as there are free sandbox slots (up to {@code code.judge.parallelism}).
+ * <p>
+ * Code that has been judged before against the same test cases and limits is not run
+ * again: its verdicts come from {@link JudgeResultCache}.
+ */
+@Service
+public class JudgeService {
+    
+    private static final Logger log = LoggerFactory.getLogger(JudgeService.class);
+    
+    @Autowired
+    private SandboxPool sandboxPool;
+    
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+    
+    @Autowired
+    private CodingChallengeRepository codingChallengeRepository;
+    
+    @Autowired
+    private CodeSubmissionRepository codeSubmissionRepository;
+    
+    @Autowired
+    private JudgeResultCache judgeResultCache;
+    
+    @Autowired
+    private CodingStatsService codingStatsService;
+    
+    // Workers one RUN_ALL judgement may use at once (0 = one per core)
+    @Value("${code.judge.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${code.judge.max-cases-per-worker:50}")
+    private int maxCasesPerWorker;
+    
+    private ExecutorService helpers;
+    
+    @PostConstruct
+    public void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        helpers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "judge-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        helpers.shutdownNow();
+    }
+    
+    /**
+     * Judges the submission, passing each case's verdict to the listener (from whichever
+     * thread ran it, one call at a time), saves the outcome on the submission and counts
+     * it in the user's coding stats.
+     *
+     * @throws SandboxPool.BusyException if no sandbox frees up in time
+     */
+    public JudgeSummary judge(CodeSubmission submission, CodeSubmission.JudgeMode mode, Consumer<TestCaseResult> listener) {
+        CodingChallenge challenge = codingChallengeRepository.findById(submission.getChallengeId())
+            .orElseThrow(() -> new RuntimeException("Challenge not found"));
+        List<TestCase> cases = testCases(challenge.getTestCases());
+        if (cases.isEmpty()) {
+            throw new RuntimeException("Challenge has no test cases");
+        }
+        SandboxLanguage language = SandboxLanguage.of(submission.getLanguage());
+        if (language == null) {
+            throw new RuntimeException("Unsupported language: " + submission.getLanguage());
+        }
+        
+        int timeLimitSeconds = codeExecutionService.timeLimit(challenge.getTimeLimit());
+        int memoryLimitMb = codeExecutionService.memoryLimit(challenge.getMemoryLimit());
+        JudgeResultCache.Key key = judgeResultCache.key(challenge, language, mode, submission.getCode(),
+            timeLimitSeconds, memoryLimitMb);
+        JudgeResultCache.Result cached = judgeResultCache.get(key);
+        if (cached != null) {
+            cached.cases().forEach(listener);
+            return save(submission, challenge, cached, cases.size());
+        }
+        
+        InMemoryJavaCompiler.CompiledProgram program = codeExecutionService.compile(language, submission.getCode());
+        if (program != null && !program.succeeded()) {
+            JudgeResultCache.Result result = new JudgeResultCache.Result(CodeSubmission.SubmissionStatus.ERROR, null,
+                "Compilation Error:\n" + program.errors(), null, null, null, 0, null, List.of());
+            judgeResultCache.put(key, result);
+            return save(submission, challenge, result, cases.size());
+        }
+        
+        Judgement judgement = new Judgement(submission.getCode(), language, program, cases, mode,
+            timeLimitSeconds, memoryLimitMb, listener);
+        judgement.run();
+        JudgeResultCache.Result result = judgement.result();
+        // How long a program takes depends on the load too, so a time-out may not happen again
+        if (judgement.complete() && (result.firstFailure() == null
+                || result.firstFailure().verdict() != TestCaseResult.Verdict.TIME_LIMIT_EXCEEDED)) {
+            judgeResultCache.put(key, result);
+        }
+        return save(submission, challenge, result, cases.size());
+    }
+    
+    private JudgeSummary save(CodeSubmission submission, CodingChallenge challenge, JudgeResultCache.Result result,
+                              int total) {
+        submission.setStatus(result.status());
+        submission.setOutput(result.output());
+        submission.setErrorMessage(result.errorMessage());
+        submission.setExecutionTime(result.executionTime());
+        submission.setCpuTime(result.cpuTime());
+        submission.setMemoryUsed(result.memoryUsed());
+        submission = codeSubmissionRepository.save(submission);
+        try {
+            codingStatsService.recordJudged(submission, challenge);
+        } catch (RuntimeException e) {
+            log.warn("Could not count submission {} in coding stats: {}", submission.getId(), e.getMessage());
+        }
+        
+        return new JudgeSummary(submission.getId(), submission.getStatus().name().toLowerCase(Locale.ROOT),
+            result.passed(), total, submission.getExecutionTime(), submission.getCpuTime(),
+            submission.getMemoryUsed(), submission.getErrorMessage(), result.firstFailure());
+    }
+    
+    private static String describe(TestCaseResult failure) {
+        String where = " on test case " + (failure.index() + 1);
+        return switch (failure.verdict()) {
+            case WRONG_ANSWER -> "Wrong answer" + where;
+            case TIME_LIMIT_EXCEEDED -> "Time limit exceeded" + where;
+            case MEMORY_LIMIT_EXCEEDED -> "Memory limit exceeded" + where;
+            default -> "Runtime error" + where + (failure.hidden() || failure.error() == null ? "" : ":\n" + failure.error());
+        };
+    }
+    
+    // [{"input": "...", "output": "...", "hidden": true}, ...]; the seed data uses "output"
+    private static List<TestCase> testCases(JsonNode node) {
+        List<TestCase> cases = new ArrayList<>();
+        if (node == null || !node.isArray()) {
+            return cases;
+        }
+        for (JsonNode item : node) {
+            JsonNode expected = item.hasNonNull("output") ? item.get("output") : item.path("expectedOutput");
+            cases.add(new TestCase(text(item.get("input")), text(expected), item.path("hidden").asBoolean(false)));
+        }
+        return cases;
+    }
+    
+    private static String text(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return "";
+        }
+        return node.isTextual() ? node.asText() : node.toString();
+    }
+    
+    /**
+     * Outputs match when they are the same line by line, ignoring trailing whitespace on
+     * each line, trailing blank lines and CRLF line endings.
+     */
+    static List<String> normalize(String output) {
+        List<String> lines = new ArrayList<>();
+        if (output == null) {
+            return lines;
+        }
+        for (String line : output.replace("\r\n", "\n").split("\n", -1)) {
+            lines.add(line.stripTrailing());
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+    
+    /**
+     * Where the actual output first departs from the expected one, or null if it does not.
+     */
+    static String diff(List<String> expected, List<String> actual) {
+        int common = Math.min(expected.size(), actual.size());
+        for (int i = 0; i < common; i++) {
+            if (!expected.get(i).equals(actual.get(i))) {
+                return "Line " + (i + 1) + ": expected \"" + abbreviate(expected.get(i))
+                    + "\" but got \"" + abbreviate(actual.get(i)) + "\"";
+            }
+        }
+        if (expected.size() != actual.size()) {
+            return "Expected " + expected.size() + " line(s) of output but got " + actual.size();
+        }
+        return null;
+    }
+    
+    private static String abbreviate(String line) {
+        return line.length() <= 200 ? line : line.substring(0, 200) + "...";
+    }
+    
+    private record TestCase(String input, String expected, boolean hidden) {
+    }
+    
+    private record Range(int from, int to) {
+    }
+    
+    /**
+     * One submission being judged: the cases still to run, as ranges any worker may take,
+     * and the verdicts so far.
+     */
+    private final class Judgement {
+        private final String code;
+        private final SandboxLanguage language;
+        private final InMemoryJavaCompiler.CompiledProgram program;
+        private final List<TestCase> cases;
+        private final CodeSubmission.JudgeMode mode;
+        private final int timeLimitSeconds;
+        private final int memoryLimitMb;
+        private final Consumer<TestCaseResult> listener;
+        private final Queue<Range> pending = new ConcurrentLinkedQueue<>();
+        private final TestCaseResult[] results;
+        private volatile boolean stopped;
+        
+        Judgement(String code, SandboxLanguage language, InMemoryJavaCompiler.CompiledProgram program,
+                  List<TestCase> cases, CodeSubmission.JudgeMode mode, int timeLimitSeconds, int memoryLimitMb,
+                  Consumer<TestCaseResult> listener) {
+            this.code = code;
+            this.language = language;
+            this.program = program;
+            this.cases = cases;
+            this.mode = mode;
+            this.timeLimitSeconds = timeLimitSeconds;
+            this.memoryLimitMb = memoryLimitMb;
+            this.listener = listener;
+            this.results = new TestCaseResult[cases.size()];
+        }
+        
+        void run() {
+            // A worker's CPU rlimit covers its whole batch, so a batch must fit in it
+            int perWorker = Math.max(1, Math.min(maxCasesPerWorker, sandboxPool.getMaxCpuSeconds() / timeLimitSeconds));
+            int workers = 1;
+            if (mode == CodeSubmission.JudgeMode.RUN_ALL) {
+                workers = Math.min(parallelism, cases.size());
+                perWorker = Math.min(perWorker, (cases.size() + workers - 1) / workers);
+            }
+            for (int from = 0; from < cases.size(); from += perWorker) {
+                pending.add(new Range(from, Math.min(cases.size(), from + perWorker)));
+            }
+            
+            do {
+                List<Future<?>> started = new ArrayList<>();
+                for (int i = 1; i < workers && pending.size() > 1; i++) {
+                    started.add(helpers.submit(() -> drain(false)));
+                }
+                drain(true);
+                for (Future<?> helper : started) {
+                    try {
+                        helper.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stopped = true;
+                    } catch (ExecutionException e) {
+                        log.warn("Judge helper failed: {}", e.getCause().getMessage());
+                    }
+                }
+                // Ranges a helper gave back after this thread ran out are picked up here
+            } while (!stopped && !pending.isEmpty());
+        }
+        
+        /**
+         * Runs pending ranges until none are left. Helpers only use a free slot and quit
+         * when there is none; the judging thread waits for one.
+         */
+        private void drain(boolean wait) {
+            Range range;
+            while (!stopped && (range = pending.poll()) != null) {
+                SandboxWorker worker;
+                try {
+                    worker = wait ? sandboxPool.acquire(language, memoryLimitMb)
+                        : sandboxPool.tryAcquire(language, memoryLimitMb);
+                } catch (RuntimeException e) {
+                    pending.add(range);
+                    throw e;
+                }
+                if (worker == null) {
+                    pending.add(range);
+                    return;
+                }
+                try {
+                    int done = runRange(worker, range);
+                    if (!stopped && range.from() + done < range.to()) {
+                        // The worker died part-way; the rest goes to a fresh one
+                        pending.add(new Range(range.from() + done, range.to()));
+                    }
+                } catch (RuntimeException e) {
+                    pending.add(range);
+                    if (wait) {
+                        throw e;
+                    }
+                    log.warn("Giving test cases back after a sandbox failure: {}", e.getMessage());
+                    return;
+                } finally {
+                    sandboxPool.release(worker);
+                }
+            }
+        }
+        
+        private int runRange(SandboxWorker worker, Range range) {
+            String entry = codeExecutionService.install(worker, program, code);
+            List<String> inputs = new ArrayList<>(range.to() - range.from());
+            for (int i = range.from(); i < range.to(); i++) {
+                inputs.add(cases.get(i).input());
+            }
+            return worker.runBatch(entry, inputs, timeLimitSeconds, codeExecutionService.getSampleMillis(),
+                (local, result) -> record(range.from() + local, result));
+        }
+        
+        private synchronized boolean record(int index, ExecutionResult result) {
+            if (stopped) {
+                return false;
+            }
+            TestCaseResult verdict = verdict(index, result);
+            results[index] = verdict;
+            listener.accept(verdict);
+            if (mode == CodeSubmission.JudgeMode.SUBMIT && !verdict.passed()) {
+                stopped = true;
+            }
+            return !stopped;
+        }
+        
+        private TestCaseResult verdict(int index, ExecutionResult result) {
+            TestCase testCase = cases.get(index);
+            TestCaseResult.Verdict verdict;
+            String diff = null;
+            if (result.status() == CodeSubmission.SubmissionStatus.SUCCESS) {
+                diff = diff(normalize(testCase.expected()), normalize(result.output()));
+                verdict = diff == null ? TestCaseResult.Verdict.PASSED : TestCaseResult.Verdict.WRONG_ANSWER;
+            } else if (result.status() == CodeSubmission.SubmissionStatus.TIMEOUT) {
+                verdict = TestCaseResult.Verdict.TIME_LIMIT_EXCEEDED;
+            } else if (result.error() != null && result.error().startsWith(SandboxWorker.MEMORY_LIMIT_EXCEEDED)) {
+                verdict = TestCaseResult.Verdict.MEMORY_LIMIT_EXCEEDED;
+            } else {
+                verdict = TestCaseResult.Verdict.RUNTIME_ERROR;
+            }
+            if (testCase.hidden()) {
+                return new TestCaseResult(index, verdict, true, null, null, null, null, null,
+                    result.wallMillis(), result.cpuMillis(), result.peakRssKb());
+            }
+            return new TestCaseResult(index, verdict, false, testCase.input(), testCase.expected(), result.output(),
+                diff, result.error(), result.wallMillis(), result.cpuMillis(), result.peakRssKb());
+        }
+        
+        /**
+         * The outcome as it is saved on the submission.
+         */
+        JudgeResultCache.Result result() {
+            TestCaseResult failure = firstFailure();
+            CodeSubmission.SubmissionStatus status = CodeSubmission.SubmissionStatus.SUCCESS;
+            if (failure != null) {
+                status = failure.verdict() == TestCaseResult.Verdict.TIME_LIMIT_EXCEEDED
+                    ? CodeSubmission.SubmissionStatus.TIMEOUT : CodeSubmission.SubmissionStatus.ERROR;
+            }
+            return new JudgeResultCache.Result(status, "Passed " + passed() + "/" + total() + " test cases",
+                failure == null ? null : describe(failure), CodeExecutionService.seconds(maxWallMillis()),
+                CodeExecutionService.seconds(maxCpuMillis()), CodeExecutionService.megabytes(maxPeakRssKb()),
+                passed(), failure, results());
+        }
+        
+        /**
+         * Whether every case that had to run got a verdict (judging was not cut short).
+         */
+        synchronized boolean complete() {
+            return results().size() == cases.size() || (mode == CodeSubmission.JudgeMode.SUBMIT && firstFailure() != null);
+        }
+        
+        synchronized List<TestCaseResult> results() {
+            List<TestCaseResult> judged = new ArrayList<>();
+            for (TestCaseResult result : results) {
+                if (result != null) {
+                    judged.add(result);
+                }
+            }
+            return List.copyOf(judged);
+        }
+        
+        synchronized TestCaseResult firstFailure() {
+            for (TestCaseResult result : results) {
+                if (result != null && !result.passed()) {
+                    return result;
+                }
+            }
+            return null;
+        }
+        
+        synchronized int passed() {
+            int passed = 0;
+            for (TestCaseResult result : results) {
+                if (result != null && result.passed()) {
+                    passed++;
+                }
+            }
+            return passed;
+        }
+        
+        int total() {
+            return cases.size();
+        }
+        
+        synchronized Long maxWallMillis() {
+            long max = 0;
+            for (TestCaseResult result : results) {
+                if (result != null && result.wallMillis() != null) {
+                    max = Math.max(max, result.wallMillis());
+                }
+            }
+            return max;
+        }
+        
+        synchronized Long maxCpuMillis() {
+            long max = 0;
+            for (TestCaseResult result : results) {
+                if (result != null && result.cpuMillis() != null) {
+                    max = Math.max(max, result.cpuMillis());
+                }
+            }
+            return max;
+        }
+        
+        synchronized Long maxPeakRssKb() {
+            long max = 0;
+            for (TestCaseResult result : results) {
+                if (result != null && result.peakRssKb() != null) {
+                    max = Math.max(max, result.peakRssKb());
+                }
+            }
+            return max;
+        }
+    }
+}
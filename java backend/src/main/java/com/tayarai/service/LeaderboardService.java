@@ -0,0 +1,288 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.LeaderboardEntry;
+import com.tayarai.dto.LeaderboardStanding;
+import com.tayarai.dto.UserView;
+import com.tayarai.repository.CodingStatsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The coding leaderboard, kept in memory in a {@link LeaderboardTree} instead of sorting
+ * {@code coding_stats} on every request. Judged submissions update it as they are
+ * recorded; top pages, a user's rank and the users around them are each O(log n) plus
+ * the rows returned.
+ * <p>
+ * It is built from {@code coding_stats} at startup. Every {@code code.leaderboard.reconcile-ms}
+ * it reads again the rows whose {@code updated_at} is at or after the newest one seen
+ * (less {@code code.leaderboard.settle-seconds}), which is how submissions recorded by the
+ * Node.js backend or another instance show up; every {@code code.leaderboard.full-reload-ms}
+ * the whole table is read instead, which also drops deleted users.
+ * <p>
+ * Both start from a capture point: under the lock {@link #record} holds, the counts not
+ * yet in the table are taken to be written, and from then on recorded submissions are
+ * also kept aside. A row read afterwards holds everything before that point, so the
+ * submissions kept aside for its user are added to it again and none is lost or counted
+ * twice.
+ */
+@Service
+public class LeaderboardService {
+    
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final int LOAD_PAGE_SIZE = 10000;
+    
+    @Autowired
+    private CodingStatsRepository codingStatsRepository;
+    
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // How far before the newest updated_at seen each reconcile reads again
+    @Value("${code.leaderboard.settle-seconds:5}")
+    private int settleSeconds;
+    
+    @Value("${code.leaderboard.full-reload-ms:3600000}")
+    private long fullReloadMs;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LeaderboardTree tree = new LeaderboardTree();
+    // Submissions recorded since the capture point, summed per user; null outside a reconcile
+    private Map<Integer, LeaderboardStanding> captured;
+    // Only touched by init and reconcile, which never overlap
+    private LocalDateTime newest;
+    private long lastFullReload;
+    
+    @PostConstruct
+    public void init() {
+        long started = System.currentTimeMillis();
+        LeaderboardTree loaded = load();
+        lock.writeLock().lock();
+        try {
+            tree = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastFullReload = started;
+        log.info("Loaded {} users into the leaderboard in {} ms", loaded.size(), System.currentTimeMillis() - started);
+        Gauge.builder("code.leaderboard.size", this, LeaderboardService::size).register(meterRegistry);
+    }
+    
+    /**
+     * Brings the leaderboard up to date with {@code coding_stats}. {@code take} runs at the
+     * capture point and must take every count {@link #record} has been given that is not
+     * in the table yet; {@code write} then writes them, returning false if it could not
+     * (the leaderboard, which already has them, is left as it is). The caller must keep
+     * anything else from writing counts until this returns.
+     */
+    public void reconcile(Runnable take, BooleanSupplier write) {
+        lock.writeLock().lock();
+        try {
+            take.run();
+            captured = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        try {
+            if (!write.getAsBoolean()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (newest == null || now - lastFullReload >= fullReloadMs) {
+                LeaderboardTree loaded = load();
+                lock.writeLock().lock();
+                try {
+                    captured.forEach((userId, delta) -> loaded.put(plus(loaded.get(userId), delta)));
+                    tree = loaded;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                lastFullReload = now;
+            } else {
+                List<LeaderboardStanding> changed = loadChangedSince(newest.minusSeconds(settleSeconds));
+                lock.writeLock().lock();
+                try {
+                    for (LeaderboardStanding standing : changed) {
+                        tree.put(plus(standing, captured.get(standing.userId())));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Leaderboard reconcile failed, keeping the current one: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                captured = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Applies one judged submission: it counts as a submission, as accepted if it passed,
+     * and as a solve of its difficulty if it was the user's first accepted one for the challenge.
+     * {@code alongside} runs under the same lock; it is where the caller counts the
+     * submission towards {@code coding_stats}, so a reconcile's capture point falls either
+     * before both or after both.
+     */
+    public void record(Integer userId, boolean accepted, int easy, int medium, int hard, Runnable alongside) {
+        lock.writeLock().lock();
+        try {
+            alongside.run();
+            LeaderboardStanding current = tree.get(userId);
+            if (current == null) {
+                current = new LeaderboardStanding(userId, 0, 0, 0, 0, 0);
+            }
+            tree.put(current.plus(easy, medium, hard, accepted ? 1 : 0, 1));
+            if (captured != null) {
+                captured.merge(userId, new LeaderboardStanding(userId, easy, medium, hard, accepted ? 1 : 0, 1),
+                    LeaderboardService::plus);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Users ranked {@code offset + 1} onwards.
+     */
+    public List<LeaderboardEntry> top(int offset, int limit) {
+        List<LeaderboardStanding> standings;
+        lock.readLock().lock();
+        try {
+            standings = tree.range(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entries(offset + 1, standings);
+    }
+    
+    /**
+     * The user's rank, or 0 if they have not submitted anything yet.
+     */
+    public int rank(Integer userId) {
+        lock.readLock().lock();
+        try {
+            return tree.rank(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * The user with up to {@code count} users ranked just above and below; empty if the
+     * user is not on the leaderboard.
+     */
+    public List<LeaderboardEntry> around(Integer userId, int count) {
+        int from;
+        List<LeaderboardStanding> standings;
+        lock.readLock().lock();
+        try {
+            int rank = tree.rank(userId);
+            if (rank == 0) {
+                return List.of();
+            }
+            from = Math.max(0, rank - 1 - count);
+            standings = tree.range(from, rank - from + count);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entries(from + 1, standings);
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Names and avatars come from the user cache, outside the lock
+    private List<LeaderboardEntry> entries(int firstRank, List<LeaderboardStanding> standings) {
+        List<LeaderboardEntry> entries = new ArrayList<>(standings.size());
+        for (int i = 0; i < standings.size(); i++) {
+            LeaderboardStanding standing = standings.get(i);
+            UserView user;
+            try {
+                user = userViewCache.get(standing.userId());
+            } catch (RuntimeException e) {
+                // Deleted since the leaderboard was built; their stats go with the next rebuild
+                continue;
+            }
+            entries.add(LeaderboardEntry.of(firstRank + i, standing, user));
+        }
+        return entries;
+    }
+    
+    private LeaderboardTree load() {
+        List<LeaderboardStanding> standings = new ArrayList<>();
+        int afterId = 0;
+        while (true) {
+            List<Object[]> rows = codingStatsRepository.findLeaderboardAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Integer) row[0];
+                standings.add(standing(row));
+            }
+            if (rows.size() < LOAD_PAGE_SIZE) {
+                return LeaderboardTree.of(standings);
+            }
+        }
+    }
+    
+    private List<LeaderboardStanding> loadChangedSince(LocalDateTime since) {
+        List<LeaderboardStanding> standings = new ArrayList<>();
+        for (Object[] row : codingStatsRepository.findLeaderboardChangedSince(since)) {
+            standings.add(standing(row));
+        }
+        return standings;
+    }
+    
+    // (user id, easy, medium, hard, accepted, total, updated_at)
+    private LeaderboardStanding standing(Object[] row) {
+        LocalDateTime updatedAt = (LocalDateTime) row[6];
+        if (updatedAt != null && (newest == null || updatedAt.isAfter(newest))) {
+            newest = updatedAt;
+        }
+        return new LeaderboardStanding((Integer) row[0], count(row[1]), count(row[2]), count(row[3]),
+            count(row[4]), count(row[5]));
+    }
+    
+    private static int count(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+    
+    private static LeaderboardStanding plus(LeaderboardStanding standing, LeaderboardStanding delta) {
+        if (delta == null) {
+            return standing;
+        }
+        if (standing == null) {
+            return delta;
+        }
+        return standing.plus(delta.easySolved(), delta.mediumSolved(), delta.hardSolved(),
+            delta.acceptedSubmissions(), delta.totalSubmissions());
+    }
+}
@@ -0,0 +1,265 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.LeaderboardStanding;
+
+import java.util.*;
+
+/**
+ * Users in leaderboard order, held in a treap whose nodes also count their subtree. The
+ * rank of a user and the user at a rank are then both one walk from the root, and an
+ * update is a remove and an insert, all in expected O(log n). A page of K users costs
+ * O(log n + K).
+ * <p>
+ * Order is the Node {@code /leaderboard} route's: score, then accepted submissions,
+ * then total submissions, all descending; ties go to the lower user id so every user
+ * has exactly one rank. Not thread-safe.
+ */
+final class LeaderboardTree {
+    
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private Node root;
+    private int seed = 0x9E3779B9;
+    
+    /**
+     * A tree of the given standings, built in one pass over them sorted instead of by
+     * inserting them one at a time.
+     */
+    static LeaderboardTree of(List<LeaderboardStanding> standings) {
+        LeaderboardTree tree = new LeaderboardTree();
+        LeaderboardStanding[] sorted = standings.toArray(new LeaderboardStanding[0]);
+        Arrays.sort(sorted, LeaderboardTree::compare);
+        Node[] built = new Node[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            built[i] = new Node(sorted[i], 0);
+            tree.nodes.put(sorted[i].userId(), built[i]);
+        }
+        tree.root = balance(built, 0, built.length);
+        
+        // Random priorities, highest first in level order, keep it a valid treap for later updates
+        int[] priorities = new int[built.length];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = tree.nextPriority();
+        }
+        Arrays.sort(priorities);
+        Deque<Node> level = new ArrayDeque<>();
+        if (tree.root != null) {
+            level.add(tree.root);
+        }
+        int next = priorities.length;
+        while (!level.isEmpty()) {
+            Node node = level.poll();
+            node.priority = priorities[--next];
+            if (node.left != null) {
+                level.add(node.left);
+            }
+            if (node.right != null) {
+                level.add(node.right);
+            }
+        }
+        return tree;
+    }
+    
+    int size() {
+        return nodes.size();
+    }
+    
+    LeaderboardStanding get(Integer userId) {
+        Node node = nodes.get(userId);
+        return node != null ? node.standing : null;
+    }
+    
+    /**
+     * Adds the user, or moves them to where their new standing belongs.
+     */
+    void put(LeaderboardStanding standing) {
+        Node node = nodes.get(standing.userId());
+        if (node != null) {
+            root = erase(root, node.standing);
+            node.standing = standing;
+            node.left = null;
+            node.right = null;
+            node.size = 1;
+        } else {
+            node = new Node(standing, nextPriority());
+            nodes.put(standing.userId(), node);
+        }
+        root = insert(root, node);
+    }
+    
+    /**
+     * 1-based position of the user, or 0 if they are not on the leaderboard.
+     */
+    int rank(Integer userId) {
+        Node node = nodes.get(userId);
+        if (node == null) {
+            return 0;
+        }
+        int before = 0;
+        Node current = root;
+        while (current != null) {
+            int order = compare(node.standing, current.standing);
+            if (order < 0) {
+                current = current.left;
+            } else if (order == 0) {
+                return before + size(current.left) + 1;
+            } else {
+                before += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Up to {@code limit} standings starting at 0-based position {@code offset}.
+     */
+    List<LeaderboardStanding> range(int offset, int limit) {
+        List<LeaderboardStanding> standings = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        if (offset >= 0 && limit > 0) {
+            collect(root, offset, offset + limit, 0, standings);
+        }
+        return standings;
+    }
+    
+    // In-order walk of positions [from, to), skipping subtrees that lie outside it
+    private static void collect(Node node, int from, int to, int before, List<LeaderboardStanding> out) {
+        if (node == null) {
+            return;
+        }
+        int index = before + size(node.left);
+        if (from < index) {
+            collect(node.left, from, to, before, out);
+        }
+        if (index >= from && index < to) {
+            out.add(node.standing);
+        }
+        if (to > index + 1) {
+            collect(node.right, from, to, index + 1, out);
+        }
+    }
+    
+    private static Node balance(Node[] sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = sorted[middle];
+        node.left = balance(sorted, from, middle);
+        node.right = balance(sorted, middle + 1, to);
+        update(node);
+        return node;
+    }
+    
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] halves = split(node, inserted.standing);
+            inserted.left = halves[0];
+            inserted.right = halves[1];
+            update(inserted);
+            return inserted;
+        }
+        if (compare(inserted.standing, node.standing) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        update(node);
+        return node;
+    }
+    
+    private static Node erase(Node node, LeaderboardStanding standing) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(standing, node.standing);
+        if (order == 0) {
+            return merge(node.left, node.right);
+        }
+        if (order < 0) {
+            node.left = erase(node.left, standing);
+        } else {
+            node.right = erase(node.right, standing);
+        }
+        update(node);
+        return node;
+    }
+    
+    // Nodes ordered before the standing, and the rest
+    private static Node[] split(Node node, LeaderboardStanding standing) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(node.standing, standing) < 0) {
+            Node[] halves = split(node.right, standing);
+            node.right = halves[0];
+            update(node);
+            halves[0] = node;
+            return halves;
+        }
+        Node[] halves = split(node.left, standing);
+        node.left = halves[1];
+        update(node);
+        halves[1] = node;
+        return halves;
+    }
+    
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+    
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+    
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+    
+    static int compare(LeaderboardStanding a, LeaderboardStanding b) {
+        int order = Integer.compare(b.score(), a.score());
+        if (order == 0) {
+            order = Integer.compare(b.acceptedSubmissions(), a.acceptedSubmissions());
+        }
+        if (order == 0) {
+            order = Integer.compare(b.totalSubmissions(), a.totalSubmissions());
+        }
+        return order != 0 ? order : Integer.compare(a.userId(), b.userId());
+    }
+    
+    // xorshift; treap priorities only need to look random
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+    
+    private static final class Node {
+        private LeaderboardStanding standing;
+        private int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+        
+        Node(LeaderboardStanding standing, int priority) {
+            this.standing = standing;
+            this.priority = priority;
+        }
+    }
+}
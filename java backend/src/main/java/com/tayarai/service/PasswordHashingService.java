@@ -0,0 +1,166 @@
+package com.tayarai.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt on a small executor sized to the CPU instead of on request threads.
+ * At most {@code threads} hashes run at once and {@code queue-capacity} wait; beyond
+ * that callers get a {@link BusyException} straight away rather than queueing behind
+ * a login spike, so cheap endpoints keep their Tomcat threads.
+ */
+@Service
+public class PasswordHashingService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+    
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${auth.hashing.timeout-ms:10000}")
+    private long timeoutMs;
+    
+    @Value("${auth.hashing.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+    
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+    
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+            .description("Password hashes waiting for a hashing thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashes currently running")
+            .register(meterRegistry);
+        encodeTimer = Timer.builder("auth.hashing.latency").tag("operation", "encode").register(meterRegistry);
+        matchesTimer = Timer.builder("auth.hashing.latency").tag("operation", "matches").register(meterRegistry);
+        waitTimer = Timer.builder("auth.hashing.wait")
+            .description("Time spent queued before hashing started")
+            .register(meterRegistry);
+        rejected = Counter.builder("auth.hashing.rejected")
+            .description("Hash requests refused because the queue was full")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+    
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+    
+    /**
+     * True when the hash was made with a lower cost than the one now configured.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    /**
+     * Re-hashes a password at the current cost in the background and hands the new hash
+     * to {@code store}. Skipped when the executor is busy; the next login tries again.
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> store) {
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (Exception e) {
+                    log.warn("Password rehash failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Hashing executor busy, skipping password rehash");
+        }
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+    
+    private <T> T run(Callable<T> hash, Timer timer) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException(retryAfterSeconds);
+        }
+        
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+    
+    /**
+     * The hashing executor is saturated; the client should retry after {@link #getRetryAfterSeconds()}.
+     */
+    public static class BusyException extends RuntimeException {
+        private final int retryAfterSeconds;
+        
+        public BusyException(int retryAfterSeconds) {
+            super("Too many authentication requests, please retry shortly");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+        
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
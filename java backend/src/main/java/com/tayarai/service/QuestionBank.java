@@ -0,0 +1,155 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.Question;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of the interview question bank, indexed by (domain, level).
+ * A snapshot is never modified after construction; reloads build a new one and
+ * swap it in, so readers can hold on to a reference without locking.
+ * <p>
+ * A domain that is not in the bank falls back to the first bank domain it contains or is
+ * contained in, trying longer domains first and then in lexical order. Each name's result
+ * is remembered for the life of the snapshot.
+ */
+public final class QuestionBank {
+    
+    private static final QuestionBank EMPTY = new QuestionBank(Map.of(), 0L);
+    // Domain names are user input, so only this many fallbacks are remembered
+    private static final int MAX_ALIASES = 1024;
+    
+    private final Map<String, Map<String, Slot>> slots;
+    // Bank domains in fallback order: longest first, then lexical
+    private final String[] fallbackOrder;
+    // Requested domain name -> bank domain, or "" for none
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final long version;
+    private final Instant loadedAt;
+    private final int totalQuestions;
+    
+    QuestionBank(Map<String, Map<String, List<Question>>> questions, long version) {
+        Map<String, Map<String, Slot>> index = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Map<String, List<Question>>> domain : questions.entrySet()) {
+            Map<String, Slot> levels = new HashMap<>();
+            for (Map.Entry<String, List<Question>> level : domain.getValue().entrySet()) {
+                levels.put(level.getKey(), new Slot(level.getValue()));
+                total += level.getValue().size();
+            }
+            index.put(domain.getKey(), Map.copyOf(levels));
+        }
+        this.slots = Map.copyOf(index);
+        this.fallbackOrder = index.keySet().stream()
+            .sorted(Comparator.comparingInt(String::length).reversed().thenComparing(Comparator.naturalOrder()))
+            .toArray(String[]::new);
+        for (String domain : fallbackOrder) {
+            aliases.put(domain, domain);
+        }
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.totalQuestions = total;
+    }
+    
+    public static QuestionBank empty() {
+        return EMPTY;
+    }
+    
+    public List<Question> getQuestions(String domain, String level) {
+        Slot slot = slot(domain, level);
+        return slot != null ? slot.questions : Collections.emptyList();
+    }
+    
+    /**
+     * Question ids for a slot, aligned with {@link #getQuestions}.
+     */
+    public int[] getQuestionIds(String domain, String level) {
+        Slot slot = slot(domain, level);
+        return slot != null ? slot.ids : Slot.NO_IDS;
+    }
+    
+    /**
+     * The question's {@code keywords}, compiled when the bank was loaded.
+     */
+    public AhoCorasickMatcher getKeywordMatcher(String domain, String level, int questionId) {
+        Slot slot = slot(domain, level);
+        if (slot == null) {
+            return AhoCorasickMatcher.empty();
+        }
+        int position = slot.graph.indexOf(questionId);
+        return position != QuestionGraph.END ? slot.keywordMatchers[position] : AhoCorasickMatcher.empty();
+    }
+    
+    /**
+     * Compiled adaptive routing for a slot, or null if the bank has no such slot.
+     */
+    public QuestionGraph getGraph(String domain, String level) {
+        Slot slot = slot(domain, level);
+        return slot != null ? slot.graph : null;
+    }
+    
+    public Set<String> getDomains() {
+        return slots.keySet();
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+    
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+    
+    private Slot slot(String domain, String level) {
+        if (domain == null || level == null) {
+            return null;
+        }
+        Map<String, Slot> levels = slots.get(resolve(domain.toLowerCase()));
+        return levels != null ? levels.get(level.toLowerCase()) : null;
+    }
+    
+    private String resolve(String domainLower) {
+        String resolved = aliases.get(domainLower);
+        if (resolved != null) {
+            return resolved;
+        }
+        resolved = "";
+        // Same loose match as the Node service, e.g. "frontend developer" -> "frontend"
+        for (String candidate : fallbackOrder) {
+            if (domainLower.contains(candidate) || candidate.contains(domainLower)) {
+                resolved = candidate;
+                break;
+            }
+        }
+        if (aliases.size() < MAX_ALIASES) {
+            aliases.put(domainLower, resolved);
+        }
+        return resolved;
+    }
+    
+    private static final class Slot {
+        private static final int[] NO_IDS = new int[0];
+        
+        private final List<Question> questions;
+        private final int[] ids;
+        private final AhoCorasickMatcher[] keywordMatchers;
+        private final QuestionGraph graph;
+        
+        Slot(List<Question> questions) {
+            this.questions = questions;
+            this.ids = new int[questions.size()];
+            this.keywordMatchers = new AhoCorasickMatcher[questions.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Question question = questions.get(i);
+                ids[i] = question.id();
+                keywordMatchers[i] = AhoCorasickMatcher.of(question.keywords());
+            }
+            this.graph = new QuestionGraph(questions, ids);
+        }
+    }
+}
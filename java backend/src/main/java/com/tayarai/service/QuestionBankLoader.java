@@ -0,0 +1,147 @@
+package com.tayarai.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tayarai.dto.Question;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Reads interview-questions.json with the Jackson streaming parser straight into
+ * {@link Question} records, without building a tree or intermediate maps. Repeated
+ * strings such as shared low-knowledge phrases are stored once.
+ */
+public class QuestionBankLoader {
+    
+    private final JsonFactory jsonFactory = new JsonFactory();
+    
+    public Map<String, Map<String, List<Question>>> load(InputStream in) throws IOException {
+        Map<String, String> strings = new HashMap<>();
+        Map<String, Map<String, List<Question>>> domains = new HashMap<>();
+        
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String domain = parser.getCurrentName().toLowerCase();
+                expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+                
+                Map<String, List<Question>> levels = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String level = parser.getCurrentName().toLowerCase();
+                    expect(parser.nextToken(), JsonToken.START_ARRAY, parser);
+                    
+                    List<Question> questions = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        questions.add(readQuestion(parser, questions.size(), strings));
+                    }
+                    levels.put(level, List.copyOf(questions));
+                }
+                domains.put(domain, Map.copyOf(levels));
+            }
+        }
+        
+        return Map.copyOf(domains);
+    }
+    
+    private Question readQuestion(JsonParser parser, int position, Map<String, String> strings) throws IOException {
+        int id = position;
+        String text = null;
+        String expectedSummary = null;
+        List<String> keywords = List.of();
+        Map<String, Integer> routing = Map.of();
+        Integer defaultNext = null;
+        boolean hasDefaultNext = false;
+        List<String> lowKnowledgePhrases = List.of();
+        String reply = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getIntValue() >= 0) {
+                        id = parser.getIntValue();
+                    }
+                    parser.skipChildren();
+                }
+                case "question" -> text = readString(parser, value, strings);
+                case "expectedSummary" -> expectedSummary = readString(parser, value, strings);
+                case "keywords" -> keywords = readStrings(parser, value, strings);
+                // The legacy field names only count when the current ones are absent
+                case "routing", "routeKeywords" -> {
+                    Map<String, Integer> routes = readRouting(parser, value, strings);
+                    if (field.equals("routing") || routing.isEmpty()) {
+                        routing = routes;
+                    }
+                }
+                case "defaultNext", "defaultNextQuestionId" -> {
+                    Integer next = value == JsonToken.VALUE_NULL ? Integer.valueOf(Question.END)
+                        : value == JsonToken.VALUE_NUMBER_INT ? Integer.valueOf(parser.getIntValue()) : null;
+                    parser.skipChildren();
+                    if (field.equals("defaultNext")) {
+                        defaultNext = next;
+                        hasDefaultNext = true;
+                    } else if (!hasDefaultNext) {
+                        defaultNext = next;
+                    }
+                }
+                case "lowKnowledgePhrases" -> lowKnowledgePhrases = readStrings(parser, value, strings);
+                case "systemReplyOnLowKnowledge" -> reply = readString(parser, value, strings);
+                default -> parser.skipChildren();
+            }
+        }
+        
+        return new Question(id, text, expectedSummary, keywords, routing, defaultNext, lowKnowledgePhrases, reply);
+    }
+    
+    private static String readString(JsonParser parser, JsonToken value, Map<String, String> strings) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return strings.computeIfAbsent(parser.getText(), s -> s);
+        }
+        parser.skipChildren();
+        return null;
+    }
+    
+    private static List<String> readStrings(JsonParser parser, JsonToken value, Map<String, String> strings) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String text = readString(parser, token, strings);
+            if (text != null) {
+                result.add(text);
+            }
+        }
+        return List.copyOf(result);
+    }
+    
+    private static Map<String, Integer> readRouting(JsonParser parser, JsonToken value, Map<String, String> strings) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Map.of();
+        }
+        Map<String, Integer> routes = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String keyword = strings.computeIfAbsent(parser.getCurrentName(), s -> s);
+            if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                routes.put(keyword, parser.getIntValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return Collections.unmodifiableMap(routes);
+    }
+    
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser parser) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual
+                + " at " + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.Question;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the current {@link QuestionBank} snapshot. The bank is loaded once at startup
+ * and, when an external file is configured, reloaded whenever that file changes.
+ * A reload builds a complete new snapshot before publishing it through a volatile
+ * write, so readers always see either the old bank or the new one.
+ * <p>
+ * When {@code interview.questions.snapshot} is set, every successful parse is also
+ * written there in the binary {@link QuestionBankSnapshot} format, and startup reads
+ * that file instead of parsing the JSON as long as it is not older than the source.
+ */
+@Service
+public class QuestionBankService {
+    
+    private static final Logger log = LoggerFactory.getLogger(QuestionBankService.class);
+    private static final String CLASSPATH_LOCATION = "data/interview-questions.json";
+    private static final long RELOAD_DEBOUNCE_MS = 250;
+    
+    private final QuestionBankLoader loader = new QuestionBankLoader();
+    private final AtomicLong versions = new AtomicLong();
+    
+    @Value("${interview.questions.path:}")
+    private String questionsPath;
+    
+    @Value("${interview.questions.snapshot:}")
+    private String snapshotPath;
+    
+    @Value("${interview.questions.watch:true}")
+    private boolean watchEnabled;
+    
+    private volatile QuestionBank current = QuestionBank.empty();
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watcherThread;
+    
+    @PostConstruct
+    public void init() {
+        if (!loadSnapshot()) {
+            reload();
+        }
+        if (watchEnabled && hasExternalFile()) {
+            startWatcher(Paths.get(questionsPath).toAbsolutePath());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // closing on shutdown
+            }
+        }
+    }
+    
+    public QuestionBank getBank() {
+        return current;
+    }
+    
+    /**
+     * Rebuilds the bank from its source and swaps it in. On failure the previous
+     * snapshot stays active.
+     */
+    public synchronized boolean reload() {
+        try (InputStream in = openSource()) {
+            if (in == null) {
+                log.warn("interview-questions.json not found. Please copy from Node.js backend.");
+                return false;
+            }
+            Map<String, Map<String, List<Question>>> domains = loader.load(in);
+            QuestionBank bank = new QuestionBank(domains, versions.incrementAndGet());
+            current = bank;
+            log.info("Loaded question bank v{} with {} questions", bank.getVersion(), bank.getTotalQuestions());
+            writeSnapshot(domains);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to load question bank, keeping v{}: {}", current.getVersion(), e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean hasExternalFile() {
+        return questionsPath != null && !questionsPath.isBlank();
+    }
+    
+    private InputStream openSource() throws IOException {
+        if (hasExternalFile()) {
+            Path path = Paths.get(questionsPath);
+            return Files.exists(path) ? Files.newInputStream(path) : null;
+        }
+        ClassPathResource resource = new ClassPathResource(CLASSPATH_LOCATION);
+        return resource.exists() ? resource.getInputStream() : null;
+    }
+    
+    /**
+     * Publishes the binary snapshot if one is configured and at least as new as the JSON.
+     */
+    private boolean loadSnapshot() {
+        if (!hasSnapshot()) {
+            return false;
+        }
+        Path snapshot = Paths.get(snapshotPath);
+        try {
+            if (!Files.exists(snapshot)) {
+                return false;
+            }
+            long sourceModified = sourceLastModified();
+            if (sourceModified > Files.getLastModifiedTime(snapshot).toMillis()) {
+                log.info("Question bank snapshot {} is older than its source, parsing JSON instead", snapshot);
+                return false;
+            }
+            QuestionBank bank = new QuestionBank(QuestionBankSnapshot.read(snapshot), versions.incrementAndGet());
+            current = bank;
+            log.info("Loaded question bank v{} with {} questions from snapshot {}",
+                bank.getVersion(), bank.getTotalQuestions(), snapshot);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring question bank snapshot {}: {}", snapshot, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void writeSnapshot(Map<String, Map<String, List<Question>>> domains) {
+        if (!hasSnapshot()) {
+            return;
+        }
+        try {
+            QuestionBankSnapshot.write(domains, Paths.get(snapshotPath));
+        } catch (IOException e) {
+            log.warn("Could not write question bank snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+    
+    private boolean hasSnapshot() {
+        return snapshotPath != null && !snapshotPath.isBlank();
+    }
+    
+    /**
+     * Last modification time of the JSON source in millis, 0 if it is missing and
+     * {@link Long#MAX_VALUE} if it cannot be determined (so the JSON wins).
+     */
+    private long sourceLastModified() {
+        try {
+            if (hasExternalFile()) {
+                Path path = Paths.get(questionsPath);
+                return Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : 0L;
+            }
+            ClassPathResource resource = new ClassPathResource(CLASSPATH_LOCATION);
+            return resource.exists() ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    private void startWatcher(Path file) {
+        Path dir = file.getParent();
+        if (dir == null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("Could not watch {} for question bank changes: {}", dir, e.getMessage());
+            return;
+        }
+        
+        running = true;
+        watcherThread = new Thread(() -> watchLoop(file), "question-bank-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("Watching {} for question bank changes", file);
+    }
+    
+    private void watchLoop(Path file) {
+        Path fileName = file.getFileName();
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            key.reset();
+            
+            if (changed) {
+                try {
+                    // Editors and deploy scripts often write in several steps
+                    Thread.sleep(RELOAD_DEBOUNCE_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                drainPendingEvents();
+                reload();
+            }
+        }
+    }
+    
+    private void drainPendingEvents() {
+        WatchKey pending;
+        while ((pending = watchService.poll()) != null) {
+            pending.pollEvents();
+            pending.reset();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.Question;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Compact binary form of the question bank. All strings are written once into a
+ * table and questions refer to them by index, so a snapshot is much smaller than
+ * the JSON and reading it is a sequence of fixed-width reads instead of parsing text.
+ * <p>
+ * The questions still end up on the heap: {@link QuestionBank} compiles every slot when
+ * it is built, so {@link #read} rebuilds the whole bank in one pass over the file.
+ */
+public final class QuestionBankSnapshot {
+    
+    private static final int MAGIC = 0x54515342; // "TQSB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL = -1;
+    // Smallest encoding of one question: eight ints, with no keywords, routes or phrases
+    private static final int MIN_QUESTION_BYTES = 8 * Integer.BYTES;
+    
+    private QuestionBankSnapshot() {
+    }
+    
+    /**
+     * Writes the bank to {@code target} through a temporary file, so readers never see
+     * a partially written snapshot.
+     */
+    public static void write(Map<String, Map<String, List<Question>>> domains, Path target) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        
+        out.writeInt(domains.size());
+        for (Map.Entry<String, Map<String, List<Question>>> domain : domains.entrySet()) {
+            out.writeInt(strings.indexOf(domain.getKey()));
+            out.writeInt(domain.getValue().size());
+            for (Map.Entry<String, List<Question>> level : domain.getValue().entrySet()) {
+                out.writeInt(strings.indexOf(level.getKey()));
+                out.writeInt(level.getValue().size());
+                for (Question question : level.getValue()) {
+                    writeQuestion(out, question, strings);
+                }
+            }
+        }
+        out.flush();
+        
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            file.writeInt(MAGIC);
+            file.writeInt(FORMAT_VERSION);
+            strings.writeTo(file);
+            body.writeTo(file);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public static Map<String, Map<String, List<Question>>> read(Path source) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(source));
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a question bank snapshot (or an older format): " + source);
+            }
+            
+            String[] strings = new String[count(buffer, Integer.BYTES)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[count(buffer, 1)];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            
+            int domainCount = count(buffer, 2 * Integer.BYTES);
+            Map<String, Map<String, List<Question>>> domains = new HashMap<>(domainCount * 2);
+            for (int d = 0; d < domainCount; d++) {
+                String domain = strings[buffer.getInt()];
+                int levelCount = count(buffer, 2 * Integer.BYTES);
+                Map<String, List<Question>> levels = new HashMap<>(levelCount * 2);
+                for (int l = 0; l < levelCount; l++) {
+                    String level = strings[buffer.getInt()];
+                    Question[] questions = new Question[count(buffer, MIN_QUESTION_BYTES)];
+                    for (int q = 0; q < questions.length; q++) {
+                        questions[q] = readQuestion(buffer, strings);
+                    }
+                    levels.put(level, List.of(questions));
+                }
+                domains.put(domain, Map.copyOf(levels));
+            }
+            return Map.copyOf(domains);
+        } catch (RuntimeException e) {
+            throw new IOException("Truncated or corrupt question bank snapshot: " + source, e);
+        }
+    }
+    
+    // A count read from the file, checked against what is left of it before anything is
+    // allocated for it, so a corrupt count fails here instead of as a huge allocation
+    private static int count(ByteBuffer buffer, int minBytesEach) {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minBytesEach > buffer.remaining()) {
+            throw new IllegalStateException("count " + count + " does not fit in the "
+                + buffer.remaining() + " bytes left");
+        }
+        return count;
+    }
+    
+    private static void writeQuestion(DataOutputStream out, Question question, StringTable strings) throws IOException {
+        out.writeInt(question.id());
+        out.writeInt(strings.indexOf(question.question()));
+        out.writeInt(strings.indexOf(question.expectedSummary()));
+        writeStrings(out, question.keywords(), strings);
+        out.writeInt(question.routing().size());
+        for (Map.Entry<String, Integer> route : question.routing().entrySet()) {
+            out.writeInt(strings.indexOf(route.getKey()));
+            out.writeInt(route.getValue());
+        }
+        // Integer.MIN_VALUE marks "not set", which differs from END (an explicit null)
+        out.writeInt(question.defaultNext() != null ? question.defaultNext() : Integer.MIN_VALUE);
+        writeStrings(out, question.lowKnowledgePhrases(), strings);
+        out.writeInt(strings.indexOf(question.systemReplyOnLowKnowledge()));
+    }
+    
+    private static Question readQuestion(ByteBuffer buffer, String[] strings) {
+        int id = buffer.getInt();
+        String text = string(strings, buffer.getInt());
+        String expectedSummary = string(strings, buffer.getInt());
+        List<String> keywords = readStrings(buffer, strings);
+        
+        int routeCount = count(buffer, 2 * Integer.BYTES);
+        Map<String, Integer> routing = Map.of();
+        if (routeCount > 0) {
+            Map<String, Integer> routes = new LinkedHashMap<>(routeCount * 2);
+            for (int i = 0; i < routeCount; i++) {
+                routes.put(strings[buffer.getInt()], buffer.getInt());
+            }
+            routing = Collections.unmodifiableMap(routes);
+        }
+        
+        int next = buffer.getInt();
+        Integer defaultNext = next != Integer.MIN_VALUE ? next : null;
+        List<String> lowKnowledgePhrases = readStrings(buffer, strings);
+        String reply = string(strings, buffer.getInt());
+        return new Question(id, text, expectedSummary, keywords, routing, defaultNext, lowKnowledgePhrases, reply);
+    }
+    
+    private static void writeStrings(DataOutputStream out, List<String> values, StringTable strings) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(strings.indexOf(value));
+        }
+    }
+    
+    private static List<String> readStrings(ByteBuffer buffer, String[] strings) {
+        int count = count(buffer, Integer.BYTES);
+        if (count == 0) {
+            return List.of();
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = strings[buffer.getInt()];
+        }
+        return List.of(values);
+    }
+    
+    private static String string(String[] strings, int index) {
+        return index == NULL ? null : strings[index];
+    }
+    
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        
+        int indexOf(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+        
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.Question;
+import java.util.*;
+
+/**
+ * Adaptive routing for one (domain, level) of the question bank, compiled into
+ * int-indexed arrays. Questions are addressed by their position in the slot;
+ * {@code routing}, {@code defaultNext}, {@code lowKnowledgePhrases} and
+ * {@code systemReplyOnLowKnowledge} are resolved once at load time so that
+ * picking the next question is one scan of the answer plus array lookups.
+ * <p>
+ * Resolution follows the Node interview service: a low-knowledge answer (when the
+ * question has a reply for it) goes to {@code defaultNext} or ends; otherwise the
+ * first routing keyword found wins; otherwise {@code defaultNext}, where an explicit
+ * null ends the interview; otherwise the next question in file order.
+ */
+public final class QuestionGraph {
+    
+    public static final int END = -1;
+    
+    private final List<Question> questions;
+    private final int[] ids;
+    private final Map<Integer, Integer> indexById;
+    
+    private final AhoCorasickMatcher[] routeMatchers;
+    private final int[][] routeTargets;
+    private final int[] fallbackNext;
+    private final AhoCorasickMatcher[] lowKnowledgeMatchers;
+    private final int[] lowKnowledgeNext;
+    private final String[] lowKnowledgeReplies;
+    
+    QuestionGraph(List<Question> questions, int[] ids) {
+        int n = questions.size();
+        this.questions = questions;
+        this.ids = ids;
+        
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.putIfAbsent(ids[i], i);
+        }
+        this.indexById = Map.copyOf(index);
+        
+        this.routeMatchers = new AhoCorasickMatcher[n];
+        this.routeTargets = new int[n][];
+        this.fallbackNext = new int[n];
+        this.lowKnowledgeMatchers = new AhoCorasickMatcher[n];
+        this.lowKnowledgeNext = new int[n];
+        this.lowKnowledgeReplies = new String[n];
+        
+        for (int i = 0; i < n; i++) {
+            Question question = questions.get(i);
+            compileRouting(i, question);
+            
+            int sequential = i + 1 < n ? i + 1 : END;
+            Integer defaultNext = resolveDefaultNext(question);
+            fallbackNext[i] = defaultNext != null ? defaultNext : sequential;
+            lowKnowledgeNext[i] = defaultNext != null ? defaultNext : END;
+            
+            String reply = question.systemReplyOnLowKnowledge();
+            lowKnowledgeReplies[i] = reply != null && !reply.isBlank() ? reply : null;
+            lowKnowledgeMatchers[i] = compileLowKnowledge(question.lowKnowledgePhrases());
+        }
+    }
+    
+    public int size() {
+        return questions.size();
+    }
+    
+    /**
+     * Position of a question id in this slot, or {@link #END} if it is not part of it.
+     */
+    public int indexOf(int questionId) {
+        Integer index = indexById.get(questionId);
+        return index != null ? index : END;
+    }
+    
+    public int questionId(int index) {
+        return ids[index];
+    }
+    
+    public Question question(int index) {
+        return questions.get(index);
+    }
+    
+    public boolean isLowKnowledge(int index, CharSequence answer) {
+        return lowKnowledgeReplies[index] != null && lowKnowledgeMatchers[index].matchesAny(answer);
+    }
+    
+    public String lowKnowledgeReply(int index) {
+        return lowKnowledgeReplies[index];
+    }
+    
+    /**
+     * Next question position for an answer to the question at {@code index}, or {@link #END}.
+     */
+    public int next(int index, CharSequence answer, boolean lowKnowledge) {
+        if (lowKnowledge) {
+            return lowKnowledgeNext[index];
+        }
+        int route = routeMatchers[index].firstMatch(answer);
+        return route >= 0 ? routeTargets[index][route] : fallbackNext[index];
+    }
+    
+    /**
+     * Where the question goes when the answer is not routed, ignoring the keywords.
+     */
+    public int fallbackNext(int index) {
+        return fallbackNext[index];
+    }
+    
+    private void compileRouting(int i, Question question) {
+        AhoCorasickMatcher.Builder builder = new AhoCorasickMatcher.Builder();
+        List<Integer> targets = new ArrayList<>();
+        for (Map.Entry<String, Integer> route : question.routing().entrySet()) {
+            int target = indexOf(route.getValue());
+            // Routes to questions outside this slot can never be followed
+            if (target != END && !route.getKey().isBlank()) {
+                builder.add(route.getKey(), 0, false);
+                targets.add(target);
+            }
+        }
+        
+        routeMatchers[i] = builder.build();
+        routeTargets[i] = targets.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Returns the position of {@code defaultNext}, {@link #END} for an explicit null,
+     * or null when the question does not say (or points outside the slot).
+     */
+    private Integer resolveDefaultNext(Question question) {
+        Integer next = question.defaultNext();
+        if (next == null) {
+            return null;
+        }
+        if (next == Question.END) {
+            return END;
+        }
+        int target = indexOf(next);
+        return target != END ? target : null;
+    }
+    
+    private static AhoCorasickMatcher compileLowKnowledge(List<String> phrases) {
+        if (phrases.isEmpty()) {
+            return AhoCorasickMatcher.empty();
+        }
+        AhoCorasickMatcher.Builder builder = new AhoCorasickMatcher.Builder();
+        for (String phrase : phrases) {
+            String text = phrase.trim();
+            // Single words must stand alone ("sorry" but not "sorrynotsorry"); phrases match anywhere
+            builder.add(text, 0, !text.contains(" "));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.tayarai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which question ids each user has already been asked, as one bitset
+ * per (domain, level). Only the most recently active users are kept.
+ */
+@Service
+public class QuestionHistoryService {
+    
+    private final Map<Integer, Map<String, BitSet>> histories;
+    
+    public QuestionHistoryService(@Value("${interview.history.max-users:50000}") int maxUsers) {
+        this.histories = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, BitSet>> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+    
+    /**
+     * Returns a copy of the ids the user has seen for this slot, or null if none.
+     */
+    public BitSet getSeen(Integer userId, String domain, String level) {
+        if (userId == null) {
+            return null;
+        }
+        synchronized (histories) {
+            Map<String, BitSet> slots = histories.get(userId);
+            BitSet seen = slots != null ? slots.get(slotKey(domain, level)) : null;
+            return seen != null ? (BitSet) seen.clone() : null;
+        }
+    }
+    
+    /**
+     * Marks ids as seen. Once every question in the slot has been asked the history
+     * for that slot starts over.
+     */
+    public void markSeen(Integer userId, String domain, String level, int[] questionIds, int slotSize) {
+        if (userId == null || questionIds.length == 0) {
+            return;
+        }
+        synchronized (histories) {
+            BitSet seen = histories.computeIfAbsent(userId, id -> new HashMap<>())
+                .computeIfAbsent(slotKey(domain, level), key -> new BitSet());
+            for (int id : questionIds) {
+                seen.set(id);
+            }
+            if (seen.cardinality() >= slotSize) {
+                seen.clear();
+                for (int id : questionIds) {
+                    seen.set(id);
+                }
+            }
+        }
+    }
+    
+    public void clear(Integer userId) {
+        synchronized (histories) {
+            histories.remove(userId);
+        }
+    }
+    
+    private static String slotKey(String domain, String level) {
+        return domain.toLowerCase() + '/' + level.toLowerCase();
+    }
+}
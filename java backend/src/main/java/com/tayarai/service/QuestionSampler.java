@@ -0,0 +1,111 @@
+package com.tayarai.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws k distinct positions out of n without touching the source list.
+ * Uses a partial Fisher-Yates shuffle over a per-thread identity array and
+ * undoes its swaps afterwards, so each draw costs O(k) steps and allocates
+ * only the result array.
+ */
+@Component
+public class QuestionSampler {
+    
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    
+    public int[] sample(int n, int k, Long seed) {
+        return sample(n, k, seed, null, null);
+    }
+    
+    /**
+     * Samples up to k positions, preferring those whose id is not set in {@code seen}.
+     * Seen positions are only used to fill up when fewer than k unseen ones remain.
+     *
+     * @param ids  question id per position, used to look up {@code seen}; null means position == id
+     * @param seen ids already asked to this user, or null
+     */
+    public int[] sample(int n, int k, Long seed, int[] ids, BitSet seen) {
+        int take = Math.min(k, n);
+        if (take <= 0) {
+            return new int[0];
+        }
+        
+        RandomGenerator random = seed != null ? new SplittableRandom(seed) : ThreadLocalRandom.current();
+        Scratch scratch = SCRATCH.get();
+        int[] perm = scratch.identity(n);
+        int[] swaps = scratch.swaps(n);
+        
+        int[] result = new int[take];
+        int accepted = 0;
+        int[] fallback = seen != null ? scratch.fallback(take) : null;
+        int fallbackCount = 0;
+        int steps = 0;
+        
+        while (accepted < take && steps < n) {
+            int j = steps + random.nextInt(n - steps);
+            int picked = perm[j];
+            perm[j] = perm[steps];
+            perm[steps] = picked;
+            swaps[steps] = j;
+            steps++;
+            
+            if (seen != null && seen.get(ids != null ? ids[picked] : picked)) {
+                if (fallbackCount < take) {
+                    fallback[fallbackCount++] = picked;
+                }
+            } else {
+                result[accepted++] = picked;
+            }
+        }
+        
+        for (int i = 0; accepted < take && i < fallbackCount; i++) {
+            result[accepted++] = fallback[i];
+        }
+        
+        // Restore the identity permutation for the next caller on this thread
+        for (int i = steps - 1; i >= 0; i--) {
+            int j = swaps[i];
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+        }
+        
+        return result;
+    }
+    
+    private static final class Scratch {
+        private int[] identity = new int[0];
+        private int[] swaps = new int[0];
+        private int[] fallback = new int[0];
+        
+        int[] identity(int n) {
+            if (identity.length < n) {
+                int[] grown = new int[Math.max(n, identity.length * 2)];
+                for (int i = 0; i < grown.length; i++) {
+                    grown[i] = i;
+                }
+                identity = grown;
+            }
+            return identity;
+        }
+        
+        int[] swaps(int n) {
+            if (swaps.length < n) {
+                swaps = new int[Math.max(n, swaps.length * 2)];
+            }
+            return swaps;
+        }
+        
+        int[] fallback(int k) {
+            if (fallback.length < k) {
+                fallback = new int[Math.max(k, fallback.length * 2)];
+            }
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tayarai.service;
+
+import java.util.Locale;
+
+/**
+ * Languages the code sandbox runs, with the file a submission is written to and how
+ * much resident memory the runtime itself may use on top of the challenge's limit.
+ */
+public enum SandboxLanguage {
+    PYTHON("main.py", 16),
+    // .cjs so Node never treats the submission as an ES module
+    JAVASCRIPT("main.cjs", 48),
+    // The limit applies to the heap (-Xmx); the JVM's own footprint comes on top
+    JAVA(null, 96);
+    
+    private final String entryFile;
+    private final int runtimeOverheadMb;
+    
+    SandboxLanguage(String entryFile, int runtimeOverheadMb) {
+        this.entryFile = entryFile;
+        this.runtimeOverheadMb = runtimeOverheadMb;
+    }
+    
+    public String getEntryFile() {
+        return entryFile;
+    }
+    
+    public int getRuntimeOverheadMb() {
+        return runtimeOverheadMb;
+    }
+    
+    /**
+     * The language for a name the frontend or Node.js backend uses, or null.
+     */
+    public static SandboxLanguage of(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "python", "py" -> PYTHON;
+            case "javascript", "js" -> JAVASCRIPT;
+            case "java" -> JAVA;
+            default -> null;
+        };
+    }
+}
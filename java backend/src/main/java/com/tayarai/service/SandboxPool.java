@@ -0,0 +1,479 @@
+package com.tayarai.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a few pre-started workers per (language, memory limit) so a run does not pay
+ * for starting Python, Node.js or a JVM, and bounds how many programs run at once.
+ * Workers are single-use: each one handed out is replaced in the background.
+ * <p>
+ * Every worker runs in its own directory under {@code code.sandbox.root}, with an empty
+ * environment and under {@code prlimit} (CPU seconds, file size, open files, processes,
+ * no core dumps). With {@code code.sandbox.isolation} on, as it is by default, it also
+ * runs in new PID, network, mount, IPC and UTS namespaces ({@code unshare}) as a uid of
+ * its own ({@code setpriv}), taken from {@code code.sandbox.uid-base} onwards. It then
+ * cannot reach the network, see the backend's processes and their environment, read
+ * files only the backend's user may read, or touch another worker's files, and its
+ * process limit is its own. Killing the worker's process takes the whole namespace with
+ * it, including processes forked after the kill started.
+ * <p>
+ * This needs root or CAP_SYS_ADMIN, CAP_SETUID, CAP_SETGID and CAP_CHOWN. If isolation is
+ * on but cannot be set up, an error is logged and no code runs at all rather than running
+ * unconfined; turning it off is for development only and is logged as an error too.
+ * {@code code.sandbox.wrapper} can prefix every worker with further confinement.
+ */
+@Component
+public class SandboxPool {
+    
+    private static final Logger log = LoggerFactory.getLogger(SandboxPool.class);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${code.sandbox.root:${java.io.tmpdir}/tayarai-sandbox}")
+    private String root;
+    
+    @Value("${code.sandbox.python:python3}")
+    private String python;
+    
+    @Value("${code.sandbox.node:node}")
+    private String node;
+    
+    // Empty means the JVM this backend runs on
+    @Value("${code.sandbox.java:}")
+    private String java;
+    
+    @Value("${code.sandbox.prlimit:prlimit}")
+    private String prlimit;
+    
+    @Value("${code.sandbox.wrapper:}")
+    private String wrapper;
+    
+    @Value("${code.sandbox.isolation:true}")
+    private boolean isolation;
+    
+    @Value("${code.sandbox.unshare:unshare}")
+    private String unshare;
+    
+    @Value("${code.sandbox.setpriv:setpriv}")
+    private String setpriv;
+    
+    // Each live worker holds one uid (and the gid with the same number) from this range
+    @Value("${code.sandbox.uid-base:200000}")
+    private int uidBase;
+    
+    @Value("${code.sandbox.uid-count:256}")
+    private int uidCount;
+    
+    // Processes and threads per worker; a JVM alone starts a couple of dozen threads
+    @Value("${code.sandbox.max-processes:64}")
+    private int maxProcesses;
+    
+    @Value("${code.sandbox.warm-workers:2}")
+    private int warmWorkers;
+    
+    @Value("${code.sandbox.max-pools:8}")
+    private int maxPools;
+    
+    @Value("${code.sandbox.max-concurrent:0}")
+    private int maxConcurrent;
+    
+    @Value("${code.sandbox.queue-timeout-ms:10000}")
+    private long queueTimeoutMs;
+    
+    @Value("${code.sandbox.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+    
+    // Backstop for a worker the wall-clock checks lost track of; a batch of test cases shares it
+    @Value("${code.sandbox.max-cpu-seconds:300}")
+    private int maxCpuSeconds;
+    
+    @Value("${code.sandbox.max-output-bytes:1048576}")
+    private long maxOutputBytes;
+    
+    @Value("${code.sandbox.default-memory-mb:128}")
+    private int defaultMemoryMb;
+    
+    private Path rootDir;
+    private Path runtimeDir;
+    // Handed out oldest first, so a uid is only reused long after its last worker was killed
+    private final BlockingQueue<Integer> freeUids = new LinkedBlockingQueue<>();
+    private volatile boolean unavailable;
+    private Semaphore running;
+    private ExecutorService spawner;
+    private ExecutorService io;
+    private final Map<PoolKey, BlockingQueue<SandboxWorker>> idle = new ConcurrentHashMap<>();
+    private Counter warmStarts;
+    private Counter coldStarts;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        rootDir = Paths.get(root).toAbsolutePath();
+        deleteTree(rootDir);
+        Files.createDirectories(rootDir);
+        // Workers may pass through to their own directory and the runtime, but not list the others
+        Files.setPosixFilePermissions(rootDir, PosixFilePermissions.fromString("rwx--x--x"));
+        runtimeDir = Files.createDirectories(rootDir.resolve("runtime"));
+        Files.setPosixFilePermissions(runtimeDir, PosixFilePermissions.fromString("rwxr-xr-x"));
+        extract("sandbox/bootstrap.py");
+        extract("sandbox/bootstrap.cjs");
+        compileLauncher(extract("sandbox/SandboxLauncher.java"));
+        
+        if (isolation) {
+            for (int i = 0; i < uidCount; i++) {
+                freeUids.add(uidBase + i);
+            }
+            String problem = checkIsolation();
+            if (problem != null) {
+                unavailable = true;
+                log.error("Sandbox isolation is not available ({}); code execution is disabled instead of running "
+                    + "submitted code unconfined. Run the backend as root or with CAP_SYS_ADMIN, CAP_SETUID, CAP_SETGID "
+                    + "and CAP_CHOWN, or set code.sandbox.isolation=false on a development machine", problem);
+            }
+        } else {
+            log.error("code.sandbox.isolation is off: submitted code runs as the backend's own user, with its network "
+                + "and its files. Do not run like this outside development");
+        }
+        
+        running = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors());
+        spawner = Executors.newSingleThreadExecutor(daemon("sandbox-spawner"));
+        io = Executors.newCachedThreadPool(daemon("sandbox-io"));
+        warmStarts = Counter.builder("code.sandbox.starts").tag("worker", "warm").register(meterRegistry);
+        coldStarts = Counter.builder("code.sandbox.starts").tag("worker", "cold").register(meterRegistry);
+        
+        if (!unavailable) {
+            for (SandboxLanguage language : SandboxLanguage.values()) {
+                replenish(new PoolKey(language, defaultMemoryMb));
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        spawner.shutdownNow();
+        io.shutdownNow();
+        idle.values().forEach(queue -> queue.forEach(SandboxWorker::destroy));
+        deleteTree(rootDir);
+    }
+    
+    /**
+     * A worker ready to run one program; always hand it back through {@link #release}.
+     * Waits up to {@code queue-timeout-ms} for a free slot, then gives up with a
+     * {@link BusyException}.
+     */
+    public SandboxWorker acquire(SandboxLanguage language, int memoryLimitMb) {
+        checkAvailable();
+        try {
+            if (!running.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new BusyException(retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException(retryAfterSeconds);
+        }
+        return take(language, memoryLimitMb);
+    }
+    
+    /**
+     * Like {@link #acquire}, but null at once if every slot is busy; for extra parallelism
+     * a caller can do without.
+     */
+    public SandboxWorker tryAcquire(SandboxLanguage language, int memoryLimitMb) {
+        checkAvailable();
+        return running.tryAcquire() ? take(language, memoryLimitMb) : null;
+    }
+    
+    public void release(SandboxWorker worker) {
+        try {
+            worker.destroy();
+        } finally {
+            running.release();
+        }
+    }
+    
+    private void checkAvailable() {
+        if (unavailable) {
+            throw new RuntimeException("Code execution is unavailable: the sandbox could not be isolated");
+        }
+    }
+    
+    /**
+     * CPU seconds one worker process may use in total, across every test case it runs.
+     */
+    public int getMaxCpuSeconds() {
+        return maxCpuSeconds;
+    }
+    
+    // Caller holds a slot, which is given back if no worker can be had
+    private SandboxWorker take(SandboxLanguage language, int memoryLimitMb) {
+        try {
+            PoolKey key = new PoolKey(language, memoryLimitMb);
+            BlockingQueue<SandboxWorker> queue = queue(key);
+            SandboxWorker worker = queue != null ? queue.poll() : null;
+            while (worker != null && !worker.isAlive()) {
+                worker.destroy();
+                worker = queue.poll();
+            }
+            if (worker != null) {
+                warmStarts.increment();
+            } else {
+                coldStarts.increment();
+                worker = spawn(key);
+            }
+            replenish(key);
+            return worker;
+        } catch (RuntimeException e) {
+            running.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Thread pool for feeding program input, shared by all workers.
+     */
+    public ExecutorService io() {
+        return io;
+    }
+    
+    public Path getRuntimeDir() {
+        return runtimeDir;
+    }
+    
+    // Warm workers are only kept for the first max-pools (language, memory) combinations seen
+    private BlockingQueue<SandboxWorker> queue(PoolKey key) {
+        BlockingQueue<SandboxWorker> queue = idle.get(key);
+        if (queue == null && idle.size() < maxPools) {
+            queue = idle.computeIfAbsent(key, k -> new LinkedBlockingQueue<>());
+        }
+        return queue;
+    }
+    
+    private void replenish(PoolKey key) {
+        if (warmWorkers <= 0 || queue(key) == null) {
+            return;
+        }
+        spawner.execute(() -> {
+            BlockingQueue<SandboxWorker> queue = idle.get(key);
+            try {
+                while (queue.size() < warmWorkers) {
+                    queue.offer(spawn(key));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not pre-start a {} sandbox worker: {}", key.language(), e.getMessage());
+            }
+        });
+    }
+    
+    private SandboxWorker spawn(PoolKey key) {
+        Integer uid = null;
+        if (isolation) {
+            uid = freeUids.poll();
+            if (uid == null) {
+                throw new RuntimeException("Could not start a " + key.language() + " sandbox: every sandbox uid is in use");
+            }
+        }
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(rootDir, "w",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            if (uid != null) {
+                Files.setAttribute(dir, "unix:uid", uid);
+                Files.setAttribute(dir, "unix:gid", uid);
+            }
+            ProcessBuilder builder = new ProcessBuilder(command(key, uid))
+                .directory(dir.toFile())
+                .redirectOutput(dir.resolve("stdout").toFile())
+                .redirectError(dir.resolve("stderr").toFile());
+            Map<String, String> env = builder.environment();
+            env.clear();
+            env.put("PATH", "/usr/local/bin:/usr/bin:/bin");
+            env.put("HOME", dir.toString());
+            env.put("LANG", "C.UTF-8");
+            Integer owner = uid;
+            return new SandboxWorker(key.language(), key.memoryLimitMb(), builder.start(), dir,
+                owner != null ? () -> freeUids.offer(owner) : () -> { });
+        } catch (IOException e) {
+            if (dir != null) {
+                deleteTree(dir);
+            }
+            if (uid != null) {
+                freeUids.offer(uid);
+            }
+            throw new RuntimeException("Could not start a " + key.language() + " sandbox: " + e.getMessage(), e);
+        }
+    }
+    
+    private List<String> command(PoolKey key, Integer uid) {
+        List<String> command = confinement(uid);
+        if (!prlimit.isBlank()) {
+            command.add("--cpu=" + maxCpuSeconds);
+            command.add("--fsize=" + maxOutputBytes);
+            command.add("--nofile=256");
+            command.add("--core=0");
+            if (key.language() == SandboxLanguage.PYTHON) {
+                // Python fails allocations with MemoryError instead of being killed; the JVM and V8 reserve too much address space for this
+                long bytes = (long) (key.memoryLimitMb() + key.language().getRuntimeOverheadMb() + 64) * 1024 * 1024;
+                command.add("--as=" + bytes);
+            }
+            command.add("--");
+        }
+        switch (key.language()) {
+            case PYTHON -> command.addAll(List.of(python, "-I", runtimeDir.resolve("bootstrap.py").toString()));
+            case JAVASCRIPT -> command.addAll(List.of(node, "--max-old-space-size=" + key.memoryLimitMb(),
+                runtimeDir.resolve("bootstrap.cjs").toString()));
+            case JAVA -> command.addAll(List.of(javaExecutable(), "-Xmx" + key.memoryLimitMb() + "m", "-Xss64m",
+                "-XX:+UseSerialGC", "-XX:-UsePerfData", "-cp", runtimeDir.toString(), "SandboxLauncher"));
+        }
+        return command;
+    }
+    
+    /**
+     * The wrapper, namespaces and uid switch, and prlimit up to its per-language options:
+     * everything that goes before the runtime except those options and the "--" after them.
+     */
+    private List<String> confinement(Integer uid) {
+        List<String> command = new ArrayList<>();
+        if (!wrapper.isBlank()) {
+            command.addAll(Arrays.asList(wrapper.trim().split("\\s+")));
+        }
+        if (uid != null) {
+            // --fork makes the program PID 1 of the new namespace, so everything in it dies with it;
+            // --pdeathsig kills it when unshare is killed, which the uid switch would otherwise undo
+            command.addAll(List.of(unshare, "--pid", "--net", "--mount", "--ipc", "--uts", "--fork", "--mount-proc",
+                "--", setpriv, "--reuid=" + uid, "--regid=" + uid, "--clear-groups", "--no-new-privs",
+                "--pdeathsig=KILL", "--"));
+        }
+        if (!prlimit.isBlank()) {
+            command.add(prlimit);
+            if (uid != null) {
+                // Counted per uid, so only meaningful when the worker has one to itself
+                command.add("--nproc=" + maxProcesses);
+            }
+        }
+        return command;
+    }
+    
+    /**
+     * Runs {@code true} the way workers are started, as the first sandbox uid; null if
+     * that works, else what went wrong.
+     */
+    private String checkIsolation() {
+        if (prlimit.isBlank()) {
+            return "code.sandbox.prlimit is empty, so there is no process limit";
+        }
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(rootDir, "check");
+            Files.setAttribute(dir, "unix:uid", uidBase);
+            Files.setAttribute(dir, "unix:gid", uidBase);
+            List<String> command = confinement(uidBase);
+            command.addAll(List.of("--", "true"));
+            Process process = new ProcessBuilder(command).directory(dir.toFile())
+                .redirectErrorStream(true).redirectOutput(dir.resolve("output").toFile()).start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return "timed out";
+            }
+            if (process.exitValue() != 0) {
+                String output = Files.readString(dir.resolve("output")).trim();
+                return "exit code " + process.exitValue() + (output.isEmpty() ? "" : ": " + output);
+            }
+            return null;
+        } catch (IOException e) {
+            return e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } finally {
+            if (dir != null) {
+                deleteTree(dir);
+            }
+        }
+    }
+    
+    private String javaExecutable() {
+        return java.isBlank() ? Paths.get(System.getProperty("java.home"), "bin", "java").toString() : java;
+    }
+    
+    private Path extract(String resource) throws IOException {
+        Path target = runtimeDir.resolve(Paths.get(resource).getFileName().toString());
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+    
+    private void compileLauncher(Path source) {
+        javax.tools.JavaCompiler compiler = javax.tools.ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.warn("No Java compiler in this runtime (a JRE?); Java submissions cannot run");
+            return;
+        }
+        int status = compiler.run(null, null, null, "-d", runtimeDir.toString(), source.toString());
+        if (status != 0) {
+            log.warn("Could not compile the Java sandbox launcher; Java submissions cannot run");
+        }
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static void deleteTree(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not clean up {}: {}", dir, e.getMessage());
+        }
+    }
+    
+    private record PoolKey(SandboxLanguage language, int memoryLimitMb) {
+    }
+    
+    /**
+     * Every sandbox slot stayed busy for {@code queue-timeout-ms}; the caller should answer 429.
+     */
+    public static class BusyException extends RuntimeException {
+        private final int retryAfterSeconds;
+        
+        public BusyException(int retryAfterSeconds) {
+            super("Too many code executions in progress, please retry shortly");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+        
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.ExecutionResult;
+import com.tayarai.model.CodeSubmission;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * One pre-started runtime waiting in its own directory for a program to run. A worker
+ * runs exactly one program and is then destroyed together with its directory, so
+ * nothing a submission does can leak into the next one.
+ * <p>
+ * The program is started by writing its entry (file or main class) on stdin, followed
+ * by its input. While it runs the process tree is sampled from {@code /proc} to enforce
+ * the memory limit; the wall-clock limit is enforced here too. For a single run the
+ * bootstrap reports CPU time and peak RSS in {@code .usage} on exit (a killed program is
+ * measured from the samples instead); a batch of test cases is measured here only.
+ */
+public final class SandboxWorker {
+    
+    // Same cap the Node.js executor applies to what is returned and stored
+    public static final int MAX_OUTPUT_LENGTH = 10000;
+    public static final String MEMORY_LIMIT_EXCEEDED = "Memory limit exceeded";
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final Pattern REPORT = Pattern.compile("(\\d{1,9}) (\\d{1,3})\n");
+    
+    private final SandboxLanguage language;
+    private final int memoryLimitMb;
+    private final Process process;
+    private final Path dir;
+    private final Runnable onDestroy;
+    private final AtomicBoolean destroyed = new AtomicBoolean();
+    
+    SandboxWorker(SandboxLanguage language, int memoryLimitMb, Process process, Path dir, Runnable onDestroy) {
+        this.language = language;
+        this.memoryLimitMb = memoryLimitMb;
+        this.process = process;
+        this.dir = dir;
+        this.onDestroy = onDestroy;
+    }
+    
+    public SandboxLanguage getLanguage() {
+        return language;
+    }
+    
+    public int getMemoryLimitMb() {
+        return memoryLimitMb;
+    }
+    
+    /**
+     * Where the program's files go before {@link #run} is called.
+     */
+    public Path getDir() {
+        return dir;
+    }
+    
+    boolean isAlive() {
+        return process.isAlive();
+    }
+    
+    /**
+     * Runs the program and waits for it, for at most {@code timeLimitSeconds} of wall time.
+     */
+    public ExecutionResult run(String entry, String input, int timeLimitSeconds, long sampleMillis,
+                               ExecutorService io) {
+        long cpuBefore = cpuMillis();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(timeLimitSeconds);
+        long rssLimitKb = (long) (memoryLimitMb + language.getRuntimeOverheadMb()) * 1024;
+        
+        // Written from another thread: a program that never reads would otherwise block us on a full pipe
+        io.execute(() -> feed(entry, input));
+        
+        boolean timedOut = false;
+        boolean outOfMemory = false;
+        long peakKb = 0;
+        long cpuSampled = 0;
+        try {
+            while (!process.waitFor(sampleMillis, TimeUnit.MILLISECONDS)) {
+                long rssKb = sampleRssKb();
+                peakKb = Math.max(peakKb, rssKb);
+                cpuSampled = Math.max(cpuSampled, cpuMillis() - cpuBefore);
+                if (rssKb > rssLimitKb) {
+                    outOfMemory = true;
+                    break;
+                }
+                if (System.nanoTime() >= deadline) {
+                    timedOut = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        }
+        if (timedOut || outOfMemory) {
+            kill();
+            try {
+                process.waitFor(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        
+        long[] reported = readUsage();
+        Long cpu = reported != null ? Long.valueOf(Math.max(reported[0], cpuSampled)) : Long.valueOf(cpuSampled);
+        Long peak = reported != null ? Long.valueOf(Math.max(reported[1], peakKb)) : Long.valueOf(peakKb);
+        String stdout = readCapped(dir.resolve("stdout"));
+        String stderr = readCapped(dir.resolve("stderr"));
+        // Tracebacks name the entry file by its full path, which says nothing useful to the user
+        String combined = cap((stdout + stderr).replace(dir + "/", "").trim());
+        
+        if (timedOut) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.TIMEOUT, null,
+                "Execution timeout (maximum " + timeLimitSeconds + " seconds)", wallMillis, cpu, peak);
+        }
+        int exitCode = process.exitValue();
+        if (outOfMemory || (exitCode != 0 && isOutOfMemoryError(stderr))) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null,
+                MEMORY_LIMIT_EXCEEDED + " (maximum " + memoryLimitMb + " MB)", wallMillis, cpu, peak);
+        }
+        // Killed by the CPU-time or file-size rlimit (SIGXCPU / SIGXFSZ)
+        if (exitCode == 128 + 24) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.TIMEOUT, null,
+                "Execution timeout (CPU time limit reached)", wallMillis, cpu, peak);
+        }
+        if (exitCode == 128 + 25) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null,
+                "Output limit exceeded", wallMillis, cpu, peak);
+        }
+        if (exitCode != 0) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null,
+                combined.isEmpty() ? "Process exited with code " + exitCode : combined, wallMillis, cpu, peak);
+        }
+        return new ExecutionResult(CodeSubmission.SubmissionStatus.SUCCESS,
+            combined.isEmpty() ? "(No output)" : combined, null, wallMillis, cpu, peak);
+    }
+    
+    /**
+     * Runs the program once per input in this one process, reporting each case to the
+     * listener as soon as it finishes; the listener returns false to stop early. Each case
+     * gets {@code timeLimitSeconds} of wall time and the memory limit to itself. A case that
+     * is killed, or that ends the process (e.g. by calling exit), is reported from what the
+     * process left behind and ends the batch.
+     * <p>
+     * After each case the bootstrap waits to be told on stdin to go on, so each case's wall
+     * time, CPU time and peak RSS are measured here from {@code /proc} between the go-ahead
+     * and its line in {@code .progress}, while the process is still there. That file is writable by the program itself, so
+     * the line must be exactly "&lt;case&gt; &lt;exit code&gt;" for the case that was started;
+     * anything else fails that case and ends the batch.
+     *
+     * @return how many cases were reported; the caller may resume after them in a new worker
+     */
+    public int runBatch(String entry, List<String> inputs, int timeLimitSeconds, long sampleMillis,
+                        CaseListener listener) {
+        Path cases = dir.resolve("cases");
+        OutputStream control = process.getOutputStream();
+        try {
+            Files.createDirectories(cases);
+            handOver(cases);
+            for (int i = 0; i < inputs.size(); i++) {
+                String input = inputs.get(i);
+                Files.writeString(cases.resolve(i + ".in"), input != null ? input : "", StandardCharsets.UTF_8);
+            }
+            control.write(("batch " + inputs.size() + " " + entry + "\n").getBytes(StandardCharsets.UTF_8));
+            control.flush();
+        } catch (IOException e) {
+            closeQuietly(control);
+            throw new RuntimeException("Could not start test cases: " + e.getMessage(), e);
+        }
+        
+        Path progress = dir.resolve(".progress");
+        long progressOffset = 0;
+        long caseTimeoutNanos = TimeUnit.SECONDS.toNanos(timeLimitSeconds);
+        long rssLimitKb = (long) (memoryLimitMb + language.getRuntimeOverheadMb()) * 1024;
+        int reported = 0;
+        long caseStarted = System.nanoTime();
+        long cpuAtCaseStart = cpuMillis();
+        long peakKb = 0;
+        long wait = 1;
+        boolean timedOut = false;
+        boolean outOfMemory = false;
+        boolean invalidReport = false;
+        try {
+            while (reported < inputs.size()) {
+                boolean exited = process.waitFor(wait, TimeUnit.MILLISECONDS);
+                // Short cases are noticed within a few milliseconds, longer ones every sampleMillis
+                wait = Math.min(sampleMillis, wait * 2);
+                
+                // Complete lines only; a line being written is picked up on the next pass
+                String fresh = readFrom(progress, progressOffset);
+                int end = fresh.lastIndexOf('\n') + 1;
+                if (end > 0) {
+                    progressOffset += fresh.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+                    Integer exitCode = exitCode(fresh.substring(0, end), reported);
+                    if (exitCode == null) {
+                        invalidReport = true;
+                        break;
+                    }
+                    long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - caseStarted);
+                    long cpu = Math.max(0, cpuMillis() - cpuAtCaseStart);
+                    long peak = Math.max(peakKb, sampleHwmKb());
+                    ExecutionResult result = caseResult(reported, exitCode, wallMillis, cpu, peak);
+                    int index = reported++;
+                    if (reported < inputs.size()) {
+                        caseStarted = System.nanoTime();
+                        cpuAtCaseStart = cpuMillis();
+                        peakKb = 0;
+                        wait = 1;
+                        // A process that is gone by now is noticed on the next pass
+                        next(control);
+                    }
+                    if (!listener.onCase(index, result)) {
+                        return reported;
+                    }
+                    continue;
+                }
+                if (exited) {
+                    break;
+                }
+                
+                long rssKb = sampleRssKb();
+                peakKb = Math.max(peakKb, rssKb);
+                if (rssKb > rssLimitKb) {
+                    outOfMemory = true;
+                    break;
+                }
+                if (System.nanoTime() - caseStarted >= caseTimeoutNanos) {
+                    timedOut = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } finally {
+            closeQuietly(control);
+        }
+        if (reported >= inputs.size()) {
+            return reported;
+        }
+        
+        // The case in progress never reported: it was killed, it took the process down with it, or it forged its report
+        long cpu = Math.max(0, cpuMillis() - cpuAtCaseStart);
+        kill();
+        try {
+            process.waitFor(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - caseStarted);
+        ExecutionResult result;
+        if (invalidReport) {
+            result = new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null,
+                "Runtime error: the program interfered with the test runner", wallMillis, cpu, peakKb);
+        } else if (timedOut) {
+            result = new ExecutionResult(CodeSubmission.SubmissionStatus.TIMEOUT, null,
+                "Execution timeout (maximum " + timeLimitSeconds + " seconds)", wallMillis, cpu, peakKb);
+        } else if (outOfMemory) {
+            result = new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, null,
+                MEMORY_LIMIT_EXCEEDED + " (maximum " + memoryLimitMb + " MB)", wallMillis, cpu, peakKb);
+        } else {
+            result = caseResult(reported, process.exitValue(), wallMillis, cpu, peakKb);
+        }
+        listener.onCase(reported, result);
+        return reported + 1;
+    }
+    
+    // The exit code if the lines are exactly the bootstrap's one report for the case expected, else null
+    private static Integer exitCode(String lines, int expected) {
+        Matcher report = REPORT.matcher(lines);
+        if (!report.matches() || !report.group(1).equals(Integer.toString(expected))) {
+            return null;
+        }
+        int exitCode = Integer.parseInt(report.group(2));
+        return exitCode <= 255 ? exitCode : null;
+    }
+    
+    private static void next(OutputStream control) {
+        try {
+            control.write("next\n".getBytes(StandardCharsets.US_ASCII));
+            control.flush();
+        } catch (IOException e) {
+            // The process has exited
+        }
+    }
+    
+    private static void closeQuietly(OutputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // The process has exited
+        }
+    }
+    
+    private ExecutionResult caseResult(int index, int exitCode, long wallMillis, long cpuMillis, long peakKb) {
+        String stdout = readCapped(dir.resolve("cases").resolve(index + ".out"));
+        String stderr = readCapped(dir.resolve("cases").resolve(index + ".err"));
+        if (exitCode == 0) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.SUCCESS, cap(stdout), null,
+                wallMillis, cpuMillis, peakKb);
+        }
+        String error;
+        if (isOutOfMemoryError(stderr)) {
+            error = MEMORY_LIMIT_EXCEEDED + " (maximum " + memoryLimitMb + " MB)";
+        } else if (exitCode == 128 + 24) {
+            return new ExecutionResult(CodeSubmission.SubmissionStatus.TIMEOUT, cap(stdout),
+                "Execution timeout (CPU time limit reached)", wallMillis, cpuMillis, peakKb);
+        } else if (exitCode == 128 + 25) {
+            error = "Output limit exceeded";
+        } else {
+            String trimmed = cap(stderr.replace(dir + "/", "").trim());
+            error = trimmed.isEmpty() ? "Process exited with code " + exitCode : trimmed;
+        }
+        return new ExecutionResult(CodeSubmission.SubmissionStatus.ERROR, cap(stdout), error, wallMillis, cpuMillis, peakKb);
+    }
+    
+    private static String readFrom(Path file, long offset) {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long size = channel.size();
+            if (size <= offset) {
+                return "";
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - offset));
+            channel.position(offset);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Keep reading up to what was there when we looked
+            }
+            return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+    
+    /**
+     * Kills the process tree and removes the directory.
+     */
+    public void destroy() {
+        if (!destroyed.compareAndSet(false, true)) {
+            return;
+        }
+        kill();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Left for the next startup's cleanup of the sandbox root
+        }
+        onDestroy.run();
+    }
+    
+    // The program may write where the backend created a directory for it only if it owns it, as it does its own
+    private void handOver(Path path) throws IOException {
+        Object uid = Files.getAttribute(dir, "unix:uid");
+        if (!uid.equals(Files.getAttribute(path, "unix:uid"))) {
+            Files.setAttribute(path, "unix:uid", uid);
+            Files.setAttribute(path, "unix:gid", Files.getAttribute(dir, "unix:gid"));
+        }
+    }
+    
+    private void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+    
+    private void feed(String entry, String input) {
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write((entry + "\n").getBytes(StandardCharsets.UTF_8));
+            if (input != null && !input.isEmpty()) {
+                stdin.write(input.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // The program exited (or closed stdin) without reading all of its input
+        }
+    }
+    
+    private long sampleRssKb() {
+        long total = 0;
+        for (long pid : processTree()) {
+            total += statusField(pid, "VmRSS:");
+        }
+        return total;
+    }
+    
+    // Peak RSS since the bootstrap last reset it, as the kernel keeps it
+    private long sampleHwmKb() {
+        long total = 0;
+        for (long pid : processTree()) {
+            total += statusField(pid, "VmHWM:");
+        }
+        return total;
+    }
+    
+    private long cpuMillis() {
+        long ticks = 0;
+        for (long pid : processTree()) {
+            try {
+                String stat = Files.readString(Path.of("/proc", Long.toString(pid), "stat"));
+                // Fields after the command name, which may itself contain spaces
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                ticks += Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            } catch (IOException | RuntimeException e) {
+                // The process has just exited
+            }
+        }
+        return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+    }
+    
+    private List<Long> processTree() {
+        return Stream.concat(Stream.of(process.toHandle()), process.descendants())
+            .map(ProcessHandle::pid)
+            .toList();
+    }
+    
+    private static long statusField(long pid, String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The process has just exited
+        }
+        return 0;
+    }
+    
+    private long[] readUsage() {
+        try {
+            String[] parts = Files.readString(dir.resolve(".usage")).trim().split(" ");
+            return new long[] {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static String readCapped(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return new String(in.readNBytes(MAX_OUTPUT_LENGTH * 4), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+    
+    private static String cap(String text) {
+        return text.length() <= MAX_OUTPUT_LENGTH ? text : text.substring(0, MAX_OUTPUT_LENGTH);
+    }
+    
+    /**
+     * Receives each test case's result as it finishes.
+     */
+    @FunctionalInterface
+    public interface CaseListener {
+        /**
+         * @return false to stop the batch here
+         */
+        boolean onCase(int index, ExecutionResult result);
+    }
+    
+    private static boolean isOutOfMemoryError(String stderr) {
+        return stderr.contains("MemoryError") || stderr.contains("java.lang.OutOfMemoryError")
+            || stderr.contains("JavaScript heap out of memory");
+    }
+}
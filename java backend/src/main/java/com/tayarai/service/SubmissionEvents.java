@@ -0,0 +1,137 @@
+package com.tayarai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Event streams for queued submissions. Each submission that is waiting or
+ * being judged has a channel holding every event so far, so a client that subscribes
+ * late (or reconnects) is sent the whole story before the live events.
+ * <p>
+ * Channels only live in memory from enqueue to the final event; a finished submission
+ * is read from the database instead.
+ */
+@Component
+public class SubmissionEvents {
+    
+    @Value("${code.queue.events-timeout-ms:600000}")
+    private long timeoutMs;
+    
+    private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+    
+    public void open(Integer submissionId) {
+        channels.putIfAbsent(submissionId, new Channel());
+    }
+    
+    public boolean isOpen(Integer submissionId) {
+        return channels.containsKey(submissionId);
+    }
+    
+    /**
+     * A stream of the submission's events, or null if it has no open channel.
+     */
+    public SseEmitter subscribe(Integer submissionId) {
+        Channel channel = channels.get(submissionId);
+        if (channel == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> channel.remove(emitter));
+        emitter.onTimeout(() -> channel.remove(emitter));
+        emitter.onError(error -> channel.remove(emitter));
+        channel.add(emitter);
+        return emitter;
+    }
+    
+    public void publish(Integer submissionId, String type, Object data) {
+        Channel channel = channels.get(submissionId);
+        if (channel != null) {
+            channel.publish(type, data);
+        }
+    }
+    
+    /**
+     * Sends the final event and ends every stream of the submission.
+     */
+    public void close(Integer submissionId, String type, Object data) {
+        Channel channel = channels.remove(submissionId);
+        if (channel != null) {
+            channel.close(type, data);
+        }
+    }
+    
+    // Proxies drop connections that stay quiet, and a submission can wait a while in the queue
+    @Scheduled(fixedDelayString = "${code.queue.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            channel.heartbeat();
+        }
+    }
+    
+    private record Event(int id, String type, Object data) {
+        SseEmitter.SseEventBuilder build() {
+            return SseEmitter.event().id(String.valueOf(id)).name(type).data(data);
+        }
+    }
+    
+    private static final class Channel {
+        private final List<Event> history = new ArrayList<>();
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private boolean closed;
+        
+        synchronized void add(SseEmitter emitter) {
+            for (Event event : history) {
+                if (!send(emitter, event.build())) {
+                    return;
+                }
+            }
+            if (closed) {
+                emitter.complete();
+            } else {
+                emitters.add(emitter);
+            }
+        }
+        
+        synchronized void remove(SseEmitter emitter) {
+            emitters.remove(emitter);
+        }
+        
+        synchronized void publish(String type, Object data) {
+            Event event = new Event(history.size(), type, data);
+            history.add(event);
+            emitters.removeIf(emitter -> !send(emitter, event.build()));
+        }
+        
+        synchronized void close(String type, Object data) {
+            publish(type, data);
+            closed = true;
+            List<SseEmitter> open = new ArrayList<>(emitters);
+            emitters.clear();
+            for (SseEmitter emitter : open) {
+                emitter.complete();
+            }
+        }
+        
+        synchronized void heartbeat() {
+            emitters.removeIf(emitter -> !send(emitter, SseEmitter.event().comment("keepalive")));
+        }
+        
+        // A failed send means the client went away; the container completes the emitter
+        private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.JudgeSummary;
+import com.tayarai.model.CodeSubmission;
+import com.tayarai.model.User;
+import com.tayarai.repository.CodeSubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * The queue in front of {@link JudgeService}. Judging is admitted here rather than run
+ * on the request thread, so a burst of submissions waits its turn instead of taking every
+ * sandbox, and clients follow progress through {@link SubmissionEvents}.
+ * <p>
+ * Each user has their own FIFO, and dispatchers pick between users by stride scheduling:
+ * a user's pass advances by {@code 1 / weight} for every submission taken, and the user
+ * with the lowest pass goes next. One user's burst therefore only delays their own
+ * submissions, and paid tiers (higher weight) get proportionally more turns without
+ * starving free users. A user who joins starts at the pass of the last submission taken,
+ * so time spent idle cannot be saved up.
+ * <p>
+ * The database is the durable copy: a submission is saved as PENDING before it is
+ * queued, stamped with this instance's id, and the instance heartbeats the PENDING and
+ * RUNNING submissions it holds every {@code owner-heartbeat-ms}. Submissions whose
+ * heartbeat is older than {@code owner-stale-seconds} (their instance stopped or
+ * crashed) are taken over by whichever instance updates them first and queued again in
+ * submission order, so instances never requeue each other's live work. A dispatcher
+ * only judges a submission its instance still owns.
+ * <p>
+ * Admission is bounded three ways: the queue's capacity, a per-user limit on waiting
+ * submissions, and a share of the capacity past which free-tier submissions are turned
+ * away (with a Retry-After) so paid tiers can still get in when it is busy. Direct runs
+ * ({@code POST /api/code/execute}) skip the queue but go through {@link #runDirect}:
+ * a per-user limit on runs in progress, and the same free-tier cut-off.
+ */
+@Service
+public class SubmissionQueue {
+    
+    private static final Logger log = LoggerFactory.getLogger(SubmissionQueue.class);
+    private static final List<CodeSubmission.SubmissionStatus> QUEUED =
+        List.of(CodeSubmission.SubmissionStatus.PENDING, CodeSubmission.SubmissionStatus.RUNNING);
+    
+    @Autowired
+    private CodeSubmissionRepository codeSubmissionRepository;
+    
+    @Autowired
+    private JudgeService judgeService;
+    
+    @Autowired
+    private UserViewCache userViewCache;
+    
+    @Autowired
+    private SubmissionEvents submissionEvents;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${code.queue.capacity:1000}")
+    private int capacity;
+    
+    @Value("${code.queue.max-per-user:3}")
+    private int maxPerUser;
+    
+    // Share of the capacity free-tier submissions may fill
+    @Value("${code.queue.free-share:0.8}")
+    private double freeShare;
+    
+    @Value("${code.queue.weight.free:1}")
+    private int freeWeight;
+    
+    @Value("${code.queue.weight.pro:3}")
+    private int proWeight;
+    
+    @Value("${code.queue.weight.enterprise:5}")
+    private int enterpriseWeight;
+    
+    // Submissions judged at once (0 = one per core)
+    @Value("${code.queue.dispatchers:0}")
+    private int dispatchers;
+    
+    @Value("${code.queue.owner-stale-seconds:60}")
+    private long ownerStaleSeconds;
+    
+    // Direct runs one user may have in progress
+    @Value("${code.queue.max-direct-per-user:2}")
+    private int maxDirectPerUser;
+    
+    // This process, in queued_by; a restarted instance is a new owner
+    private final String owner = UUID.randomUUID().toString();
+    private final Map<Integer, Integer> directRuns = new HashMap<>();
+    private final Map<User.SubscriptionType, Integer> weights = new EnumMap<>(User.SubscriptionType.class);
+    private final Map<Integer, UserQueue> users = new HashMap<>();
+    private final PriorityQueue<UserQueue> ready = new PriorityQueue<>(
+        Comparator.comparingDouble((UserQueue queue) -> queue.pass).thenComparingLong(queue -> queue.order));
+    private double virtualTime;
+    private long activations;
+    private int queued;
+    private volatile boolean running = true;
+    private volatile double averageJudgeMillis = 2000;
+    private ExecutorService dispatcherThreads;
+    private Counter admitted;
+    private Counter rejected;
+    private Counter directAdmitted;
+    private Counter directRejected;
+    
+    @PostConstruct
+    public void init() {
+        weights.put(User.SubscriptionType.FREE, Math.max(1, freeWeight));
+        weights.put(User.SubscriptionType.PRO, Math.max(1, proWeight));
+        weights.put(User.SubscriptionType.ENTERPRISE, Math.max(1, enterpriseWeight));
+        if (dispatchers <= 0) {
+            dispatchers = Runtime.getRuntime().availableProcessors();
+        }
+        admitted = Counter.builder("code.queue.requests").tag("result", "admitted").register(meterRegistry);
+        rejected = Counter.builder("code.queue.requests").tag("result", "rejected").register(meterRegistry);
+        directAdmitted = Counter.builder("code.execute.requests").tag("result", "admitted").register(meterRegistry);
+        directRejected = Counter.builder("code.execute.requests").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("code.queue.size", this, SubmissionQueue::size).register(meterRegistry);
+        
+        adoptOrphans();
+        
+        dispatcherThreads = Executors.newFixedThreadPool(dispatchers, runnable -> {
+            Thread thread = new Thread(runnable, "judge-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < dispatchers; i++) {
+            dispatcherThreads.submit(this::dispatch);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        synchronized (users) {
+            users.notifyAll();
+        }
+        // Submissions cut off here stay RUNNING and are taken over once their heartbeat is stale
+        dispatcherThreads.shutdownNow();
+    }
+    
+    /**
+     * Saves the submission as PENDING and queues it for judging.
+     *
+     * @return how many submissions were waiting ahead of it
+     * @throws RejectedException if it is not admitted; nothing is saved then
+     */
+    public int submit(CodeSubmission submission, User.SubscriptionType tier) {
+        Integer userId = submission.getUser().getId();
+        UserQueue queue;
+        int ahead;
+        synchronized (users) {
+            queue = users.get(userId);
+            int waiting = queue != null ? queue.size() : 0;
+            String reason = null;
+            if (queued >= capacity) {
+                reason = "The judge queue is full, please retry shortly";
+            } else if (tier == User.SubscriptionType.FREE && queued >= (int) (capacity * freeShare)) {
+                reason = "The judge queue is busy, please retry shortly";
+            } else if (waiting >= maxPerUser) {
+                reason = "You already have " + waiting + " submissions waiting to be judged";
+            }
+            if (reason != null) {
+                rejected.increment();
+                throw new RejectedException(reason, retryAfterSeconds(queued));
+            }
+            if (queue == null) {
+                queue = new UserQueue(userId);
+                users.put(userId, queue);
+            }
+            queue.reserved++;
+            ahead = queued++;
+        }
+        
+        try {
+            submission.setStatus(CodeSubmission.SubmissionStatus.PENDING);
+            submission.setQueuedBy(owner);
+            submission.setQueuedHeartbeatAt(LocalDateTime.now());
+            submission = codeSubmissionRepository.save(submission);
+        } catch (RuntimeException e) {
+            synchronized (users) {
+                queue.reserved--;
+                queued--;
+                forgetIfIdle(queue);
+            }
+            throw e;
+        }
+        admitted.increment();
+        submissionEvents.open(submission.getId());
+        submissionEvents.publish(submission.getId(), "queued", Map.of("submissionId", submission.getId(), "ahead", ahead));
+        synchronized (users) {
+            queue.reserved--;
+            queue.submissions.add(submission.getId());
+            queue.weight = weight(tier);
+            activate(queue);
+            users.notify();
+        }
+        return ahead;
+    }
+    
+    /**
+     * Runs a direct (unqueued) execution if the user is admitted.
+     *
+     * @throws RejectedException if the user has too many runs in progress, or is on the
+     *         free tier while the queue is past the free share
+     */
+    public <T> T runDirect(Integer userId, User.SubscriptionType tier, Supplier<T> run) {
+        synchronized (users) {
+            int running = directRuns.getOrDefault(userId, 0);
+            String reason = null;
+            if (running >= maxDirectPerUser) {
+                reason = "You already have " + running + " runs in progress";
+            } else if (tier == User.SubscriptionType.FREE && queued >= (int) (capacity * freeShare)) {
+                reason = "The judge queue is busy, please retry shortly";
+            }
+            if (reason != null) {
+                directRejected.increment();
+                throw new RejectedException(reason, retryAfterSeconds(queued));
+            }
+            directRuns.merge(userId, 1, Integer::sum);
+        }
+        directAdmitted.increment();
+        try {
+            return run.get();
+        } finally {
+            synchronized (users) {
+                directRuns.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+    
+    public int size() {
+        synchronized (users) {
+            return queued;
+        }
+    }
+    
+    /**
+     * Keeps this instance's queued submissions fresh and takes over those whose instance
+     * has gone away.
+     */
+    @Scheduled(fixedDelayString = "${code.queue.owner-heartbeat-ms:15000}")
+    public void maintainOwnership() {
+        try {
+            codeSubmissionRepository.heartbeat(owner, QUEUED, LocalDateTime.now());
+            adoptOrphans();
+        } catch (RuntimeException e) {
+            log.error("Failed to heartbeat queued submissions: {}", e.getMessage());
+        }
+    }
+    
+    private void adoptOrphans() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusSeconds(ownerStaleSeconds);
+        int adopted = 0;
+        for (Object[] row : codeSubmissionRepository.findOrphaned(QUEUED, staleBefore)) {
+            Integer submissionId = (Integer) row[0];
+            Integer userId = (Integer) row[1];
+            if (codeSubmissionRepository.adopt(submissionId, QUEUED, CodeSubmission.SubmissionStatus.PENDING,
+                    owner, LocalDateTime.now(), staleBefore) == 0) {
+                // Another instance got it first
+                continue;
+            }
+            User.SubscriptionType tier;
+            try {
+                tier = userViewCache.get(userId).subscriptionType();
+            } catch (RuntimeException e) {
+                tier = User.SubscriptionType.FREE;
+            }
+            submissionEvents.open(submissionId);
+            synchronized (users) {
+                UserQueue queue = users.computeIfAbsent(userId, UserQueue::new);
+                queue.submissions.add(submissionId);
+                queue.weight = weight(tier);
+                queued++;
+                activate(queue);
+                users.notify();
+            }
+            adopted++;
+        }
+        if (adopted > 0) {
+            log.info("Queued {} submissions left by a stopped instance", adopted);
+        }
+    }
+    
+    private void dispatch() {
+        while (running) {
+            Taken next;
+            try {
+                next = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+            try {
+                judge(next);
+            } catch (RuntimeException e) {
+                log.error("Judging submission {} failed: {}", next.submissionId(), e.getMessage());
+                submissionEvents.close(next.submissionId(), "error", Map.of("message", "Failed to judge code: " + e.getMessage()));
+            }
+        }
+    }
+    
+    private Taken take() throws InterruptedException {
+        synchronized (users) {
+            while (running && ready.isEmpty()) {
+                users.wait();
+            }
+            if (!running) {
+                return null;
+            }
+            UserQueue queue = ready.poll();
+            Integer submissionId = queue.submissions.poll();
+            virtualTime = queue.pass;
+            queue.pass += 1.0 / queue.weight;
+            queued--;
+            if (!queue.submissions.isEmpty()) {
+                ready.add(queue);
+            } else {
+                forgetIfIdle(queue);
+            }
+            return new Taken(submissionId, queue.userId, queue.weight);
+        }
+    }
+    
+    private void judge(Taken taken) {
+        Integer submissionId = taken.submissionId();
+        // Claimed in the database first, so the same submission is never judged twice
+        if (codeSubmissionRepository.claim(submissionId, owner,
+                CodeSubmission.SubmissionStatus.PENDING, CodeSubmission.SubmissionStatus.RUNNING) == 0) {
+            submissionEvents.close(submissionId, "error", Map.of("message", "Submission is no longer queued"));
+            return;
+        }
+        CodeSubmission submission = codeSubmissionRepository.findById(submissionId).orElse(null);
+        if (submission == null) {
+            submissionEvents.close(submissionId, "error", Map.of("message", "Submission not found"));
+            return;
+        }
+        
+        submissionEvents.publish(submissionId, "running", Map.of("submissionId", submissionId));
+        long started = System.currentTimeMillis();
+        try {
+            CodeSubmission.JudgeMode mode = submission.getJudgeMode() != null
+                ? submission.getJudgeMode() : CodeSubmission.JudgeMode.SUBMIT;
+            JudgeSummary summary = judgeService.judge(submission, mode,
+                result -> submissionEvents.publish(submissionId, "case", result));
+            averageJudgeMillis = averageJudgeMillis * 0.9 + (System.currentTimeMillis() - started) * 0.1;
+            submissionEvents.close(submissionId, "summary", summary);
+        } catch (SandboxPool.BusyException e) {
+            // Sandboxes are taken by direct runs; this submission keeps its turn
+            codeSubmissionRepository.updateStatus(submissionId,
+                CodeSubmission.SubmissionStatus.RUNNING, CodeSubmission.SubmissionStatus.PENDING);
+            submissionEvents.publish(submissionId, "queued", Map.of("submissionId", submissionId, "ahead", 0));
+            requeue(taken);
+            try {
+                Thread.sleep(e.getRetryAfterSeconds() * 1000L);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to judge submission {}: {}", submissionId, e.getMessage());
+            submission.setStatus(CodeSubmission.SubmissionStatus.ERROR);
+            submission.setErrorMessage("Failed to judge code: " + e.getMessage());
+            codeSubmissionRepository.save(submission);
+            submissionEvents.close(submissionId, "error", Map.of("message", submission.getErrorMessage()));
+        }
+    }
+    
+    // Back at the head of the user's queue, with the turn it was given undone
+    private void requeue(Taken taken) {
+        synchronized (users) {
+            UserQueue queue = users.computeIfAbsent(taken.userId(), UserQueue::new);
+            queue.submissions.addFirst(taken.submissionId());
+            if (queue.submissions.size() > 1) {
+                ready.remove(queue);
+            } else {
+                queue.weight = taken.weight();
+                queue.order = activations++;
+            }
+            queue.pass = Math.max(virtualTime, queue.pass - 1.0 / taken.weight());
+            ready.add(queue);
+            queued++;
+            users.notify();
+        }
+    }
+    
+    private void activate(UserQueue queue) {
+        if (queue.submissions.size() == 1) {
+            queue.pass = Math.max(queue.pass, virtualTime);
+            queue.order = activations++;
+            ready.add(queue);
+        }
+    }
+    
+    private void forgetIfIdle(UserQueue queue) {
+        if (queue.size() == 0) {
+            users.remove(queue.userId);
+        }
+    }
+    
+    private int weight(User.SubscriptionType tier) {
+        return weights.getOrDefault(tier != null ? tier : User.SubscriptionType.FREE, 1);
+    }
+    
+    // About as long as a tenth of the waiting submissions take to judge
+    private int retryAfterSeconds(int waiting) {
+        double seconds = waiting / 10.0 * averageJudgeMillis / dispatchers / 1000;
+        return (int) Math.max(1, Math.min(60, Math.ceil(seconds)));
+    }
+    
+    private record Taken(Integer submissionId, Integer userId, int weight) {
+    }
+    
+    private static final class UserQueue {
+        private final Integer userId;
+        private final Deque<Integer> submissions = new ArrayDeque<>();
+        private int reserved;
+        private int weight = 1;
+        private double pass;
+        private long order;
+        
+        UserQueue(Integer userId) {
+            this.userId = userId;
+        }
+        
+        // Waiting, plus admitted but not yet saved
+        int size() {
+            return submissions.size() + reserved;
+        }
+    }
+    
+    public static class RejectedException extends RuntimeException {
+        private final int retryAfterSeconds;
+        
+        public RejectedException(String message, int retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+        
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
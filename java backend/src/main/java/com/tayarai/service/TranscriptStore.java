@@ -0,0 +1,204 @@
+package com.tayarai.service;
+
+import com.tayarai.model.InterviewTranscriptChunk;
+import com.tayarai.repository.InterviewRepository;
+import com.tayarai.repository.InterviewTranscriptChunkRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only interview transcripts kept in {@code interview_transcript_chunks}. Nothing
+ * here is touched when an {@link com.tayarai.model.Interview} is loaded; a transcript is
+ * only read when it is asked for.
+ * <p>
+ * Single turns are too short to compress well, so turns are batched: appends extend the
+ * last row while it is plain and shorter than {@code COMPRESS_MIN_BYTES}, and once a row
+ * reaches that length it is compressed (when that pays off) and later turns start a new one.
+ * <p>
+ * An append runs in one transaction. Concurrent appends to the same interview (from
+ * any instance) collide on the unique {@code (interview_id, seq)} key, and the loser
+ * reads the new end of the transcript and tries again.
+ * <p>
+ * Interviews saved by the Node.js backend still have their transcript in
+ * {@code interviews.conversation_transcript}. That text is returned as-is while the
+ * interview has no chunks, and becomes the first chunk when something is appended.
+ */
+@Service
+public class TranscriptStore {
+    
+    public static final String TURN_SEPARATOR = "\n\n";
+    
+    // Deflate output has a fixed overhead and needs some text to find repeats in
+    private static final int COMPRESS_MIN_BYTES = 1024;
+    private static final int MAX_ATTEMPTS = 5;
+    
+    @Autowired
+    private InterviewTranscriptChunkRepository chunkRepository;
+    
+    @Autowired
+    private InterviewRepository interviewRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * Appends one turn (or several, already joined) to the end of the transcript.
+     */
+    public void append(Integer interviewId, String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> appendOnce(interviewId, text));
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // Another append took the same seq first
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new RuntimeException("Could not append to the transcript of interview " + interviewId
+                        + ": too many concurrent appends", e);
+                }
+            }
+        }
+    }
+    
+    private void appendOnce(Integer interviewId, String text) {
+        int sealed = chunkRepository.findLastSealedSeq(interviewId, COMPRESS_MIN_BYTES);
+        // The turns since the last sealed row, too short to compress yet: one row, or
+        // several written one per turn before appends were batched
+        List<InterviewTranscriptChunk> open =
+            chunkRepository.findByInterviewIdAndSeqGreaterThanOrderBySeqAsc(interviewId, sealed);
+        List<String> batch = new ArrayList<>();
+        if (sealed < 0 && open.isEmpty()) {
+            String legacy = interviewRepository.findLegacyTranscript(interviewId);
+            if (legacy != null && !legacy.isBlank()) {
+                batch.add(legacy);
+            }
+        }
+        for (InterviewTranscriptChunk chunk : open) {
+            batch.add(decode(chunk));
+        }
+        batch.add(text);
+        
+        // Rewritten in place; a concurrent append writing the same seq fails on the unique key
+        chunkRepository.deleteAllInBatch(open);
+        chunkRepository.saveAndFlush(encode(interviewId, sealed + 1, String.join(TURN_SEPARATOR, batch)));
+    }
+    
+    /**
+     * The full transcript, turns separated by a blank line, or null if there is none.
+     */
+    public String load(Integer interviewId) {
+        List<InterviewTranscriptChunk> chunks = chunkRepository.findByInterviewIdOrderBySeqAsc(interviewId);
+        if (chunks.isEmpty()) {
+            return interviewRepository.findLegacyTranscript(interviewId);
+        }
+        return join(chunks);
+    }
+    
+    /**
+     * Transcripts for several interviews with two queries; interviews without one are left out.
+     */
+    public Map<Integer, String> loadAll(Collection<Integer> interviewIds) {
+        Map<Integer, String> transcripts = new HashMap<>();
+        if (interviewIds.isEmpty()) {
+            return transcripts;
+        }
+        
+        Map<Integer, List<InterviewTranscriptChunk>> byInterview = new LinkedHashMap<>();
+        for (InterviewTranscriptChunk chunk : chunkRepository.findByInterviewIdInOrderByInterviewIdAscSeqAsc(interviewIds)) {
+            byInterview.computeIfAbsent(chunk.getInterviewId(), id -> new ArrayList<>()).add(chunk);
+        }
+        byInterview.forEach((id, chunks) -> transcripts.put(id, join(chunks)));
+        
+        List<Integer> missing = interviewIds.stream().filter(id -> !byInterview.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            for (Object[] row : interviewRepository.findLegacyTranscripts(missing)) {
+                transcripts.put(((Number) row[0]).intValue(), (String) row[1]);
+            }
+        }
+        return transcripts;
+    }
+    
+    private static String join(List<InterviewTranscriptChunk> chunks) {
+        StringBuilder transcript = new StringBuilder();
+        for (InterviewTranscriptChunk chunk : chunks) {
+            if (transcript.length() > 0) {
+                transcript.append(TURN_SEPARATOR);
+            }
+            transcript.append(decode(chunk));
+        }
+        return transcript.toString();
+    }
+    
+    private static InterviewTranscriptChunk encode(Integer interviewId, int seq, String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        InterviewTranscriptChunk chunk = new InterviewTranscriptChunk();
+        chunk.setInterviewId(interviewId);
+        chunk.setSeq(seq);
+        chunk.setRawLength(raw.length);
+        
+        byte[] compressed = raw.length >= COMPRESS_MIN_BYTES ? deflate(raw) : null;
+        if (compressed != null && compressed.length < raw.length) {
+            chunk.setEncoding(InterviewTranscriptChunk.Encoding.DEFLATE);
+            chunk.setData(compressed);
+        } else {
+            chunk.setEncoding(InterviewTranscriptChunk.Encoding.PLAIN);
+            chunk.setData(raw);
+        }
+        return chunk;
+    }
+    
+    private static String decode(InterviewTranscriptChunk chunk) {
+        if (chunk.getEncoding() == InterviewTranscriptChunk.Encoding.PLAIN) {
+            return new String(chunk.getData(), StandardCharsets.UTF_8);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(chunk.getData());
+            byte[] raw = new byte[chunk.getRawLength()];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != raw.length) {
+                throw new RuntimeException("Transcript chunk " + chunk.getId() + " is truncated");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Transcript chunk " + chunk.getId() + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
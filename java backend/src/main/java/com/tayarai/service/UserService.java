@@ -1,12 +1,11 @@
 package com.tayarai.service;
 
-import com.tayarai.model.User;
+import com.tayarai.dto.InterviewCounts;
+import com.tayarai.dto.UserView;
 import com.tayarai.repository.UserRepository;
-import com.tayarai.repository.InterviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,35 +16,40 @@ public class UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private InterviewRepository interviewRepository;
+    private InterviewCounterService interviewCounterService;
+    
+    @Autowired
+    private InterviewQuotaService interviewQuotaService;
+    
+    @Autowired
+    private UserViewCache userViewCache;
     
     public Map<String, Object> getDashboardData(Integer userId) {
         Map<String, Object> dashboard = new HashMap<>();
         
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        UserView user = userViewCache.get(userId);
         
-        // Interview stats
-        Long totalInterviews = interviewRepository.countCompletedInterviewsByUserId(userId);
+        // Interview stats, kept up to date in memory rather than counted per request
+        InterviewCounts counts = interviewCounterService.get(userId);
+        long totalInterviews = counts.completedTotal();
         
-        // Today's interview count (for free user daily limit)
-        LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime tomorrow = today.plusDays(1);
-        Long todayInterviews = interviewRepository.countInterviewsByUserIdAndDateRange(userId, today, tomorrow);
+        // Today's interview count; the quota counts starts the moment they are admitted
+        int used = interviewQuotaService.used(userId);
+        long todayInterviews = Math.max(counts.startedToday(), used);
         
-        // Check if free user has reached daily limit
-        boolean isFreeUser = user.getSubscriptionType() == User.SubscriptionType.FREE;
-        boolean dailyLimitReached = isFreeUser && todayInterviews >= 1;
+        // Check if the user has reached their plan's daily limit
+        int limit = interviewQuotaService.limit(user.subscriptionType(), user.subscriptionStatus());
+        boolean dailyLimitReached = limit >= 0 && used >= limit;
         
         dashboard.put("totalInterviews", totalInterviews);
         dashboard.put("todayInterviews", todayInterviews);
         dashboard.put("dailyLimit", Map.of(
             "reached", dailyLimitReached,
-            "remaining", isFreeUser ? Math.max(0, 1 - todayInterviews) : -1,
-            "maxInterviews", isFreeUser ? 1 : -1
+            "remaining", limit >= 0 ? Math.max(0, limit - used) : -1,
+            "maxInterviews", limit
         ));
-        dashboard.put("subscriptionType", user.getSubscriptionType());
-        dashboard.put("subscriptionStatus", user.getSubscriptionStatus());
+        dashboard.put("subscriptionType", user.subscriptionType());
+        dashboard.put("subscriptionStatus", user.subscriptionStatus());
         
         return dashboard;
     }
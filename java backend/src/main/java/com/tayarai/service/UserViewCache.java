@@ -0,0 +1,109 @@
+package com.tayarai.service;
+
+import com.tayarai.dto.UserView;
+import com.tayarai.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-user cache of {@link UserView}, so authenticated requests that only need a
+ * name, avatar or subscription do not load the {@code users} row each time. Entries
+ * expire after {@code user.cache.ttl-seconds} (which bounds how stale a change made
+ * by the Node.js backend can be) and are dropped as soon as this service changes
+ * the user or one of their subscriptions. Only the most recently used users are kept.
+ * <p>
+ * A load that overlaps an invalidation is returned but not cached, since it may have
+ * read the row before the change committed.
+ */
+@Service
+public class UserViewCache {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${user.cache.max-entries:50000}")
+    private int maxEntries;
+    
+    @Value("${user.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private Map<Integer, Entry> entries;
+    // Bumped by every invalidation; only touched under the entries lock
+    private long invalidations;
+    private Counter hits;
+    private Counter misses;
+    
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        hits = Counter.builder("user.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("user.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("user.cache.size", this, cache -> cache.size()).register(meterRegistry);
+    }
+    
+    public UserView get(Integer userId) {
+        long now = System.nanoTime();
+        long seen;
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && now < entry.expiresAt) {
+                hits.increment();
+                return entry.view;
+            }
+            seen = invalidations;
+        }
+        
+        misses.increment();
+        UserView view = userRepository.findById(userId)
+            .map(UserView::of)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        synchronized (entries) {
+            if (invalidations == seen) {
+                entries.put(userId, new Entry(view, now + ttlSeconds * 1_000_000_000L));
+            }
+        }
+        return view;
+    }
+    
+    public void invalidate(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations++;
+            entries.remove(userId);
+        }
+    }
+    
+    public void clear() {
+        synchronized (entries) {
+            invalidations++;
+            entries.clear();
+        }
+    }
+    
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    private record Entry(UserView view, long expiresAt) {
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Warm JVM worker for the code sandbox. Started ahead of time in its own working
+ * directory; blocks until the main class name arrives on stdin, then loads it from
+ * ./classes and runs its main method. Whatever follows on stdin is the program's
+ * input. On exit, CPU time used since the class name arrived and peak RSS go to
+ * .usage as "<cpu ms> <rss kb>".
+ * <p>
+ * "batch &lt;count&gt; &lt;class&gt;" instead runs main once per test case, each time in a
+ * fresh class loader so static state does not carry over: case i reads cases/i.in and
+ * writes cases/i.out and cases/i.err, and then a line "&lt;i&gt; &lt;exit code&gt;" is
+ * appended to .progress. After each case it waits for a line "next" on stdin before
+ * going on (or exiting), so the supervisor can measure each case's time and memory
+ * by itself.
+ */
+public final class SandboxLauncher {
+    
+    // Loaded while the worker waits, so programs do not pay for it on their first use
+    private static final String[] PRELOAD = {
+        "java.util.Scanner", "java.io.BufferedReader", "java.io.InputStreamReader", "java.io.PrintWriter",
+        "java.util.StringTokenizer", "java.util.ArrayList", "java.util.HashMap", "java.util.HashSet",
+        "java.util.ArrayDeque", "java.util.PriorityQueue", "java.util.TreeMap", "java.util.Arrays",
+        "java.util.stream.Collectors", "java.util.stream.IntStream", "java.lang.invoke.StringConcatFactory"
+    };
+    
+    public static void main(String[] args) throws Exception {
+        for (String name : PRELOAD) {
+            try {
+                Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                // Not in this JDK
+            }
+        }
+        String line = readLine(System.in);
+        Path dir = Paths.get("").toAbsolutePath();
+        com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        if (line.startsWith("batch ")) {
+            String[] parts = line.split(" ");
+            runBatch(dir, parts[2], Integer.parseInt(parts[1]));
+            return;
+        }
+        
+        long startCpu = os.getProcessCpuTime();
+        Path usage = dir.resolve(".usage");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeUsage(usage, os.getProcessCpuTime() - startCpu)));
+        try {
+            mainMethod(dir, line).invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            printUserTrace(e.getCause());
+            System.exit(1);
+        }
+    }
+    
+    private static void runBatch(Path dir, String mainClass, int count) throws Exception {
+        // The supervisor's stdin; each case gets its input through System.setIn instead
+        InputStream control = System.in;
+        PrintStream[] current = new PrintStream[2];
+        // A program that calls System.exit still gets its output written
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (PrintStream stream : current) {
+                if (stream != null) {
+                    stream.flush();
+                }
+            }
+        }));
+        
+        try (PrintStream progress = new PrintStream(new FileOutputStream(dir.resolve(".progress").toFile(), true), true)) {
+            for (int i = 0; i < count; i++) {
+                Path cases = dir.resolve("cases");
+                PrintStream out = new PrintStream(new BufferedOutputStream(
+                    new FileOutputStream(cases.resolve(i + ".out").toFile()), 65536), false, StandardCharsets.UTF_8);
+                PrintStream err = new PrintStream(new FileOutputStream(cases.resolve(i + ".err").toFile()), true,
+                    StandardCharsets.UTF_8);
+                current[0] = out;
+                current[1] = err;
+                System.setIn(new BufferedInputStream(new FileInputStream(cases.resolve(i + ".in").toFile())));
+                System.setOut(out);
+                System.setErr(err);
+                resetPeakRss();
+                
+                int exitCode = 0;
+                try {
+                    mainMethod(dir, mainClass).invoke(null, (Object) new String[0]);
+                } catch (InvocationTargetException e) {
+                    printUserTrace(e.getCause());
+                    exitCode = 1;
+                }
+                out.close();
+                err.close();
+                System.in.close();
+                progress.println(i + " " + exitCode);
+                if (!readLine(control).equals("next")) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    // Drops the reflection and launcher frames below the program's main
+    private static void printUserTrace(Throwable e) {
+        StackTraceElement[] trace = e.getStackTrace();
+        int keep = trace.length;
+        for (int i = 0; i < trace.length; i++) {
+            if (trace[i].getClassName().startsWith("jdk.internal.reflect.")) {
+                keep = i;
+                break;
+            }
+        }
+        e.setStackTrace(java.util.Arrays.copyOf(trace, keep));
+        e.printStackTrace();
+    }
+    
+    // The program sees the JDK but not this class. mainClass is a binary name, and like
+    // the java launcher this runs main in classes that are not public.
+    private static Method mainMethod(Path dir, String mainClass) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[] {dir.resolve("classes").toUri().toURL()},
+            SandboxLauncher.class.getClassLoader().getParent());
+        Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+        main.setAccessible(true);
+        return main;
+    }
+    
+    // Reads through System.in itself, so bytes it buffers stay readable by the program
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.append((char) b);
+        }
+        return line.toString().trim();
+    }
+    
+    private static void writeUsage(Path usage, long cpuNanos) {
+        try {
+            Files.writeString(usage, (cpuNanos / 1_000_000) + " " + peakRssKb(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            // Nothing to report to
+        }
+    }
+    
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(Paths.get("/proc/self/clear_refs"), "5");
+        } catch (IOException e) {
+            // Peak RSS then covers the whole batch so far
+        }
+    }
+    
+    private static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Peak RSS stays unknown
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+// Warm Node.js worker for the code sandbox. Started ahead of time in its own working
+// directory; blocks until the entry file name arrives on stdin, then requires it.
+// Whatever follows on stdin is the program's input. On exit, CPU time used since the
+// entry arrived and peak RSS go to .usage as "<cpu ms> <rss kb>".
+//
+// "batch <count> <entry>" instead runs the entry once per test case, each in a fresh
+// worker thread so module state and pending callbacks do not carry over: case i reads
+// cases/i.in and writes cases/i.out and cases/i.err, and then a line "<i> <exit code>"
+// is appended to .progress. After each case it waits for a line "next" on stdin
+// before going on (or exiting), so the supervisor can measure each case's time and
+// memory by itself.
+'use strict';
+const fs = require('fs');
+const path = require('path');
+
+function readLine() {
+  // One byte at a time, so none of the program's input is consumed here
+  const bytes = [];
+  const one = Buffer.alloc(1);
+  for (;;) {
+    let n;
+    try {
+      n = fs.readSync(0, one, 0, 1, null);
+    } catch (e) {
+      if (e.code === 'EAGAIN') {
+        Atomics.wait(new Int32Array(new SharedArrayBuffer(4)), 0, 0, 5);
+        continue;
+      }
+      throw e;
+    }
+    if (n === 0 || one[0] === 10) {
+      return Buffer.from(bytes).toString('utf8').trim();
+    }
+    bytes.push(one[0]);
+  }
+}
+
+// Runs inside each case's worker thread, where both process.stdin and direct reads of
+// fd 0 must yield the case input (a worker's own stdin would keep it from exiting)
+const PRELUDE = `
+const fs = require('fs');
+const { Readable } = require('stream');
+const { workerData } = require('worker_threads');
+const input = Buffer.from(workerData.input);
+Object.defineProperty(process, 'stdin', { value: Readable.from([input], { objectMode: false }), configurable: true });
+const readFileSync = fs.readFileSync;
+fs.readFileSync = function (file, options) {
+  if (file === 0 || file === '/dev/stdin') {
+    const encoding = typeof options === 'string' ? options : options && options.encoding;
+    return encoding ? input.toString(encoding) : Buffer.from(input);
+  }
+  return readFileSync.apply(this, arguments);
+};
+process.argv = [process.argv[0], workerData.entry];
+require(workerData.entry);
+`;
+
+function runSingle(entry) {
+  const usagePath = path.resolve('.usage');
+  const startCpu = process.cpuUsage();
+
+  process.on('exit', () => {
+    const cpu = process.cpuUsage(startCpu);
+    try {
+      fs.writeFileSync(usagePath, `${Math.round((cpu.user + cpu.system) / 1000)} ${process.resourceUsage().maxRSS}`);
+    } catch (e) {
+      // Nothing to report to
+    }
+  });
+
+  process.argv = [process.argv[0], entry];
+  require(entry);
+}
+
+function resetPeakRss() {
+  try {
+    fs.writeFileSync('/proc/self/clear_refs', '5');
+  } catch (e) {
+    // Peak RSS then covers the whole batch so far
+  }
+}
+
+function runCase(entry, input) {
+  const { Worker } = require('worker_threads');
+  return new Promise((resolve) => {
+    const stdout = [];
+    const stderr = [];
+    let exitCode = null;
+    let open = 2;
+    const worker = new Worker(PRELUDE, { eval: true, workerData: { entry, input }, stdout: true, stderr: true });
+    const done = () => {
+      if (exitCode !== null && open === 0) {
+        resolve({ exitCode, stdout: Buffer.concat(stdout), stderr: Buffer.concat(stderr) });
+      }
+    };
+    worker.stdout.on('data', (chunk) => stdout.push(chunk));
+    worker.stderr.on('data', (chunk) => stderr.push(chunk));
+    worker.stdout.on('end', () => { open--; done(); });
+    worker.stderr.on('end', () => { open--; done(); });
+    worker.on('error', (e) => stderr.push(Buffer.from(`${e && e.stack ? e.stack : e}\n`)));
+    worker.on('exit', (code) => { exitCode = code; done(); });
+  });
+}
+
+async function runBatch(entry, count) {
+  const progress = fs.openSync(path.resolve('.progress'), 'a');
+  for (let i = 0; i < count; i++) {
+    const input = fs.readFileSync(`cases/${i}.in`);
+    resetPeakRss();
+    const result = await runCase(entry, input);
+    fs.writeFileSync(`cases/${i}.out`, result.stdout);
+    // Node's own frames below the program say nothing useful to the user
+    fs.writeFileSync(`cases/${i}.err`, result.stderr.toString('utf8').replace(/^\s+at .*(node:internal|\[worker eval\]).*\n?/gm, ''));
+    fs.writeSync(progress, `${i} ${result.exitCode & 0xff}\n`);
+    if (readLine() !== 'next') {
+      break;
+    }
+  }
+  fs.closeSync(progress);
+}
+
+const line = readLine();
+if (line.startsWith('batch ')) {
+  const [, count, name] = line.split(' ');
+  runBatch(path.resolve(name), Number(count));
+} else {
+  runSingle(path.resolve(line));
+}
@@ -0,0 +1,126 @@
+# Warm Python worker for the code sandbox. Started ahead of time in its own working
+# directory; blocks until the entry file name arrives on stdin, then runs it as
+# __main__. Whatever follows on stdin is the program's input. On exit, CPU time
+# used since the entry arrived and peak RSS go to .usage as "<cpu ms> <rss kb>".
+#
+# "batch <count> <entry>" instead runs the entry once per test case: case i reads
+# cases/i.in and writes cases/i.out and cases/i.err, and then a line "<i> <exit code>"
+# is appended to .progress. After each case it waits for a line "next" on stdin
+# before going on (or exiting), so the supervisor can measure each case's time and
+# memory by itself.
+import atexit
+import gc
+import os
+import resource
+import runpy
+import sys
+import traceback
+
+
+def read_line(fd=0):
+    # Unbuffered, so none of the program's input is consumed here
+    data = bytearray()
+    while True:
+        b = os.read(fd, 1)
+        if not b or b == b'\n':
+            return data.decode('utf-8').strip()
+        data += b
+
+
+def cpu_seconds():
+    usage = resource.getrusage(resource.RUSAGE_SELF)
+    return usage.ru_utime + usage.ru_stime
+
+
+def run_entry(entry):
+    """Runs the program once and returns its exit code."""
+    try:
+        runpy.run_path(entry, run_name='__main__')
+        return 0
+    except SystemExit as e:
+        if e.code is None:
+            return 0
+        if isinstance(e.code, int):
+            return e.code
+        print(e.code, file=sys.stderr)
+        return 1
+    except BaseException as e:
+        # Leave the bootstrap's own frames out of the traceback
+        tb = e.__traceback__
+        while tb is not None and tb.tb_frame.f_code.co_filename != entry:
+            tb = tb.tb_next
+        traceback.print_exception(type(e), e, tb)
+        return 1
+
+
+def reset_peak_rss():
+    try:
+        with open('/proc/self/clear_refs', 'w') as f:
+            f.write('5')
+    except OSError:
+        pass
+
+
+def redirect(fd, path, flags):
+    opened = os.open(path, flags, 0o600)
+    os.dup2(opened, fd)
+    os.close(opened)
+
+
+def run_single(entry):
+    usage_path = os.path.abspath('.usage')
+    start_cpu = cpu_seconds()
+
+    def write_usage():
+        cpu = cpu_seconds() - start_cpu
+        try:
+            with open(usage_path, 'w') as f:
+                f.write('%d %d' % (cpu * 1000, resource.getrusage(resource.RUSAGE_SELF).ru_maxrss))
+        except OSError:
+            pass
+
+    atexit.register(write_usage)
+    sys.exit(run_entry(entry))
+
+
+def run_batch(entry, count):
+    # The supervisor's stdin, kept apart from the case input that replaces fd 0
+    control = os.dup(0)
+    progress = open(os.path.abspath('.progress'), 'a', buffering=1)
+    write_flags = os.O_WRONLY | os.O_CREAT | os.O_TRUNC
+    for i in range(count):
+        # Real file descriptors, so os.read(0) and subprocess-style writes are redirected too
+        redirect(0, 'cases/%d.in' % i, os.O_RDONLY)
+        redirect(1, 'cases/%d.out' % i, write_flags)
+        redirect(2, 'cases/%d.err' % i, write_flags)
+        sys.stdin = open(0, 'r', encoding='utf-8', closefd=False)
+        sys.stdout = open(1, 'w', encoding='utf-8', closefd=False)
+        sys.stderr = open(2, 'w', encoding='utf-8', closefd=False)
+        gc.collect()
+        reset_peak_rss()
+
+        code = run_entry(entry)
+        sys.stdout.flush()
+        sys.stderr.flush()
+        progress.write('%d %d\n' % (i, code & 0xFF))
+        if read_line(control) != 'next':
+            break
+    progress.close()
+
+
+def main():
+    line = read_line()
+    if line.startswith('batch '):
+        _, count, name = line.split(' ', 2)
+        entry = os.path.abspath(name)
+    else:
+        count, entry = None, os.path.abspath(line)
+    sys.argv = [entry]
+    sys.path.insert(0, os.path.dirname(entry))
+    if count is None:
+        run_single(entry)
+    else:
+        run_batch(entry, int(count))
+
+
+main()
@@ -119,7 +119,10 @@ async function createTables() {
         FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
         INDEX idx_user_id (user_id),
         INDEX idx_status (status),
-        INDEX idx_vapi_call_id (vapi_call_id)
+        INDEX idx_vapi_call_id (vapi_call_id),
+        INDEX idx_started_at (started_at),
+        INDEX idx_completed_at (completed_at),
+        INDEX idx_user_status_completed (user_id, status, completed_at)
       ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
     `);
 
@@ -183,7 +186,11 @@ async function createTables() {
         language VARCHAR(50) NOT NULL,
         code TEXT NOT NULL,
         status ENUM('pending', 'running', 'success', 'error', 'timeout') DEFAULT 'pending',
+        judge_mode VARCHAR(10) NULL COMMENT 'SUBMIT or RUN_ALL when judged through the submission queue',
+        queued_by VARCHAR(64) NULL COMMENT 'Java backend instance holding it in its queue',
+        queued_heartbeat_at DATETIME NULL COMMENT 'Last heartbeat from that instance',
         execution_time DECIMAL(10,3) NULL COMMENT 'Execution time in seconds',
+        cpu_time DECIMAL(10,3) NULL COMMENT 'CPU time in seconds',
         memory_used DECIMAL(10,2) NULL COMMENT 'Memory used in MB',
         output TEXT NULL,
         error_message TEXT NULL,
@@ -209,7 +216,8 @@ async function createTables() {
         last_submission_date DATE NULL,
         created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
         updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+        INDEX idx_updated_at (updated_at)
       ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
     `);
 
@@ -278,6 +286,111 @@ async function createTables() {
         INDEX idx_user_cv (user_id)
       ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
     `);
+
+    // Interview transcript chunks (append-only, written by the Java backend)
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS interview_transcript_chunks (
+        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+        interview_id INT NOT NULL,
+        seq INT NOT NULL,
+        encoding ENUM('PLAIN', 'DEFLATE') NOT NULL DEFAULT 'PLAIN',
+        raw_length INT NOT NULL,
+        data MEDIUMBLOB NOT NULL,
+        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+        FOREIGN KEY (interview_id) REFERENCES interviews(id) ON DELETE CASCADE,
+        UNIQUE KEY uk_interview_seq (interview_id, seq)
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    // Per-user interview counters (maintained by the Java backend)
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS user_interview_stats (
+        user_id INT PRIMARY KEY,
+        started_total INT NOT NULL DEFAULT 0,
+        completed_total INT NOT NULL DEFAULT 0,
+        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS user_interview_daily (
+        user_id INT NOT NULL,
+        interview_date DATE NOT NULL,
+        started INT NOT NULL DEFAULT 0,
+        completed INT NOT NULL DEFAULT 0,
+        PRIMARY KEY (user_id, interview_date),
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    // One row per limited user and day; both backends count starts on it under its row lock
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS interview_daily_quota (
+        user_id INT NOT NULL,
+        day DATE NOT NULL,
+        started INT NOT NULL DEFAULT 0,
+        PRIMARY KEY (user_id, day),
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    // Interviews per day for each plan, read by both backends; no row means unlimited
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS interview_quota_limits (
+        subscription_type VARCHAR(20) PRIMARY KEY,
+        daily_limit INT NOT NULL
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+    // Only fills in missing plans, so limits changed in the table are kept
+    await connection.query(
+      "INSERT IGNORE INTO interview_quota_limits (subscription_type, daily_limit) VALUES ('free', 1)"
+    );
+
+    // Activity rollups and archive (maintained by the Java backend)
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS activity_rollup_hourly (
+        user_id INT NOT NULL,
+        bucket_start DATETIME NOT NULL,
+        activity_type VARCHAR(100) NOT NULL,
+        event_count INT NOT NULL DEFAULT 0,
+        PRIMARY KEY (user_id, bucket_start, activity_type),
+        INDEX idx_bucket_start (bucket_start)
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS activity_rollup_daily (
+        user_id INT NOT NULL,
+        bucket_date DATE NOT NULL,
+        activity_type VARCHAR(100) NOT NULL,
+        event_count INT NOT NULL DEFAULT 0,
+        PRIMARY KEY (user_id, bucket_date, activity_type)
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS activity_logs_archive (
+        id INT PRIMARY KEY,
+        user_id INT NULL,
+        activity_type VARCHAR(100) NOT NULL,
+        description TEXT,
+        metadata JSON,
+        ip_address VARCHAR(45),
+        user_agent VARCHAR(500),
+        created_at TIMESTAMP NULL,
+        INDEX idx_user_id (user_id),
+        INDEX idx_created_at (created_at)
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
+
+    await connection.query(`
+      CREATE TABLE IF NOT EXISTS summary_watermarks (
+        name VARCHAR(64) PRIMARY KEY,
+        scanned_until DATETIME NOT NULL,
+        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+      ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+    `);
   } finally {
     connection.release();
   }
@@ -450,6 +563,87 @@ async function migrateTables() {
         }
       }
     }
+    
+    // Check and add cpu_time column to code_submissions (recorded by the Java sandbox)
+    const [cpuTimeColumn]: any = await connection.query(
+      `SELECT 1 FROM information_schema.columns 
+       WHERE table_schema = DATABASE() 
+       AND table_name = 'code_submissions' 
+       AND column_name = 'cpu_time'`
+    );
+    
+    if (cpuTimeColumn.length === 0) {
+      console.log('🔄 Adding cpu_time column to code_submissions table...');
+      try {
+        await connection.query(`
+          ALTER TABLE code_submissions 
+          ADD COLUMN cpu_time DECIMAL(10,3) NULL COMMENT 'CPU time in seconds' AFTER execution_time
+        `);
+        console.log('✅ Added cpu_time column');
+      } catch (error: any) {
+        console.warn('Could not add cpu_time column:', error.message);
+      }
+    }
+
+    // Check and add judge_mode column to code_submissions (set by the Java submission queue)
+    const [judgeModeColumn]: any = await connection.query(
+      `SELECT 1 FROM information_schema.columns 
+       WHERE table_schema = DATABASE() 
+       AND table_name = 'code_submissions' 
+       AND column_name = 'judge_mode'`
+    );
+    
+    if (judgeModeColumn.length === 0) {
+      console.log('🔄 Adding judge_mode column to code_submissions table...');
+      try {
+        await connection.query(`
+          ALTER TABLE code_submissions 
+          ADD COLUMN judge_mode VARCHAR(10) NULL COMMENT 'SUBMIT or RUN_ALL when judged through the submission queue' AFTER status
+        `);
+        console.log('✅ Added judge_mode column');
+      } catch (error: any) {
+        console.warn('Could not add judge_mode column:', error.message);
+      }
+    }
+
+    // Check and add queue ownership columns to code_submissions (Java submission queue)
+    const [queuedByColumn]: any = await connection.query(
+      `SELECT 1 FROM information_schema.columns 
+       WHERE table_schema = DATABASE() 
+       AND table_name = 'code_submissions' 
+       AND column_name = 'queued_by'`
+    );
+    
+    if (queuedByColumn.length === 0) {
+      console.log('🔄 Adding queue ownership columns to code_submissions table...');
+      try {
+        await connection.query(`
+          ALTER TABLE code_submissions 
+          ADD COLUMN queued_by VARCHAR(64) NULL COMMENT 'Java backend instance holding it in its queue' AFTER judge_mode,
+          ADD COLUMN queued_heartbeat_at DATETIME NULL COMMENT 'Last heartbeat from that instance' AFTER queued_by
+        `);
+        console.log('✅ Added queue ownership columns');
+      } catch (error: any) {
+        console.warn('Could not add queue ownership columns:', error.message);
+      }
+    }
+
+    // Rows changed since the Java leaderboard last read coding_stats
+    const [statsUpdatedIndex]: any = await connection.query(
+      `SELECT 1 FROM information_schema.statistics 
+       WHERE table_schema = DATABASE() 
+       AND table_name = 'coding_stats' 
+       AND index_name = 'idx_updated_at'`
+    );
+
+    if (statsUpdatedIndex.length === 0) {
+      try {
+        await connection.query('ALTER TABLE coding_stats ADD INDEX idx_updated_at (updated_at)');
+        console.log('✅ Added idx_updated_at index to coding_stats table');
+      } catch (error: any) {
+        console.warn('Could not add idx_updated_at index:', error.message);
+      }
+    }
   } catch (error: any) {
     console.error('Migration error:', error);
     // Don't throw - allow the app to continue even if migration fails
@@ -520,6 +714,45 @@ async function migrateInterviewTable() {
         }
       }
       
+      // Time-range indexes used by the Java backend's interview counters
+      for (const column of ['started_at', 'completed_at']) {
+        const [timeIndex]: any = await connection.query(
+          `SELECT 1 FROM information_schema.statistics 
+           WHERE table_schema = DATABASE() 
+           AND table_name = 'interviews' 
+           AND index_name = ?`,
+          [`idx_${column}`]
+        );
+
+        if (timeIndex.length === 0) {
+          try {
+            await connection.query(`ALTER TABLE interviews ADD INDEX idx_${column} (${column})`);
+            console.log(`✅ Added idx_${column} index to interviews table`);
+          } catch (error: any) {
+            console.warn(`Could not add idx_${column} index:`, error.message);
+          }
+        }
+      }
+      
+      // Keyset-paginated interview history in the Java backend
+      const [historyIndex]: any = await connection.query(
+        `SELECT 1 FROM information_schema.statistics 
+         WHERE table_schema = DATABASE() 
+         AND table_name = 'interviews' 
+         AND index_name = 'idx_user_status_completed'`
+      );
+
+      if (historyIndex.length === 0) {
+        try {
+          await connection.query(
+            'ALTER TABLE interviews ADD INDEX idx_user_status_completed (user_id, status, completed_at)'
+          );
+          console.log('✅ Added idx_user_status_completed index to interviews table');
+        } catch (error: any) {
+          console.warn('Could not add idx_user_status_completed index:', error.message);
+        }
+      }
+      
       // Check and add vapi_assistant_id column
       const [vapiAssistantIdColumn]: any = await connection.query(
         `SELECT 1 FROM information_schema.columns 
@@ -0,0 +1,35 @@
+-- Migration: Hourly/daily activity rollups and archive for activity_logs retention
+-- Date: 2026-10-16
+
+-- Event counts per user (0 = anonymous), bucket and activity type, maintained by the
+-- Java backend from activity_logs rows behind summary_watermarks 'activity_rollups'.
+CREATE TABLE IF NOT EXISTS activity_rollup_hourly (
+  user_id INT NOT NULL,
+  bucket_start DATETIME NOT NULL,
+  activity_type VARCHAR(100) NOT NULL,
+  event_count INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, bucket_start, activity_type),
+  INDEX idx_bucket_start (bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS activity_rollup_daily (
+  user_id INT NOT NULL,
+  bucket_date DATE NOT NULL,
+  activity_type VARCHAR(100) NOT NULL,
+  event_count INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, bucket_date, activity_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Raw events past activity.retention.raw-days, when activity.retention.archive=true
+CREATE TABLE IF NOT EXISTS activity_logs_archive (
+  id INT PRIMARY KEY,
+  user_id INT NULL,
+  activity_type VARCHAR(100) NOT NULL,
+  description TEXT,
+  metadata JSON,
+  ip_address VARCHAR(45),
+  user_agent VARCHAR(500),
+  created_at TIMESTAMP NULL,
+  INDEX idx_user_id (user_id),
+  INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,6 @@
+-- Migration: Index for incremental leaderboard reads
+-- Date: 2026-10-16
+
+-- The Java leaderboard reads again only the coding_stats rows whose updated_at is at or
+-- after the newest one it has seen.
+CREATE INDEX idx_updated_at ON coding_stats (updated_at);
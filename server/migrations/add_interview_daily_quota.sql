@@ -0,0 +1,14 @@
+-- Migration: Per-user daily interview quota rows
+-- Date: 2026-10-16
+
+-- Both backends start a limited user's interview by counting it up here, with a
+-- conditional update below the limit, in the transaction that inserts the interview.
+-- A missing row is created at zero first, in its own statement, so the transaction
+-- only ever locks this row; the Java backend raises rows to that day's interviews.
+CREATE TABLE IF NOT EXISTS interview_daily_quota (
+  user_id INT NOT NULL,
+  day DATE NOT NULL,
+  started INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, day),
+  FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,6 @@
+-- Migration: Index for keyset-paginated interview history
+-- Date: 2026-10-16
+
+-- Serves WHERE user_id = ? AND status = 'completed' ORDER BY completed_at DESC, id DESC
+-- (InnoDB appends the primary key to secondary indexes) without a filesort.
+CREATE INDEX idx_user_status_completed ON interviews (user_id, status, completed_at);
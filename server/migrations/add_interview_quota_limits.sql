@@ -0,0 +1,12 @@
+-- Migration: Shared daily interview limits per plan
+-- Date: 2026-10-16
+
+-- Both backends read a user's daily interview limit here, keyed by the plan: the
+-- subscription type while the subscription is active, 'free' otherwise. A plan with
+-- no row is unlimited.
+CREATE TABLE IF NOT EXISTS interview_quota_limits (
+  subscription_type VARCHAR(20) PRIMARY KEY,
+  daily_limit INT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT IGNORE INTO interview_quota_limits (subscription_type, daily_limit) VALUES ('free', 1);
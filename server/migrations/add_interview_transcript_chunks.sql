@@ -0,0 +1,16 @@
+-- Migration: Store interview transcripts as append-only compressed chunks
+-- Date: 2026-10-16
+
+-- One row per appended turn; data is raw UTF-8 (PLAIN) or zlib-compressed (DEFLATE).
+-- interviews.conversation_transcript is kept for transcripts saved before this table.
+CREATE TABLE IF NOT EXISTS interview_transcript_chunks (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  interview_id INT NOT NULL,
+  seq INT NOT NULL,
+  encoding ENUM('PLAIN', 'DEFLATE') NOT NULL DEFAULT 'PLAIN',
+  raw_length INT NOT NULL COMMENT 'Uncompressed size in bytes',
+  data MEDIUMBLOB NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (interview_id) REFERENCES interviews(id) ON DELETE CASCADE,
+  UNIQUE KEY uk_interview_seq (interview_id, seq)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,6 @@
+-- Migration: CPU time for sandboxed code submissions
+-- Date: 2026-10-16
+
+-- execution_time stays wall-clock time; cpu_time is what the program itself consumed.
+ALTER TABLE code_submissions
+  ADD COLUMN cpu_time DECIMAL(10,3) NULL COMMENT 'CPU time in seconds' AFTER execution_time;
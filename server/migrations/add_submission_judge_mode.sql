@@ -0,0 +1,7 @@
+-- Migration: Judge mode for queued code submissions
+-- Date: 2026-10-16
+
+-- Set (SUBMIT or RUN_ALL) on submissions judged through the Java submission queue; queued
+-- rows still pending or running when the backend starts are queued again.
+ALTER TABLE code_submissions
+  ADD COLUMN judge_mode VARCHAR(10) NULL COMMENT 'SUBMIT or RUN_ALL when judged through the submission queue' AFTER status;
@@ -0,0 +1,8 @@
+-- Migration: Owner and heartbeat for queued code submissions
+-- Date: 2026-10-16
+
+-- The Java backend instance that queued (or took over) a submission heartbeats it while
+-- it is pending or running; another instance only queues it again once the heartbeat is stale.
+ALTER TABLE code_submissions
+  ADD COLUMN queued_by VARCHAR(64) NULL COMMENT 'Java backend instance holding it in its queue' AFTER judge_mode,
+  ADD COLUMN queued_heartbeat_at DATETIME NULL COMMENT 'Last heartbeat from that instance' AFTER queued_by;
@@ -0,0 +1,31 @@
+-- Migration: Per-user interview counters for the dashboard
+-- Date: 2026-10-16
+
+-- Maintained incrementally by the Java backend from interviews started/completed
+-- after summary_watermarks.scanned_until; the first pass backfills from all interviews.
+CREATE TABLE IF NOT EXISTS user_interview_stats (
+  user_id INT PRIMARY KEY,
+  started_total INT NOT NULL DEFAULT 0,
+  completed_total INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS user_interview_daily (
+  user_id INT NOT NULL,
+  interview_date DATE NOT NULL,
+  started INT NOT NULL DEFAULT 0,
+  completed INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, interview_date),
+  FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS summary_watermarks (
+  name VARCHAR(64) PRIMARY KEY,
+  scanned_until DATETIME NOT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- The incremental passes read interviews by time range
+CREATE INDEX idx_started_at ON interviews (started_at);
+CREATE INDEX idx_completed_at ON interviews (completed_at);
@@ -7,6 +7,20 @@ const router = express.Router();
 // All routes require authentication
 router.use(authenticateToken);
 
+// Interviews per day on the user's plan, or -1 for unlimited. A cancelled or expired
+// subscription counts as free. The limits are shared with the Java backend through
+// interview_quota_limits; a plan with no row there is unlimited.
+async function getDailyInterviewLimit(connection: any, subscriptionType: string | null, subscriptionStatus: string | null) {
+  const active = !subscriptionStatus || subscriptionStatus === 'active';
+  const plan = subscriptionType && active ? subscriptionType : 'free';
+  const [limits]: any = await connection.query(
+    'SELECT daily_limit FROM interview_quota_limits WHERE subscription_type = ?',
+    [plan]
+  );
+  const limit = limits[0]?.daily_limit;
+  return limit === undefined || limit === null || limit < 0 ? -1 : Number(limit);
+}
+
 // Get user dashboard stats
 router.get('/dashboard', async (req: AuthRequest, res) => {
   try {
@@ -59,6 +73,8 @@ router.get('/dashboard', async (req: AuthRequest, res) => {
       const isFreeUser = !subscriptionType || 
                          subscriptionType === 'free' || 
                          subscriptionStatus !== 'active';
+      const dailyLimit = await getDailyInterviewLimit(connection, subscriptionType, subscriptionStatus);
+      const interviewsToday = todayInterviews[0]?.count || 0;
 
       res.json({
         stats: {
@@ -77,9 +93,9 @@ router.get('/dashboard', async (req: AuthRequest, res) => {
         },
         daily_limit: {
           is_free_user: isFreeUser,
-          interviews_today: todayInterviews[0]?.count || 0,
-          daily_limit: isFreeUser ? 1 : -1, // -1 means unlimited
-          remaining: isFreeUser ? Math.max(0, 1 - (todayInterviews[0]?.count || 0)) : -1,
+          interviews_today: interviewsToday,
+          daily_limit: dailyLimit, // -1 means unlimited
+          remaining: dailyLimit >= 0 ? Math.max(0, dailyLimit - interviewsToday) : -1,
         },
       });
     } finally {
@@ -191,28 +207,35 @@ router.post('/interviews', async (req: AuthRequest, res) => {
       );
       const user = users[0];
 
-      // Check if user is on free plan (no subscription or inactive subscription)
-      const isFreeUser = !user.subscription_type || 
-                         user.subscription_type === 'free' || 
-                         user.subscription_status !== 'active';
-
-      // If free user, check daily interview limit (1 per day)
-      if (isFreeUser) {
-        const today = new Date();
-        today.setHours(0, 0, 0, 0); // Start of today
-        const tomorrow = new Date(today);
-        tomorrow.setDate(tomorrow.getDate() + 1); // Start of tomorrow
-
-        const [todayInterviews]: any = await connection.query(
-          `SELECT COUNT(*) as count FROM interviews 
-           WHERE user_id = ? AND created_at >= ? AND created_at < ?`,
-          [userId, today, tomorrow]
+      // Same plan and limit as the Java backend
+      const dailyLimit = await getDailyInterviewLimit(connection, user.subscription_type, user.subscription_status);
+      const day = new Date().toLocaleDateString('en-CA'); // YYYY-MM-DD
+
+      // Created on its own before the transaction: an INSERT IGNORE inside it would
+      // share-lock an existing row, and two starts holding that lock deadlock on the update
+      if (dailyLimit >= 0) {
+        await connection.query(
+          'INSERT IGNORE INTO interview_daily_quota (user_id, day, started) VALUES (?, ?, 0)',
+          [userId, day]
+        );
+      }
+
+      // The quota row and the interview are written in one transaction; the Java backend
+      // takes the same row, so starts from either backend cannot both pass the limit
+      await connection.beginTransaction();
+
+      if (dailyLimit >= 0) {
+        const [taken]: any = await connection.query(
+          `UPDATE interview_daily_quota SET started = started + 1
+           WHERE user_id = ? AND day = ? AND started < ?`,
+          [userId, day, dailyLimit]
         );
 
-        if (todayInterviews[0].count >= 1) {
+        if (taken.affectedRows === 0) {
+          await connection.rollback();
           return res.status(403).json({ 
             message: 'Daily interview limit reached',
-            error: 'Free users can only take 1 interview per day. Upgrade to Pro for unlimited interviews!',
+            error: `Your plan allows ${dailyLimit} interview${dailyLimit === 1 ? '' : 's'} per day. Upgrade to Pro for unlimited interviews!`,
             limitReached: true,
             upgradeRequired: true
           });
@@ -248,11 +271,15 @@ router.post('/interviews', async (req: AuthRequest, res) => {
         'INSERT INTO activity_logs (user_id, activity_type, description) VALUES (?, ?, ?)',
         [userId, 'interview_started', `Started interview for role: ${role}`]
       );
+      await connection.commit();
 
       res.status(201).json({
         message: 'Interview started',
         interviewId,
       });
+    } catch (error) {
+      await connection.rollback();
+      throw error;
     } finally {
       connection.release();
     }